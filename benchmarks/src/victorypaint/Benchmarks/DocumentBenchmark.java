@@ -0,0 +1,115 @@
+
+package victorypaint.Benchmarks;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import victorypaint.Drawables.Drawable;
+import victorypaint.DrawingDocument;
+import victorypaint.DrawingPanel;
+import victorypaint.Edits.TranslateEdit;
+import victorypaint.Edits.UndoHistory;
+
+/**
+ * Measures copying the whole drawing with DrawingPanel.getDrawableList(), and freezing it
+ * with DrawingDocument.freeze() after one Drawable has changed, which is how a save snapshot is taken,
+ * against undoing and redoing a single edit.
+ * @author Jesse Victors, A01485921
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class DocumentBenchmark
+{
+	/**
+	 * How many Drawables are in the drawing
+	 */
+	@Param({"100", "1000", "10000"})
+	public int drawableCount;
+	
+	/**
+	 * How many Points each stroke has
+	 */
+	@Param({"200"})
+	public int pointsPerStroke;
+	
+	/**
+	 * The panel holding the drawing
+	 */
+	private DrawingPanel panel;
+	
+	/**
+	 * Holds a single TranslateEdit
+	 */
+	private UndoHistory history;
+	
+	
+	/**
+	 * Builds the drawing, puts it in a DrawingPanel, and moves one of its Drawables.
+	 */
+	@Setup
+	public void setup()
+	{
+		ArrayList<Drawable> drawables = Documents.create(drawableCount, pointsPerStroke, Documents.SEED);
+		panel = new DrawingPanel();
+		panel.setSize(Documents.WIDTH, Documents.HEIGHT);
+		panel.setDrawableList(drawables);
+		
+		history = new UndoHistory(UndoHistory.DEFAULT_MEMORY_LIMIT);
+		history.addEdit(new TranslateEdit(drawables.get(drawables.size() / 2), 10, 10));
+		panel.getDocument().freeze();
+	}
+
+
+
+	/**
+	 * @return a deep copy of every Drawable
+	 */
+	@Benchmark
+	public ArrayList<Drawable> getDrawableList()
+	{
+		return panel.getDrawableList();
+	}
+
+
+
+	/**
+	 * Undoes and redoes the TranslateEdit and then freezes the drawing,
+	 * which only needs to copy the one Drawable that moved.
+	 * @return the frozen copies
+	 */
+	@Benchmark
+	public DrawingDocument.Snapshot freezeAfterEdit()
+	{
+		history.undo();
+		history.redo();
+		return panel.getDocument().freeze();
+	}
+
+
+
+	/**
+	 * Undoes and then redoes the TranslateEdit.
+	 * @return the UndoHistory, so the work can't be optimized away
+	 */
+	@Benchmark
+	public UndoHistory undoRedo()
+	{
+		history.undo();
+		history.redo();
+		return history;
+	}
+}
@@ -0,0 +1,97 @@
+
+package victorypaint.Benchmarks;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.Random;
+import victorypaint.Drawables.Drawable;
+import victorypaint.Drawables.Pencil;
+import victorypaint.Tools.DrawingGenerator;
+
+/**
+ * Builds drawings for the benchmarks to work on. The drawings are random,
+ * but always the same for the same seed, so that runs can be compared.
+ * @author Jesse Victors, A01485921
+ */
+final class Documents
+{
+	/**
+	 * The size of the canvas the Drawables are scattered across
+	 */
+	static final int WIDTH = 1600, HEIGHT = 1000;
+	
+	/**
+	 * The seed used by all the benchmarks
+	 */
+	static final long SEED = 20120401L;
+	
+	
+	/**
+	 * There's no need to construct Documents; everything is static.
+	 */
+	private Documents()
+	{ }
+
+
+
+	/**
+	 * Builds a drawing with the given number of Drawables using a DrawingGenerator,
+	 * so the benchmarks measure the same kind of drawing as the other scale tests.
+	 * 80% of the Drawables are Pencil strokes, 15% are LineSegments, and the rest are TextBoxes.
+	 * @param drawableCount how many Drawables to build
+	 * @param pointsPerStroke the average number of Points in a Pencil stroke
+	 * @param seed the seed for the random numbers
+	 * @return the Drawables, in the order they would have been drawn
+	 */
+	static ArrayList<Drawable> create(int drawableCount, int pointsPerStroke, long seed)
+	{
+		int pencilCount = drawableCount * 4 / 5;
+		int lineSegmentCount = drawableCount * 3 / 20;
+		
+		DrawingGenerator generator = new DrawingGenerator(seed);
+		generator.setSize(WIDTH, HEIGHT);
+		generator.setCounts(pencilCount, lineSegmentCount, drawableCount - pencilCount - lineSegmentCount);
+		generator.setPointsPerStroke(pointsPerStroke);
+		return generator.generate();
+	}
+
+
+
+	/**
+	 * Builds a Pencil stroke which wanders randomly from the given start, a few pixels at a time,
+	 * which is roughly what a mouse drag produces.
+	 * @param start the first Point of the stroke
+	 * @param pointCount how many Points the stroke has
+	 * @param random the source of random numbers
+	 * @return the stroke
+	 */
+	static Pencil createStroke(Point start, int pointCount, Random random)
+	{
+		Pencil pencil = new Pencil(start);
+		int x = start.x, y = start.y;
+		for (int j = 1; j < pointCount; j++)
+		{
+			x += random.nextInt(9) - 4;
+			y += random.nextInt(9) - 4;
+			pencil.addPoint(new Point(x, y));
+		}
+		return pencil;
+	}
+
+
+
+	/**
+	 * Builds locations scattered across the canvas, for use as mouse locations.
+	 * @param count how many locations to build
+	 * @param seed the seed for the random numbers
+	 * @return the locations
+	 */
+	static Point[] createQueries(int count, long seed)
+	{
+		Random random = new Random(seed);
+		Point[] queries = new Point[count];
+		for (int j = 0; j < count; j++)
+			queries[j] = new Point(random.nextInt(WIDTH), random.nextInt(HEIGHT));
+		return queries;
+	}
+}
@@ -0,0 +1,183 @@
+
+package victorypaint.Benchmarks;
+
+import java.awt.Point;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import victorypaint.Drawables.DistanceKernel;
+import victorypaint.Drawables.HitResult;
+import victorypaint.Drawables.Pencil;
+import victorypaint.Modifiers.DrawableRotator;
+
+/**
+ * Measures the geometry a single Drawable does: projecting onto one line segment,
+ * finding the closest Point and the closest projection of a location, and rotating a Point.
+ * Finding the closest Point and projecting are measured both returning new Points
+ * and writing into a reused HitResult, which allocates nothing, with each DistanceKernel.
+ * @author Jesse Victors, A01485921
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class GeometryBenchmark
+{
+	/**
+	 * How many Points the stroke has
+	 */
+	@Param({"100", "10000", "100000"})
+	public int pointCount;
+	
+	/**
+	 * The name of the DistanceKernel to find closest points with
+	 */
+	@Param({"scalar", "batch"})
+	public String kernel;
+	
+	/**
+	 * The stroke being measured against
+	 */
+	private Pencil stroke;
+	
+	/**
+	 * Mouse locations, used in turn
+	 */
+	private Point[] queries;
+	private int nextQuery;
+	
+	/**
+	 * Reused by the queries which write into a HitResult
+	 */
+	private HitResult result = new HitResult();
+	
+	
+	/**
+	 * Builds the stroke and the mouse locations, and chooses the DistanceKernel.
+	 */
+	@Setup
+	public void setup()
+	{
+		DistanceKernel.setCurrent(DistanceKernel.forName(kernel, DistanceKernel.SCALAR));
+		Random random = new Random(Documents.SEED);
+		stroke = Documents.createStroke(new Point(Documents.WIDTH / 2, Documents.HEIGHT / 2), pointCount, random);
+		queries = Documents.createQueries(1024, Documents.SEED);
+	}
+
+
+
+	/**
+	 * @return the next mouse location
+	 */
+	private Point nextQuery()
+	{
+		nextQuery = (nextQuery + 1) & (queries.length - 1);
+		return queries[nextQuery];
+	}
+
+
+
+	/**
+	 * @return the projection of a mouse location onto a single line segment
+	 */
+	@Benchmark
+	public Point projectOntoLineSegment()
+	{
+		return Access.project(queries[0], queries[1], nextQuery());
+	}
+
+
+
+	/**
+	 * @return the stroke's closest Point to a mouse location
+	 */
+	@Benchmark
+	public Point getClosestPoint()
+	{
+		return stroke.getClosestPoint(nextQuery());
+	}
+
+
+
+	/**
+	 * @return the closest projection of a mouse location onto the stroke
+	 */
+	@Benchmark
+	public Point projectOnto()
+	{
+		return stroke.projectOnto(nextQuery());
+	}
+
+
+
+	/**
+	 * @return the squared distance to the stroke's closest Point to a mouse location, found without allocating
+	 */
+	@Benchmark
+	public double findClosestPoint()
+	{
+		Point query = nextQuery();
+		stroke.findClosestPoint(query.x, query.y, result);
+		return result.getDistanceSq();
+	}
+
+
+
+	/**
+	 * @return the squared distance to the closest projection of a mouse location onto the stroke, found without allocating
+	 */
+	@Benchmark
+	public double projectOntoHitResult()
+	{
+		Point query = nextQuery();
+		stroke.projectOnto(query.x, query.y, result);
+		return result.getDistanceSq();
+	}
+
+
+
+	/**
+	 * @return a mouse location rotated around the middle of the canvas
+	 */
+	@Benchmark
+	public Point rotatePoint()
+	{
+		return DrawableRotator.rotatePoint(nextQuery(), queries[0], 0.5);
+	}
+
+
+
+	/**
+	 * Exposes Drawable's protected projectOntoLineSegment to the benchmark.
+	 */
+	private static class Access extends Pencil
+	{
+		/**
+		 * Never called; Access is only used for its static method.
+		 */
+		private Access()
+		{
+			super(new Point());
+		}
+		
+		/**
+		 * @return the projection of c onto the line segment from a to b
+		 */
+		static Point project(Point a, Point b, Point c)
+		{
+			return projectOntoLineSegment(a, b, c);
+		}
+	}
+}
@@ -0,0 +1,170 @@
+
+package victorypaint.Benchmarks;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import victorypaint.Drawables.Drawable;
+import victorypaint.IO.DrawingFile;
+
+/**
+ * Measures saving and opening drawings: the checked-in VPsave.dat,
+ * and generated drawings in both the binary format and with Java serialization.
+ * The location of VPsave.dat may be given with the victorypaint.bench.saveFile system property.
+ * @author Jesse Victors, A01485921
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class IOBenchmark
+{
+	/**
+	 * How many Drawables are in the generated drawing
+	 */
+	@Param({"100", "1000"})
+	public int drawableCount;
+	
+	/**
+	 * How many Points each stroke has
+	 */
+	@Param({"200"})
+	public int pointsPerStroke;
+	
+	/**
+	 * The generated drawing
+	 */
+	private ArrayList<Drawable> drawables;
+	
+	/**
+	 * The checked-in save file
+	 */
+	private Path saveFile;
+	
+	/**
+	 * Temporary files holding the generated drawing in each format
+	 */
+	private Path binaryFile, serializedFile;
+	
+	
+	/**
+	 * Builds the drawing and saves it in each format, so that there is something to open.
+	 * @throws IOException if the temporary files can't be written
+	 */
+	@Setup
+	public void setup() throws IOException
+	{
+		drawables = Documents.create(drawableCount, pointsPerStroke, Documents.SEED);
+		saveFile = Paths.get(System.getProperty("victorypaint.bench.saveFile", "../VPsave.dat"));
+		
+		binaryFile = Files.createTempFile("vpbench", ".vp");
+		serializedFile = Files.createTempFile("vpbench", ".ser");
+		saveBinary();
+		saveSerialized();
+	}
+
+
+
+	/**
+	 * Deletes the temporary files.
+	 * @throws IOException if they can't be deleted
+	 */
+	@TearDown
+	public void tearDown() throws IOException
+	{
+		Files.deleteIfExists(binaryFile);
+		Files.deleteIfExists(serializedFile);
+	}
+
+
+
+	/**
+	 * @return the Drawables in the checked-in VPsave.dat
+	 * @throws IOException if it can't be read
+	 */
+	@Benchmark
+	public ArrayList<Drawable> loadSaveFile() throws IOException
+	{
+		return DrawingFile.load(saveFile);
+	}
+
+
+
+	/**
+	 * Saves the generated drawing in the binary format.
+	 * @return the file, so the work can't be optimized away
+	 * @throws IOException if it can't be written
+	 */
+	@Benchmark
+	public Path saveBinary() throws IOException
+	{
+		DrawingFile.save(drawables, binaryFile);
+		return binaryFile;
+	}
+
+
+
+	/**
+	 * @return the generated drawing, opened from the binary format
+	 * @throws IOException if it can't be read
+	 */
+	@Benchmark
+	public ArrayList<Drawable> loadBinary() throws IOException
+	{
+		return DrawingFile.load(binaryFile);
+	}
+
+
+
+	/**
+	 * Saves the generated drawing with Java serialization, as older versions did.
+	 * @return the file, so the work can't be optimized away
+	 * @throws IOException if it can't be written
+	 */
+	@Benchmark
+	public Path saveSerialized() throws IOException
+	{
+		try (ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(Files.newOutputStream(serializedFile))))
+		{
+			out.writeObject(drawables);
+		}
+		return serializedFile;
+	}
+
+
+
+	/**
+	 * @return the generated drawing, opened with Java serialization
+	 * @throws IOException if it can't be read
+	 * @throws ClassNotFoundException never
+	 */
+	@Benchmark
+	public Object loadSerialized() throws IOException, ClassNotFoundException
+	{
+		try (ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(Files.newInputStream(serializedFile))))
+		{
+			return in.readObject();
+		}
+	}
+}
@@ -0,0 +1,121 @@
+
+package victorypaint.Benchmarks;
+
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import victorypaint.Drawables.Drawable;
+import victorypaint.DrawingPanel;
+
+/**
+ * Measures DrawingPanel.paintComponent drawing into an offscreen image,
+ * both when every Drawable has to be drawn again and when only the cached image is needed.
+ * @author Jesse Victors, A01485921
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class PaintBenchmark
+{
+	/**
+	 * How many Drawables are in the drawing
+	 */
+	@Param({"100", "1000", "10000"})
+	public int drawableCount;
+	
+	/**
+	 * How many Points each stroke has
+	 */
+	@Param({"200"})
+	public int pointsPerStroke;
+	
+	/**
+	 * The panel being painted
+	 */
+	private DrawingPanel panel;
+	
+	/**
+	 * Any Drawable in the panel, used to report the whole panel as damaged
+	 */
+	private Drawable anyDrawable;
+	
+	/**
+	 * The offscreen image being painted into, and its Graphics
+	 */
+	private BufferedImage image;
+	private Graphics2D graphics;
+	
+	
+	/**
+	 * Builds the drawing, puts it in a DrawingPanel, and paints it once to fill the cache.
+	 */
+	@Setup
+	public void setup()
+	{
+		ArrayList<Drawable> drawables = Documents.create(drawableCount, pointsPerStroke, Documents.SEED);
+		anyDrawable = drawables.get(0);
+		
+		panel = new DrawingPanel();
+		panel.setSize(Documents.WIDTH, Documents.HEIGHT);
+		panel.setDrawableList(drawables);
+		
+		image = new BufferedImage(Documents.WIDTH, Documents.HEIGHT, BufferedImage.TYPE_INT_RGB);
+		graphics = image.createGraphics();
+		panel.paintComponent(graphics);
+	}
+
+
+
+	/**
+	 * Releases the Graphics.
+	 */
+	@TearDown
+	public void tearDown()
+	{
+		graphics.dispose();
+	}
+
+
+
+	/**
+	 * Reports the whole panel as damaged and paints it, so every Drawable is drawn again.
+	 * @return the image, so the painting can't be optimized away
+	 */
+	@Benchmark
+	public BufferedImage paintAll()
+	{
+		panel.drawableChanged(anyDrawable, new Rectangle(0, 0, Documents.WIDTH, Documents.HEIGHT));
+		panel.paintComponent(graphics);
+		return image;
+	}
+
+
+
+	/**
+	 * Paints the panel when nothing has changed, so only the cached image is drawn.
+	 * @return the image, so the painting can't be optimized away
+	 */
+	@Benchmark
+	public BufferedImage paintCached()
+	{
+		panel.paintComponent(graphics);
+		return image;
+	}
+}
@@ -0,0 +1,134 @@
+
+package victorypaint.Benchmarks;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import victorypaint.Drawables.Drawable;
+import victorypaint.Drawables.HitResult;
+import victorypaint.Drawables.PointList;
+import victorypaint.Spatial.DrawableQueries;
+
+/**
+ * Measures queries over every Drawable in a drawing, without a spatial index to narrow them down:
+ * finding the closest Drawable to a point, every Drawable near a point, and every Drawable near a path
+ * the mouse was dragged along. Each is measured searching on one thread and searching in parallel,
+ * so the speedup on the machine running the benchmark can be read off.
+ * @author Jesse Victors, A01485921
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class QueryBenchmark
+{
+	/**
+	 * How far from the point or path the Drawables may be, in pixels
+	 */
+	private static final double RADIUS = 20;
+
+	/**
+	 * How many Drawables are in the drawing
+	 */
+	@Param({"1000", "10000", "100000"})
+	public int drawableCount;
+
+	/**
+	 * Whether the Drawables are searched in parallel
+	 */
+	@Param({"false", "true"})
+	public boolean parallel;
+
+	/**
+	 * The drawing being searched
+	 */
+	private List<Drawable> drawables;
+
+	/**
+	 * A path wandering across the canvas, as if the mouse had been dragged along it
+	 */
+	private PointList path;
+
+	/**
+	 * Mouse locations, used in turn
+	 */
+	private Point[] queries;
+	private int nextQuery;
+
+	/**
+	 * Reused by findNearest
+	 */
+	private HitResult result = new HitResult();
+
+
+	/**
+	 * Builds the drawing, the path and the mouse locations, and chooses whether to search in parallel.
+	 */
+	@Setup
+	public void setup()
+	{
+		drawables = new ArrayList<>(Documents.create(drawableCount, 200, Documents.SEED));
+		path = Documents.createStroke(new Point(Documents.WIDTH / 4, Documents.HEIGHT / 2), 500, new Random(Documents.SEED)).getPointList();
+		queries = Documents.createQueries(1024, Documents.SEED);
+		DrawableQueries.setParallelThreshold(parallel ? 1 : Integer.MAX_VALUE);
+	}
+
+
+
+	/**
+	 * @return the next mouse location
+	 */
+	private Point nextQuery()
+	{
+		nextQuery = (nextQuery + 1) & (queries.length - 1);
+		return queries[nextQuery];
+	}
+
+
+
+	/**
+	 * @return the closest Drawable to a mouse location
+	 */
+	@Benchmark
+	public Drawable findNearest()
+	{
+		return DrawableQueries.findNearest(drawables, nextQuery(), Double.POSITIVE_INFINITY, result);
+	}
+
+
+
+	/**
+	 * @return every Drawable near a mouse location
+	 */
+	@Benchmark
+	public List<Drawable> findWithin()
+	{
+		return DrawableQueries.findWithin(drawables, nextQuery(), RADIUS);
+	}
+
+
+
+	/**
+	 * @return every Drawable near the path
+	 */
+	@Benchmark
+	public List<Drawable> findNearPath()
+	{
+		return DrawableQueries.findNearPath(drawables, path, RADIUS);
+	}
+}
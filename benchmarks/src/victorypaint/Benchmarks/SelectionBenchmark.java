@@ -0,0 +1,85 @@
+
+package victorypaint.Benchmarks;
+
+import java.awt.Point;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import victorypaint.DrawingPanel;
+import victorypaint.Modifiers.DrawableModifier;
+import victorypaint.Modifiers.DrawableTranslator;
+import victorypaint.Modifiers.Selection;
+
+/**
+ * Measures how long a DrawableModifier takes to find the Drawable closest to the mouse,
+ * which is done every time the mouse moves.
+ * @author Jesse Victors, A01485921
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class SelectionBenchmark
+{
+	/**
+	 * How many Drawables are in the drawing
+	 */
+	@Param({"100", "1000", "10000"})
+	public int drawableCount;
+	
+	/**
+	 * How many Points each stroke has
+	 */
+	@Param({"200"})
+	public int pointsPerStroke;
+	
+	/**
+	 * The modifier doing the selecting
+	 */
+	private DrawableModifier modifier;
+	
+	/**
+	 * Mouse locations, used in turn
+	 */
+	private Point[] queries;
+	private int nextQuery;
+	
+	
+	/**
+	 * Builds the drawing, puts it in a DrawingPanel, and gives the panel a DrawableModifier.
+	 */
+	@Setup
+	public void setup()
+	{
+		DrawingPanel panel = new DrawingPanel();
+		panel.setSize(Documents.WIDTH, Documents.HEIGHT);
+		panel.setDrawableList(Documents.create(drawableCount, pointsPerStroke, Documents.SEED));
+		
+		modifier = new DrawableTranslator(panel);
+		panel.setDrawableModifier(modifier);
+		queries = Documents.createQueries(1024, Documents.SEED);
+	}
+
+
+
+	/**
+	 * @return the Selection around the next mouse location
+	 */
+	@Benchmark
+	public Selection calculateSelection()
+	{
+		nextQuery = (nextQuery + 1) & (queries.length - 1);
+		return modifier.calculateSelection(queries[nextQuery]);
+	}
+}
@@ -0,0 +1,308 @@
+
+package victorypaint.Drawables;
+
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Point;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Path2D;
+
+/**
+ * A Curve is a smooth open curve made of cubic Bezier curves joined end to end.
+ * Its first Point is where the curve starts, and each following group of three Points
+ * holds the two control points and the end point of the next Bezier.
+ * Curves are made by fitting a Pencil's Points with fit(), which for a smooth stroke
+ * needs a small fraction of the Points.
+ * @author Jesse Victors, A01485921
+ */
+public class Curve extends Drawable
+{
+	/**
+	 * Identifies this version of the class to serialization
+	 */
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * How many evenly spaced points of each Bezier are tried before refining the closest one
+	 */
+	private static final int PROJECTION_SAMPLES = 8;
+
+	/**
+	 * How many steps of Newton-Raphson iteration refine the closest point of each Bezier
+	 */
+	private static final int PROJECTION_ITERATIONS = 4;
+
+	/**
+	 * The shape of the curve, built when it is first drawn. May be null.
+	 */
+	private transient Path2D.Float path;
+
+
+	/**
+	 * Constructs a Curve which starts at the given Point and has no Beziers yet.
+	 * @param firstPoint the initial location for the Curve. Must be non-null.
+	 */
+	public Curve(Point firstPoint)
+	{
+		super(firstPoint);
+	}
+
+
+
+	/**
+	 * Fits a Curve to the given Points.
+	 * @param points the Points to fit, such as a Pencil's, must be non-null
+	 * @param tolerance roughly how far the Curve may stray from the Points, must be positive
+	 * @return the fitted Curve, or null if there are fewer than two distinct Points
+	 */
+	public static Curve fit(PointList points, double tolerance)
+	{
+		PointList controls = CurveFitter.fit(points, tolerance);
+		if (controls == null)
+			return null;
+
+		Curve curve = new Curve(controls.get(0));
+		curve.setPointList(controls);
+		return curve;
+	}
+
+
+
+	/**
+	 * @return the number of Beziers in the curve
+	 */
+	public int getBezierCount()
+	{
+		return (points.size() - 1) / 3;
+	}
+
+
+
+	/**
+	 * Moves the entire Curve so that its first Point is at the given location.
+	 * @param newLoc the new location for the Curve. Must be non-null.
+	 */
+	@Override
+	public void setLocation(Point newLoc)
+	{
+		bakeTransform();
+		if (path != null)
+			path.transform(AffineTransform.getTranslateInstance(newLoc.x - points.getX(0), newLoc.y - points.getY(0)));
+		super.setLocation(newLoc);
+	}
+
+
+
+	/**
+	 * Sets the nth Point to the given Point, which may be the end of a Bezier or one of its control points.
+	 * @param n the index of the Point to replace
+	 * @param newPoint the new Point, must be non-null
+	 */
+	@Override
+	public void setPoint(int n, Point newPoint)
+	{
+		path = null;
+		super.setPoint(n, newPoint);
+	}
+
+
+
+	/**
+	 * Replaces all the Points with copies of the given Points.
+	 * @param newPoints the new Points, must be non-null and contain at least one Point
+	 */
+	@Override
+	public void setPointList(PointList newPoints)
+	{
+		path = null;
+		super.setPointList(newPoints);
+	}
+
+
+
+	/**
+	 * Projects the given location onto the curve itself, rather than onto its control points.
+	 * The closest point of each Bezier is found by trying evenly spaced points along it and then
+	 * refining the closest with Newton-Raphson iteration. Beziers whose control points are
+	 * all farther away than the closest point found so far are skipped, since a Bezier
+	 * never strays outside its control points.
+	 * @param x the x coordinate of the comparative location, without the transform
+	 * @param y the y coordinate of the comparative location, without the transform
+	 * @param result where to write the Curve's closest point to the location, without the transform
+	 */
+	@Override
+	protected void computeProjection(double x, double y, HitResult result)
+	{
+		int[] xs = points.getXArray(), ys = points.getYArray();
+		double[] bezier = result.bezier;
+		double closestDistSq = Double.POSITIVE_INFINITY, closestX = xs[0], closestY = ys[0];
+
+		for (int b = 0; b < getBezierCount(); b++)
+		{
+			int first = 3 * b;
+			int minX = xs[first], minY = ys[first], maxX = minX, maxY = minY;
+			for (int j = 0; j < 4; j++)
+			{
+				bezier[2 * j] = xs[first + j];
+				bezier[2 * j + 1] = ys[first + j];
+				minX = Math.min(minX, xs[first + j]);
+				minY = Math.min(minY, ys[first + j]);
+				maxX = Math.max(maxX, xs[first + j]);
+				maxY = Math.max(maxY, ys[first + j]);
+			}
+
+			double dx = Math.max(0, Math.max(minX - x, x - maxX));
+			double dy = Math.max(0, Math.max(minY - y, y - maxY));
+			if (dx * dx + dy * dy >= closestDistSq)
+				continue;
+
+			double bestT = 0, bestDistSq = Double.POSITIVE_INFINITY;
+			for (int j = 0; j <= PROJECTION_SAMPLES; j++)
+			{
+				double t = (double)j / PROJECTION_SAMPLES;
+				double distSq = distanceSq(bezier, t, x, y);
+				if (distSq < bestDistSq)
+				{
+					bestDistSq = distSq;
+					bestT = t;
+				}
+			}
+
+			for (int j = 0; j < PROJECTION_ITERATIONS; j++)
+			{
+				double t = Math.max(0, Math.min(1, newtonStep(bezier, x, y, bestT)));
+				double distSq = distanceSq(bezier, t, x, y);
+				if (distSq >= bestDistSq)
+					break;
+				bestDistSq = distSq;
+				bestT = t;
+			}
+
+			if (bestDistSq < closestDistSq)
+			{
+				closestDistSq = bestDistSq;
+				closestX = bezierX(bezier, bestT);
+				closestY = bezierY(bezier, bestT);
+			}
+		}
+
+		int px = (int)Math.round(closestX), py = (int)Math.round(closestY);
+		double dx = px - x, dy = py - y;
+		result.set(px, py, dx * dx + dy * dy, -1);
+		for (int j = 3 * getBezierCount() + 1; j < points.size(); j++) //any Points left over are joined by lines
+			projectOntoLineSegment(xs[j - 1], ys[j - 1], xs[j], ys[j], x, y, result);
+	}
+
+
+
+	/**
+	 * @return the squared distance between the given point and the Bezier at parameter t
+	 */
+	private static double distanceSq(double[] bezier, double t, double px, double py)
+	{
+		double dx = bezierX(bezier, t) - px, dy = bezierY(bezier, t) - py;
+		return dx * dx + dy * dy;
+	}
+
+
+
+	/**
+	 * @param bezier the Bezier's four points as {x0, y0, x1, y1, x2, y2, x3, y3}
+	 * @param t the parameter, from 0 at the start of the Bezier to 1 at its end
+	 * @return the x coordinate of the Bezier at parameter t
+	 */
+	static double bezierX(double[] bezier, double t)
+	{
+		double s = 1 - t;
+		return s * s * s * bezier[0] + 3 * s * s * t * bezier[2] + 3 * s * t * t * bezier[4] + t * t * t * bezier[6];
+	}
+
+
+
+	/**
+	 * @param bezier the Bezier's four points as {x0, y0, x1, y1, x2, y2, x3, y3}
+	 * @param t the parameter, from 0 at the start of the Bezier to 1 at its end
+	 * @return the y coordinate of the Bezier at parameter t
+	 */
+	static double bezierY(double[] bezier, double t)
+	{
+		double s = 1 - t;
+		return s * s * s * bezier[1] + 3 * s * s * t * bezier[3] + 3 * s * t * t * bezier[5] + t * t * t * bezier[7];
+	}
+
+
+
+	/**
+	 * Takes one step of Newton-Raphson iteration towards the parameter of the point
+	 * on the Bezier closest to the given point.
+	 * @param bezier the Bezier's four points as {x0, y0, x1, y1, x2, y2, x3, y3}
+	 * @param px the x coordinate of the point
+	 * @param py the y coordinate of the point
+	 * @param t the current guess at the parameter
+	 * @return a better guess, which may be outside of 0 to 1
+	 */
+	static double newtonStep(double[] bezier, double px, double py, double t)
+	{
+		double s = 1 - t;
+		double qx = bezierX(bezier, t) - px, qy = bezierY(bezier, t) - py;
+
+		//first and second derivatives of the Bezier
+		double d1x = 3 * (s * s * (bezier[2] - bezier[0]) + 2 * s * t * (bezier[4] - bezier[2]) + t * t * (bezier[6] - bezier[4]));
+		double d1y = 3 * (s * s * (bezier[3] - bezier[1]) + 2 * s * t * (bezier[5] - bezier[3]) + t * t * (bezier[7] - bezier[5]));
+		double d2x = 6 * (s * (bezier[4] - 2 * bezier[2] + bezier[0]) + t * (bezier[6] - 2 * bezier[4] + bezier[2]));
+		double d2y = 6 * (s * (bezier[5] - 2 * bezier[3] + bezier[1]) + t * (bezier[7] - 2 * bezier[5] + bezier[3]));
+
+		double numerator = qx * d1x + qy * d1y;
+		double denominator = d1x * d1x + d1y * d1y + qx * d2x + qy * d2y;
+		return denominator == 0 ? t : t - numerator / denominator;
+	}
+
+
+
+	/**
+	 * Draws the curve.
+	 * @param g the Graphics to draw on. Must be non-null.
+	 */
+	@Override
+	protected void paint(Graphics g)
+	{
+		((Graphics2D)g).draw(getPath());
+	}
+
+
+
+	/**
+	 * @return the shape of the curve, building it if it hasn't been built since the Points last changed
+	 */
+	private Path2D.Float getPath()
+	{
+		if (path == null)
+		{
+			int[] xs = points.getXArray(), ys = points.getYArray();
+			path = new Path2D.Float(Path2D.WIND_NON_ZERO, points.size());
+			path.moveTo(xs[0], ys[0]);
+
+			int j = 1;
+			for (; j + 2 < points.size(); j += 3)
+				path.curveTo(xs[j], ys[j], xs[j + 1], ys[j + 1], xs[j + 2], ys[j + 2]);
+			for (; j < points.size(); j++)
+				path.lineTo(xs[j], ys[j]);
+		}
+		return path;
+	}
+
+
+
+	/**
+	 * Makes a deep copy clone of this Curve and returns the result.
+	 * @return a deep copy of this Curve
+	 */
+	@Override
+	public Curve clone()
+	{
+		Curve c = new Curve(getLocation());
+		c.points = clonePointList();
+		c.color = color;
+		return c;
+	}
+}
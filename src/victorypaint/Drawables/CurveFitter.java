@@ -0,0 +1,293 @@
+
+package victorypaint.Drawables;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+
+/**
+ * Fits piecewise cubic Bezier curves to a series of points, using Philip Schneider's algorithm
+ * from Graphics Gems, "An Algorithm for Automatically Fitting Digitized Curves".
+ * A single Bezier is fitted to the points by least squares, its parameters refined a few times
+ * with Newton-Raphson iteration, and if it still strays too far from the points,
+ * the points are split where it strays the most and each half is fitted in turn.
+ * The halves share a tangent where they meet, so the result is smooth.
+ * @author Jesse Victors, A01485921
+ */
+final class CurveFitter
+{
+	/**
+	 * How many times the parameters are refined before the points are split
+	 */
+	private static final int MAX_ITERATIONS = 4;
+
+	/**
+	 * The coordinates of the points being fitted, without repeats
+	 */
+	private double[] xs, ys;
+
+	/**
+	 * The squared distance a Bezier may stray from the points
+	 */
+	private double errorSq;
+
+	/**
+	 * The index of the point where the last Bezier strayed the most
+	 */
+	private int splitPoint;
+
+
+	/**
+	 * Prepares to fit the given points, skipping repeated points.
+	 */
+	private CurveFitter(PointList points, double tolerance)
+	{
+		int[] px = points.getXArray(), py = points.getYArray();
+		xs = new double[points.size()];
+		ys = new double[points.size()];
+
+		int n = 0;
+		for (int j = 0; j < points.size(); j++)
+			if (n == 0 || px[j] != xs[n - 1] || py[j] != ys[n - 1])
+			{
+				xs[n] = px[j];
+				ys[n] = py[j];
+				n++;
+			}
+
+		xs = Arrays.copyOf(xs, n);
+		ys = Arrays.copyOf(ys, n);
+		errorSq = tolerance * tolerance;
+	}
+
+
+
+	/**
+	 * Fits piecewise cubic Beziers to the given points.
+	 * @param points the points to fit, must be non-null
+	 * @param tolerance roughly how far the curve may stray from the points, must be positive
+	 * @return the first point, followed by the two control points and the end point of each Bezier in turn,
+	 * or null if there are fewer than two distinct points. The control points are rounded to whole numbers.
+	 */
+	static PointList fit(PointList points, double tolerance)
+	{
+		return new CurveFitter(points, tolerance).fit();
+	}
+
+
+
+	/**
+	 * Fits the points, working through the spans still to be fitted from first to last.
+	 * A stack is used instead of recursion so that a long stroke can't overflow the call stack.
+	 */
+	private PointList fit()
+	{
+		int n = xs.length;
+		if (n < 2)
+			return null;
+
+		PointList controls = new PointList(16);
+		controls.add(round(xs[0]), round(ys[0]));
+
+		//each span is {first, last, left tangent x, y, right tangent x, y}
+		ArrayDeque<double[]> spans = new ArrayDeque<>();
+		double[] left = tangent(1, 0), right = tangent(n - 2, n - 1);
+		spans.push(new double[] {0, n - 1, left[0], left[1], right[0], right[1]});
+
+		while (!spans.isEmpty())
+		{
+			double[] span = spans.pop();
+			int first = (int)span[0], last = (int)span[1];
+			double[] bezier = fitSpan(first, last, span[2], span[3], span[4], span[5]);
+			if (bezier != null)
+			{
+				for (int j = 2; j < 8; j += 2)
+					controls.add(round(bezier[j]), round(bezier[j + 1]));
+				continue;
+			}
+
+			//split where the fit was worst; the right half is pushed first so the left half is fitted first
+			int split = splitPoint;
+			double[] center = centerTangent(split);
+			spans.push(new double[] {split, last, -center[0], -center[1], span[4], span[5]});
+			spans.push(new double[] {first, split, span[2], span[3], center[0], center[1]});
+		}
+		return controls;
+	}
+
+
+
+	/**
+	 * Tries to fit a single Bezier to the points from first to last, with the given unit tangents
+	 * at each end, each pointing into the span.
+	 * @return the Bezier's four points as {x0, y0, x1, y1, x2, y2, x3, y3}, or null if none fitted
+	 * well enough, in which case splitPoint holds where the points should be split
+	 */
+	private double[] fitSpan(int first, int last, double t1x, double t1y, double t2x, double t2y)
+	{
+		if (last - first == 1)
+		{
+			double dist = Math.hypot(xs[last] - xs[first], ys[last] - ys[first]) / 3;
+			return new double[] {xs[first], ys[first], xs[first] + t1x * dist, ys[first] + t1y * dist,
+					xs[last] + t2x * dist, ys[last] + t2y * dist, xs[last], ys[last]};
+		}
+
+		double[] u = chordLengthParameterize(first, last);
+		double[] bezier = generateBezier(first, last, u, t1x, t1y, t2x, t2y);
+		double maxError = computeMaxError(first, last, bezier, u);
+		if (maxError < errorSq)
+			return bezier;
+
+		if (maxError < errorSq * 4) //close enough that better parameters might be enough
+		{
+			for (int j = 0; j < MAX_ITERATIONS; j++)
+			{
+				reparameterize(first, last, u, bezier);
+				bezier = generateBezier(first, last, u, t1x, t1y, t2x, t2y);
+				maxError = computeMaxError(first, last, bezier, u);
+				if (maxError < errorSq)
+					return bezier;
+			}
+		}
+		return null;
+	}
+
+
+
+	/**
+	 * Finds the Bezier which best fits the points from first to last at the given parameters,
+	 * by least squares, with its control points along the given tangents.
+	 */
+	private double[] generateBezier(int first, int last, double[] u,
+			double t1x, double t1y, double t2x, double t2y)
+	{
+		double x0 = xs[first], y0 = ys[first], x3 = xs[last], y3 = ys[last];
+		double c00 = 0, c01 = 0, c11 = 0, x0Sum = 0, x1Sum = 0;
+
+		for (int j = 0; j < u.length; j++)
+		{
+			double t = u[j], s = 1 - t;
+			double b0 = s * s * s, b1 = 3 * t * s * s, b2 = 3 * t * t * s, b3 = t * t * t;
+			double a0x = t1x * b1, a0y = t1y * b1;
+			double a1x = t2x * b2, a1y = t2y * b2;
+
+			c00 += a0x * a0x + a0y * a0y;
+			c01 += a0x * a1x + a0y * a1y;
+			c11 += a1x * a1x + a1y * a1y;
+
+			double dx = xs[first + j] - (x0 * (b0 + b1) + x3 * (b2 + b3));
+			double dy = ys[first + j] - (y0 * (b0 + b1) + y3 * (b2 + b3));
+			x0Sum += a0x * dx + a0y * dy;
+			x1Sum += a1x * dx + a1y * dy;
+		}
+
+		double det = c00 * c11 - c01 * c01;
+		double alphaLeft = det == 0 ? 0 : (x0Sum * c11 - x1Sum * c01) / det;
+		double alphaRight = det == 0 ? 0 : (c00 * x1Sum - c01 * x0Sum) / det;
+
+		//if the least squares fit is degenerate, fall back on control points a third of the way along
+		double length = Math.hypot(x3 - x0, y3 - y0);
+		if (alphaLeft < 1e-6 * length || alphaRight < 1e-6 * length)
+			alphaLeft = alphaRight = length / 3;
+
+		return new double[] {x0, y0, x0 + t1x * alphaLeft, y0 + t1y * alphaLeft,
+				x3 + t2x * alphaRight, y3 + t2y * alphaRight, x3, y3};
+	}
+
+
+
+	/**
+	 * Improves each parameter with a step of Newton-Raphson iteration, so that it names
+	 * the point on the Bezier closest to its point.
+	 */
+	private void reparameterize(int first, int last, double[] u, double[] bezier)
+	{
+		for (int j = 0; j < u.length; j++)
+			u[j] = Math.max(0, Math.min(1, Curve.newtonStep(bezier, xs[first + j], ys[first + j], u[j])));
+	}
+
+
+
+	/**
+	 * @return the greatest squared distance between a point from first to last and the Bezier
+	 * at that point's parameter. splitPoint is set to that point.
+	 */
+	private double computeMaxError(int first, int last, double[] bezier, double[] u)
+	{
+		double maxDist = 0;
+		splitPoint = (first + last) / 2;
+		for (int j = first + 1; j < last; j++)
+		{
+			double t = u[j - first];
+			double dx = Curve.bezierX(bezier, t) - xs[j], dy = Curve.bezierY(bezier, t) - ys[j];
+			double dist = dx * dx + dy * dy;
+			if (dist >= maxDist)
+			{
+				maxDist = dist;
+				splitPoint = j;
+			}
+		}
+		return maxDist;
+	}
+
+
+
+	/**
+	 * @return a parameter for each point from first to last, in proportion to the distance along the points
+	 */
+	private double[] chordLengthParameterize(int first, int last)
+	{
+		double[] u = new double[last - first + 1];
+		for (int j = first + 1; j <= last; j++)
+			u[j - first] = u[j - first - 1] + Math.hypot(xs[j] - xs[j - 1], ys[j] - ys[j - 1]);
+
+		double length = u[u.length - 1];
+		for (int j = 1; j < u.length; j++)
+			u[j] /= length;
+		return u;
+	}
+
+
+
+	/**
+	 * @return the unit vector from point a to point b
+	 */
+	private double[] tangent(int b, int a)
+	{
+		return normalize(xs[b] - xs[a], ys[b] - ys[a]);
+	}
+
+
+
+	/**
+	 * @return the unit tangent at the given point, which is between two others,
+	 * pointing back towards the point before it
+	 */
+	private double[] centerTangent(int center)
+	{
+		double x = (xs[center - 1] - xs[center + 1]) / 2, y = (ys[center - 1] - ys[center + 1]) / 2;
+		if (x == 0 && y == 0) //the curve doubles back on itself here
+			return tangent(center - 1, center);
+		return normalize(x, y);
+	}
+
+
+
+	/**
+	 * @return the given vector scaled to a length of one
+	 */
+	private static double[] normalize(double x, double y)
+	{
+		double length = Math.hypot(x, y);
+		return new double[] {x / length, y / length};
+	}
+
+
+
+	/**
+	 * @return the given coordinate rounded to the nearest whole number
+	 */
+	private static int round(double coord)
+	{
+		return (int)Math.round(coord);
+	}
+}
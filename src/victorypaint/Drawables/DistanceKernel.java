@@ -0,0 +1,231 @@
+
+package victorypaint.Drawables;
+
+/**
+ * A DistanceKernel finds the closest Point, or the closest point on the line segments between
+ * consecutive Points, among a run of coordinates packed into int arrays such as a PointList's.
+ * It is the innermost loop of hit-testing, and is run over the leaves of each SegmentTree.
+ * There are two: SCALAR tries each Point or segment in turn, while BATCH works out the distances
+ * of a block of segments in a loop without branches, which the JIT compiler can pipeline
+ * and, where the processor allows, turn into SIMD instructions, and then only looks closer at those
+ * which could be the closest.
+ * Both find exactly the same answers. BATCH is faster over long runs of segments, but the leaves
+ * of a SegmentTree are short enough that SCALAR usually wins, so SCALAR is used unless the
+ * victorypaint.distanceKernel system property is "batch" when the program starts.
+ * @author Jesse Victors, A01485921
+ */
+public abstract class DistanceKernel
+{
+	/**
+	 * The system property which chooses the kernel in use when the program starts
+	 */
+	public static final String PROPERTY = "victorypaint.distanceKernel";
+
+	/**
+	 * The kernel which tries each Point or segment in turn
+	 */
+	public static final DistanceKernel SCALAR = new ScalarKernel();
+
+	/**
+	 * The kernel which works out the distances of a block of segments at a time
+	 */
+	public static final DistanceKernel BATCH = new BatchKernel();
+
+	/**
+	 * How many segments BATCH works out the distances of at a time
+	 */
+	static final int BLOCK = 64;
+
+	/**
+	 * The kernel used by every Drawable
+	 */
+	private static volatile DistanceKernel current = forName(System.getProperty(PROPERTY), SCALAR);
+
+
+	/**
+	 * @param name the name of a kernel, "scalar" or "batch", ignoring case. May be null.
+	 * @param def the kernel to return if there isn't one with the given name
+	 * @return the kernel with the given name, or def
+	 */
+	public static DistanceKernel forName(String name, DistanceKernel def)
+	{
+		if (SCALAR.getName().equalsIgnoreCase(name))
+			return SCALAR;
+		if (BATCH.getName().equalsIgnoreCase(name))
+			return BATCH;
+		return def;
+	}
+
+
+
+	/**
+	 * @return the kernel used by every Drawable
+	 */
+	public static DistanceKernel getCurrent()
+	{
+		return current;
+	}
+
+
+
+	/**
+	 * Changes the kernel used by every Drawable. This is meant for comparing the kernels,
+	 * since the system property already chooses one when the program starts.
+	 * @param kernel the new kernel, must be non-null
+	 */
+	public static void setCurrent(DistanceKernel kernel)
+	{
+		current = kernel;
+	}
+
+
+
+	/**
+	 * @return the name of this kernel, as given to the system property
+	 */
+	public abstract String getName();
+
+
+
+	/**
+	 * Finds the closest of the Points from first to last, inclusive, to the given location,
+	 * and records it and its index in the given HitResult if it is closer than what the HitResult already holds,
+	 * or just as close but earlier. If several Points are equally close, the first of them is found.
+	 * @param xs the x coordinates of the Points
+	 * @param ys the y coordinates of the Points
+	 * @param first the index of the first Point
+	 * @param last the index of the last Point
+	 * @param x the x coordinate of the location
+	 * @param y the y coordinate of the location
+	 * @param result the closest hit so far, must be non-null
+	 */
+	public abstract void findClosestPoint(int[] xs, int[] ys, int first, int last, double x, double y, HitResult result);
+
+
+
+	/**
+	 * Projects the given location onto each of the line segments between consecutive Points
+	 * from first to last, inclusive, exactly as Drawable.projectOntoLineSegment does,
+	 * and records the closest projection in the given HitResult if it is closer than what the HitResult already holds.
+	 * @param xs the x coordinates of the Points
+	 * @param ys the y coordinates of the Points
+	 * @param first the index of the Point the first segment starts at
+	 * @param last the index of the Point the last segment ends at
+	 * @param x the x coordinate of the location
+	 * @param y the y coordinate of the location
+	 * @param result the closest hit so far, must be non-null
+	 */
+	public abstract void projectOntoSegments(int[] xs, int[] ys, int first, int last, double x, double y, HitResult result);
+
+
+
+	/**
+	 * Tries each Point or segment in turn.
+	 */
+	private static final class ScalarKernel extends DistanceKernel
+	{
+		/**
+		 * @return "scalar"
+		 */
+		@Override
+		public String getName()
+		{
+			return "scalar";
+		}
+
+		/**
+		 * Tries each Point in turn.
+		 */
+		@Override
+		public void findClosestPoint(int[] xs, int[] ys, int first, int last, double x, double y, HitResult result)
+		{
+			for (int j = first; j <= last; j++)
+			{
+				double dx = xs[j] - x, dy = ys[j] - y;
+				double distSq = dx * dx + dy * dy;
+				if (distSq < result.getDistanceSq() || (distSq == result.getDistanceSq() && j < result.getIndex()))
+					result.set(xs[j], ys[j], distSq, j);
+			}
+		}
+
+		/**
+		 * Projects onto each segment in turn.
+		 */
+		@Override
+		public void projectOntoSegments(int[] xs, int[] ys, int first, int last, double x, double y, HitResult result)
+		{
+			for (int j = first; j < last; j++)
+				Drawable.projectOntoLineSegment(xs[j], ys[j], xs[j + 1], ys[j + 1], x, y, result);
+		}
+	}
+
+
+
+	/**
+	 * Works out the squared distances of a block of segments into the HitResult's scratch array,
+	 * in a loop with no branches, and then only looks closer at the ones which could be the closest.
+	 */
+	private static final class BatchKernel extends DistanceKernel
+	{
+		/**
+		 * A little more than the farthest that rounding a projection to whole pixels can move it,
+		 * allowing for the error in working out the distances without rounding
+		 */
+		private static final double ROUNDING = Math.sqrt(0.5) + 1e-6;
+
+		/**
+		 * @return "batch"
+		 */
+		@Override
+		public String getName()
+		{
+			return "batch";
+		}
+
+		/**
+		 * Tries each Point in turn, as SCALAR does. Finding the closest Point does so little work
+		 * for each Point that it is limited by how fast the Points can be read from memory,
+		 * and working out the distances a block at a time only slows it down.
+		 */
+		@Override
+		public void findClosestPoint(int[] xs, int[] ys, int first, int last, double x, double y, HitResult result)
+		{
+			SCALAR.findClosestPoint(xs, ys, first, last, x, y, result);
+		}
+
+		/**
+		 * Works out the squared distance from the location to each segment in a block, without rounding,
+		 * and only projects onto the segments which are close enough that rounding could make them the closest.
+		 * The projection is clamped to the segment with absolute values rather than comparisons, and a single point
+		 * is handled by adding the smallest double to the length, so that the loop has no branches.
+		 */
+		@Override
+		public void projectOntoSegments(int[] xs, int[] ys, int first, int last, double x, double y, HitResult result)
+		{
+			double[] distances = result.distances;
+			for (int start = first; start < last; start += BLOCK)
+			{
+				int count = Math.min(BLOCK, last - start);
+				for (int i = 0; i < count; i++)
+				{
+					double ax = xs[start + i], ay = ys[start + i];
+					double abx = xs[start + i + 1] - ax, aby = ys[start + i + 1] - ay;
+					double cx = x - ax, cy = y - ay;
+					double t = (cx * abx + cy * aby) / (abx * abx + aby * aby + Double.MIN_VALUE);
+					t = 0.5 * (Math.abs(t) - Math.abs(t - 1) + 1); //clamps t between 0 and 1
+					double dx = t * abx - cx, dy = t * aby - cy;
+					distances[i] = dx * dx + dy * dy;
+				}
+
+				double reach = Math.sqrt(result.getDistanceSq()) + ROUNDING;
+				for (int i = 0; i < count; i++)
+					if (distances[i] <= reach * reach)
+					{
+						int j = start + i;
+						Drawable.projectOntoLineSegment(xs[j], ys[j], xs[j + 1], ys[j + 1], x, y, result);
+						reach = Math.sqrt(result.getDistanceSq()) + ROUNDING;
+					}
+			}
+		}
+	}
+}
@@ -4,6 +4,15 @@ package victorypaint.Drawables;
 import java.awt.Color;
 import java.awt.Graphics;
 import java.awt.Point;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.NoninvertibleTransformException;
+import java.awt.geom.Point2D;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
 import java.util.ArrayList;
 
@@ -12,15 +21,38 @@ import java.util.ArrayList;
  * Drawables contain a Location, any additional Points, and a Color.
  * When they are being created but not yet fully formed, they are "ghosting",
  * which renders them in a more transparently than their usual customizable color.
+ * Every Drawable maintains a bounding box around its Points, and whenever it changes
+ * it tells its DrawableListener which region of the screen has been damaged.
+ * The Points are stored in a PointList as plain coordinates, so the Points returned
+ * by getPoint(int) are copies rather than references.
+ * A Drawable may also have a transform attached, such as while it is being dragged or rotated.
+ * Its Points are then drawn, bounded and hit-tested as if the transform had been applied to them,
+ * without rewriting every Point each time the transform changes. The transform is applied to the
+ * Points themselves, rounding them just once, when bakeTransform() is called or the Points are next changed.
+ * Subclasses which change their Points directly must call bakeTransform() first.
  * @author Jesse Victors, A01485921
  */
 public abstract class Drawable implements Serializable
 {
+	/**
+	 * Pinned to the value of the original class so that old save files can still be opened.
+	 */
+	private static final long serialVersionUID = 1701086128444102182L;
+	
+	/**
+	 * The fields as they are saved, which is how they were declared in the original class.
+	 * In particular, the Points are saved as an ArrayList of Points rather than as a PointList.
+	 */
+	private static final ObjectStreamField[] serialPersistentFields = {
+		new ObjectStreamField("points", ArrayList.class),
+		new ObjectStreamField("ghosting", boolean.class),
+		new ObjectStreamField("color", Color.class)};
+	
 	/**
 	 * The Points that define the Drawable.
 	 * It is guaranteed to contain at least one Point.
 	 */
-	protected ArrayList<Point> points = new ArrayList<>(4);
+	protected PointList points = new PointList(4);
 	
 	/**
 	 * Holds if this Drawable is ghosting or not. If it is,
@@ -39,6 +71,49 @@ public abstract class Drawable implements Serializable
 	 * Color to be used if this Drawable is not ghosting.
 	 */
 	protected Color color = Color.BLACK;
+	
+	/**
+	 * Number of pixels added around every damaged region, so that the ends of lines
+	 * and the edges of text are always repainted along with the rest of the Drawable.
+	 */
+	public static final int DAMAGE_MARGIN = 2;
+	
+	/**
+	 * The smallest rectangle containing every pixel of every Point, or null if it
+	 * hasn't been calculated yet. This is not saved along with the Drawable.
+	 */
+	private transient Rectangle bounds;
+	
+	/**
+	 * Holds whether bounds may be larger than necessary. Moving a single Point only
+	 * ever grows the bounds, which is cheap, and they are shrunk again when asked for.
+	 */
+	private transient boolean boundsLoose;
+	
+	/**
+	 * The hierarchy of bounding boxes over the line segments between the Points, used to find
+	 * the closest point to a location, or null if it hasn't been built since the Points last changed.
+	 * This is not saved along with the Drawable.
+	 */
+	private transient SegmentTree segments;
+	
+	/**
+	 * The transform to apply to the Points when they are drawn or hit-tested, or null if there is none.
+	 * This is not saved along with the Drawable; the Points are saved as if it had been baked.
+	 */
+	private transient AffineTransform transform;
+	
+	/**
+	 * The listener to notify when this Drawable changes. May be null.
+	 * This is not saved along with the Drawable.
+	 */
+	private transient DrawableListener listener;
+	
+	/**
+	 * The number of times this Drawable has changed, so that copies of it can tell if they are out of date.
+	 * This is not saved along with the Drawable.
+	 */
+	private transient int modCount;
 
 
 	/**
@@ -74,11 +149,16 @@ public abstract class Drawable implements Serializable
 	 */
 	public void setLocation(Point newLoc)
 	{
-		Point oldLoc = getLocation();
-		Point delta = new Point(newLoc.x - oldLoc.x, newLoc.y - oldLoc.y);
+		bakeTransform();
+		Point delta = new Point(newLoc.x - points.getX(0), newLoc.y - points.getY(0));
 
-		for (int j = 0; j < points.size(); j++)
-			getPoint(j).translate(delta.x, delta.y);
+		Rectangle damaged = new Rectangle(getCachedBounds());
+		points.translate(delta.x, delta.y);
+		segments = null;
+		
+		bounds.translate(delta.x, delta.y);
+		damaged.add(bounds);
+		fireDrawableChanged(damaged);
 	}
 
 	
@@ -94,33 +174,51 @@ public abstract class Drawable implements Serializable
 	 */
 	public Point projectOnto(Point loc)
 	{
-		Point closestPt = getClosestPoint(loc);
-		double closestDist = closestPt.distance(loc);
-		int closestPtInd = points.indexOf(closestPt);
-		
-		if (closestPtInd - 1 >= 0)
-		{
-			Point pt = projectOntoLineSegment(getPoint(closestPtInd - 1), closestPt, loc);
-			double dist = pt.distance(loc);
-			if (dist < closestDist)
-			{
-				closestPt = pt;
-				closestDist = dist;
-			}
-		}
-		
-		if (closestPtInd + 1 < points.size())
+		HitResult result = new HitResult();
+		projectOnto(loc.x, loc.y, result);
+		return result.toPoint();
+	}
+	
+	
+	
+	/**
+	 * Projects the given location onto this Drawable, like projectOnto(Point),
+	 * but writes the answer into the given HitResult instead of allocating a new Point.
+	 * The squared distance from the location to the projection is recorded along with it.
+	 * @param x the x coordinate of the comparative location
+	 * @param y the y coordinate of the comparative location
+	 * @param result where to write the Drawable's closest point to the location, must be non-null
+	 */
+	public void projectOnto(int x, int y, HitResult result)
+	{
+		result.clear();
+		if (transform == null)
+			computeProjection(x, y, result);
+		else
 		{
-			Point pt = projectOntoLineSegment(getPoint(closestPtInd + 1), closestPt, loc);
-			double dist = pt.distance(loc);
-			if (dist < closestDist)
-			{
-				closestPt = pt;
-				closestDist = dist;
-			}
+			untransform(x, y, result);
+			computeProjection(result.coords[0], result.coords[1], result);
+			retransform(x, y, result);
 		}
-		
-		return closestPt;
+	}
+	
+	
+	
+	/**
+	 * Projects the given location onto this Drawable as it is without its transform,
+	 * writing the answer into the given HitResult, which starts out cleared.
+	 * By default the location is projected onto the closest of the line segments between consecutive Points,
+	 * which is found in logarithmic time with a SegmentTree built the first time it is needed.
+	 * Subclasses whose shape isn't made of line segments between their Points should override this.
+	 * The location isn't rounded to whole pixels, since moving it back from where the transform puts it
+	 * generally doesn't land on one.
+	 * @param x the x coordinate of the comparative location, without the transform
+	 * @param y the y coordinate of the comparative location, without the transform
+	 * @param result where to write the Drawable's closest point to the location, without the transform
+	 */
+	protected void computeProjection(double x, double y, HitResult result)
+	{
+		getSegmentTree().project(points.getXArray(), points.getYArray(), x, y, result);
 	}
 	
 	
@@ -136,19 +234,41 @@ public abstract class Drawable implements Serializable
 	 * As this must be on the line segment, this may return a copy of either a or b.
 	 */
 	protected static Point projectOntoLineSegment(Point a, Point b, Point c)
+	{
+		HitResult result = new HitResult();
+		projectOntoLineSegment(a.x, a.y, b.x, b.y, c.x, c.y, result);
+		return result.toPoint();
+	}
+	
+	
+	
+	/**
+	 * Projects the location c onto the line segment from a to b, rounding the projection to whole pixels,
+	 * and records it in the given HitResult if it is closer to c than what the HitResult already holds.
+	 * @param ax the x coordinate of a
+	 * @param ay the y coordinate of a
+	 * @param bx the x coordinate of b
+	 * @param by the y coordinate of b
+	 * @param cx the x coordinate of c
+	 * @param cy the y coordinate of c
+	 * @param result the closest hit so far, which is updated if the projection is closer. Must be non-null.
+	 */
+	protected static void projectOntoLineSegment(int ax, int ay, int bx, int by, double cx, double cy, HitResult result)
 	{
 		//modified from:
 		//http://stackoverflow.com/questions/3120357/get-closest-point-to-a-line
 		//http://math.stackexchange.com/questions/13176/how-to-find-a-point-on-a-line-closest-to-another-given-point
 		
-		Point AB = new Point(b.x - a.x, b.y - a.y); //Vector from A to B
-		Point AC = new Point(c.x - a.x, c.y - a.y); //Vector from A to C
-
-		double ABAP = AB.x * AC.x + AB.y * AC.y; //dot product of AB and AP
-		double percentage = ABAP / (Math.pow(AB.x, 2) + Math.pow(AB.y, 2)); //percentage down the line segment the point is on
+		double abx = bx - ax, aby = by - ay; //vector from A to B
+		double lengthSq = abx * abx + aby * aby;
+		double percentage = lengthSq == 0 ? 0 : ((cx - ax) * abx + (cy - ay) * aby) / lengthSq; //percentage down the line segment the point is on
 		percentage = Math.min(1, Math.max(0, percentage)); //ensures 0 <= percentage <= 1
-
-		return new Point((int)Math.round(a.x + AB.x * percentage), (int)Math.round(a.y + AB.y * percentage));
+		
+		int px = round(ax + abx * percentage), py = round(ay + aby * percentage);
+		double dx = px - cx, dy = py - cy;
+		double distSq = dx * dx + dy * dy;
+		if (distSq < result.getDistanceSq())
+			result.set(px, py, distSq, -1);
 	}
 	
 	
@@ -160,26 +280,112 @@ public abstract class Drawable implements Serializable
 	 */
 	public Point getClosestPoint(Point loc)
 	{
-		double closestDist = Double.POSITIVE_INFINITY;
-		Point closestPt = new Point();
-
-		for (int j = 0; j < points.size(); j++)
+		HitResult result = new HitResult();
+		findClosestPoint(loc.x, loc.y, result);
+		return result.toPoint();
+	}
+	
+	
+	
+	/**
+	 * Calculates and returns the index of the closest point which defines this Drawable to the specified point.
+	 * @param loc the comparative location. Must be non-null.
+	 * @return the index of the Drawable's closest point to the given point
+	 */
+	public int getClosestPointIndex(Point loc)
+	{
+		HitResult result = new HitResult();
+		findClosestPoint(loc.x, loc.y, result);
+		return result.getIndex();
+	}
+	
+	
+	
+	/**
+	 * Finds the closest point which defines this Drawable to the given location, like getClosestPoint(Point),
+	 * but writes the answer, its squared distance and its index into the given HitResult instead of allocating.
+	 * @param x the x coordinate of the comparative location
+	 * @param y the y coordinate of the comparative location
+	 * @param result where to write the Drawable's closest point to the location, must be non-null
+	 */
+	public void findClosestPoint(int x, int y, HitResult result)
+	{
+		result.clear();
+		if (transform == null)
+			getSegmentTree().findClosestPoint(points.getXArray(), points.getYArray(), x, y, result);
+		else
 		{
-			double dist = getPoint(j).distance(loc);
-			if (dist < closestDist)
-			{
-				closestDist = dist;
-				closestPt = getPoint(j);
-			}
+			untransform(x, y, result);
+			getSegmentTree().findClosestPoint(points.getXArray(), points.getYArray(), result.coords[0], result.coords[1], result);
+			retransform(x, y, result);
 		}
-
-		return closestPt;
+	}
+	
+	
+	
+	/**
+	 * @return the SegmentTree over the Points, building it if it hasn't been built since the Points last changed
+	 */
+	private SegmentTree getSegmentTree()
+	{
+		SegmentTree tree = segments;
+		if (tree == null)
+			segments = tree = new SegmentTree(points);
+		return tree;
+	}
+	
+	
+	
+	/**
+	 * Puts the location which the transform would move to the given location into result.coords.
+	 */
+	private void untransform(int x, int y, HitResult result)
+	{
+		result.coords[0] = x;
+		result.coords[1] = y;
+		try
+		{
+			transform.inverseTransform(result.coords, 0, result.coords, 0, 1);
+		}
+		catch (NoninvertibleTransformException e)
+		{
+			//only translations and rotations are supported, which are always invertible
+		}
+	}
+	
+	
+	
+	/**
+	 * Applies the transform to the hit in the given HitResult, rounding it to whole pixels,
+	 * and measures its squared distance from the given location again.
+	 */
+	private void retransform(int x, int y, HitResult result)
+	{
+		result.coords[0] = result.getX();
+		result.coords[1] = result.getY();
+		transform.transform(result.coords, 0, result.coords, 0, 1);
+		
+		int hitX = round(result.coords[0]), hitY = round(result.coords[1]);
+		double dx = hitX - x, dy = hitY - y;
+		result.set(hitX, hitY, dx * dx + dy * dy, result.getIndex());
+	}
+	
+	
+	
+	/**
+	 * @return the given coordinate rounded to the nearest whole number
+	 */
+	private static int round(double coord)
+	{
+		return (int)Math.round(coord);
 	}
 
 
 
 	/**
-	 * Returns the nth Point which describes this Drawable.
+	 * Returns a copy of the nth Point which describes this Drawable.
+	 * Changing the returned Point does not change this Drawable; use setPoint for that.
+	 * If there is a transform, the Point is transformed and rounded to whole pixels.
 	 * @param n The index of the desired point.
 	 * If n is less than zero or greater than the number of
 	 * points in this Drawable, an IndexOutOfBoundsException may be thrown.
@@ -187,7 +393,9 @@ public abstract class Drawable implements Serializable
 	 */
 	public Point getPoint(int n)
 	{
-		return points.get(n);
+		if (transform == null)
+			return points.get(n);
+		return transformPoint(points.get(n));
 	}
 	
 	
@@ -201,7 +409,257 @@ public abstract class Drawable implements Serializable
 	 */
 	public void setPoint(int n, Point newPoint)
 	{
+		bakeTransform();
 		points.set(n, newPoint);
+		pointMoved(newPoint);
+	}
+	
+	
+	
+	/**
+	 * @return a copy of all the Points which describe this Drawable, with any transform applied to them
+	 */
+	public PointList getPointList()
+	{
+		if (transform == null)
+			return points.copy();
+		
+		int[] xs = points.getXArray(), ys = points.getYArray();
+		double[] coords = new double[2 * points.size()];
+		for (int j = 0; j < points.size(); j++)
+		{
+			coords[2 * j] = xs[j];
+			coords[2 * j + 1] = ys[j];
+		}
+		transform.transform(coords, 0, coords, 0, points.size());
+		
+		PointList list = new PointList(points.size());
+		for (int j = 0; j < points.size(); j++)
+			list.add((int)Math.round(coords[2 * j]), (int)Math.round(coords[2 * j + 1]));
+		return list;
+	}
+	
+	
+	
+	/**
+	 * Replaces all the Points which describe this Drawable with copies of the given Points,
+	 * such as ones previously returned by getPointList().
+	 * @param newPoints the new Points, must be non-null and contain at least one Point
+	 */
+	public void setPointList(PointList newPoints)
+	{
+		bakeTransform();
+		Rectangle damaged = new Rectangle(getCachedBounds());
+		points = newPoints.copy();
+		invalidateBounds();
+		
+		damaged.add(getCachedBounds());
+		fireDrawableChanged(damaged);
+	}
+	
+	
+	
+	/**
+	 * Returns the bounding box of this Drawable, which is the smallest rectangle
+	 * which contains every pixel of every Point that describes this Drawable.
+	 * If there is a transform, this is the bounding box of the transformed Points instead.
+	 * @return a copy of the bounding box
+	 */
+	public Rectangle getBounds()
+	{
+		if (bounds == null || boundsLoose)
+		{
+			bounds = computeBounds();
+			boundsLoose = false;
+		}
+		return transformBounds(bounds);
+	}
+	
+	
+	
+	/**
+	 * Calculates the bounding box from scratch by looking at every Point.
+	 * Subclasses which draw outside of their Points should override this.
+	 * @return the smallest rectangle which contains every pixel of every Point
+	 */
+	protected Rectangle computeBounds()
+	{
+		int[] xs = points.getXArray(), ys = points.getYArray();
+		int minX = xs[0], minY = ys[0], maxX = xs[0], maxY = ys[0];
+		for (int j = 1; j < points.size(); j++)
+		{
+			minX = Math.min(minX, xs[j]);
+			minY = Math.min(minY, ys[j]);
+			maxX = Math.max(maxX, xs[j]);
+			maxY = Math.max(maxY, ys[j]);
+		}
+		return new Rectangle(minX, minY, maxX - minX + 1, maxY - minY + 1);
+	}
+	
+	
+	
+	/**
+	 * @return the bounding box without shrinking it if it is loose.
+	 * This is cheap and is still guaranteed to contain the whole Drawable.
+	 */
+	private Rectangle getCachedBounds()
+	{
+		if (bounds == null)
+		{
+			bounds = computeBounds();
+			boundsLoose = false;
+		}
+		return bounds;
+	}
+	
+	
+	
+	/**
+	 * @param box a bounding box of the Points, must be non-null
+	 * @return a copy of the box, or if there is a transform, the smallest box containing the transformed box
+	 */
+	private Rectangle transformBounds(Rectangle box)
+	{
+		if (transform == null)
+			return new Rectangle(box);
+		return transform.createTransformedShape(box).getBounds();
+	}
+	
+	
+	
+	/**
+	 * Attaches the given transform to this Drawable, replacing any transform it already had.
+	 * The Points are drawn and hit-tested as if the transform had been applied to them,
+	 * but they aren't changed until bakeTransform() is called, so this takes the same time
+	 * no matter how many Points there are. Only translations and rotations are supported.
+	 * @param newTransform the transform to apply to the Points, or null to remove the transform
+	 */
+	public void setTransform(AffineTransform newTransform)
+	{
+		Rectangle damaged = transformBounds(getCachedBounds());
+		transform = newTransform == null || newTransform.isIdentity() ? null : new AffineTransform(newTransform);
+		
+		damaged.add(transformBounds(getCachedBounds()));
+		fireDrawableChanged(damaged);
+	}
+	
+	
+	
+	/**
+	 * @return a copy of the transform attached to this Drawable, which is the identity if there is none
+	 */
+	public AffineTransform getTransform()
+	{
+		return transform == null ? new AffineTransform() : new AffineTransform(transform);
+	}
+	
+	
+	
+	/**
+	 * Applies the attached transform to the Points themselves, rounding them to whole pixels,
+	 * and removes it. Does nothing if there is no transform.
+	 * A translation by whole pixels is baked with setLocation, which is cheaper.
+	 */
+	public void bakeTransform()
+	{
+		if (transform == null)
+			return;
+		
+		AffineTransform baking = transform;
+		if (baking.getType() == AffineTransform.TYPE_TRANSLATION)
+		{
+			transform = null;
+			setLocation(new Point((int)Math.round(points.getX(0) + baking.getTranslateX()),
+					(int)Math.round(points.getY(0) + baking.getTranslateY())));
+		}
+		else
+		{
+			PointList baked = getPointList();
+			transform = null;
+			setPointList(baked);
+		}
+	}
+	
+	
+	
+	/**
+	 * @return the given Point with the transform applied to it, rounded to whole pixels
+	 */
+	private Point transformPoint(Point pt)
+	{
+		Point2D result = transform.transform(pt, null);
+		return new Point((int)Math.round(result.getX()), (int)Math.round(result.getY()));
+	}
+	
+	
+	
+	/**
+	 * Forgets the bounding box and the SegmentTree, so that they will be calculated from scratch the next time they're needed.
+	 * Subclasses should call this after changing their Points in some way other than
+	 * through setLocation, setPoint, pointAdded, pointMoved or segmentPointMoved.
+	 */
+	protected void invalidateBounds()
+	{
+		bounds = null;
+		segments = null;
+	}
+	
+	
+	
+	/**
+	 * Updates the bounding box and forgets the SegmentTree after the given Point was appended to the Points,
+	 * and reports the line segment from the previous Point to it as damaged.
+	 * @param newPoint the Point that was just appended, must be non-null
+	 */
+	protected void pointAdded(Point newPoint)
+	{
+		Rectangle damaged = new Rectangle(newPoint.x, newPoint.y, 1, 1);
+		if (points.size() > 1)
+			damaged.add(new Rectangle(points.getX(points.size() - 2), points.getY(points.size() - 2), 1, 1));
+		
+		if (bounds != null)
+			bounds.add(damaged);
+		segments = null;
+		fireDrawableChanged(damaged);
+	}
+	
+	
+	
+	/**
+	 * Updates the bounding box and forgets the SegmentTree after one of the Points was replaced by the given Point,
+	 * and reports the union of the old and new bounding boxes as damaged.
+	 * @param newPoint the Point that just replaced another, must be non-null
+	 */
+	protected void pointMoved(Point newPoint)
+	{
+		getCachedBounds().add(new Rectangle(newPoint.x, newPoint.y, 1, 1));
+		boundsLoose = true;
+		segments = null;
+		fireDrawableChanged(bounds);
+	}
+	
+	
+	
+	/**
+	 * Updates the bounding box and forgets the SegmentTree after the nth Point was moved away from the given old location,
+	 * and reports only the line segments on either side of it as damaged, before and after the move.
+	 * This suits Drawables which are drawn as line segments between consecutive Points.
+	 * @param n the index of the Point which moved
+	 * @param oldPoint where the Point used to be, must be non-null
+	 */
+	protected void segmentPointMoved(int n, Point oldPoint)
+	{
+		Rectangle damaged = new Rectangle(oldPoint.x, oldPoint.y, 1, 1);
+		for (int j = Math.max(0, n - 1); j <= Math.min(points.size() - 1, n + 1); j++)
+			damaged.add(new Rectangle(points.getX(j), points.getY(j), 1, 1));
+		
+		Rectangle box = getCachedBounds();
+		if (oldPoint.x == box.x || oldPoint.y == box.y ||
+				oldPoint.x == box.x + box.width - 1 || oldPoint.y == box.y + box.height - 1)
+			boundsLoose = true; //the old Point may have been the only one on that edge
+		box.add(new Rectangle(points.getX(n), points.getY(n), 1, 1));
+		segments = null;
+		fireDrawableChanged(damaged);
 	}
 	
 	
@@ -221,7 +679,12 @@ public abstract class Drawable implements Serializable
 	 */
 	public void setGhosting(boolean ghosting)
 	{
+		if (this.ghosting == ghosting)
+			return;
+		
 		this.ghosting = ghosting;
+		if (listener != null)
+			listener.ghostingChanged(this);
 	}
 
 
@@ -253,6 +716,16 @@ public abstract class Drawable implements Serializable
 	
 	
 	
+	/**
+	 * @return the default (non-ghosting) color
+	 */
+	public Color getDefaultColor()
+	{
+		return color;
+	}
+	
+	
+	
 	/**
 	 * Sets the default (non-ghosting) color to the specified Color.
 	 * @param newColor the new default Color
@@ -260,6 +733,61 @@ public abstract class Drawable implements Serializable
 	public void setDefaultColor(Color newColor)
 	{
 		color = newColor;
+		fireDrawableChanged();
+	}
+	
+	
+	
+	/**
+	 * Sets the listener which will be notified whenever this Drawable changes.
+	 * @param listener the new listener, or null to stop notifying anyone
+	 */
+	public void setDrawableListener(DrawableListener listener)
+	{
+		this.listener = listener;
+	}
+	
+	
+	
+	/**
+	 * @return the number of times this Drawable has changed. If this is the same as it was earlier,
+	 * the Drawable still looks the same as it did then, apart from whether it is ghosting.
+	 */
+	public int getModCount()
+	{
+		return modCount;
+	}
+	
+	
+	
+	/**
+	 * Notifies the listener, if there is one, that this Drawable has changed
+	 * somewhere within its current bounding box, such as its Color.
+	 */
+	protected void fireDrawableChanged()
+	{
+		fireDrawableChanged(transformBounds(getCachedBounds()));
+	}
+	
+	
+	
+	/**
+	 * Notifies the listener, if there is one, that this Drawable has changed
+	 * within the given region. Subclasses should call this after any modification
+	 * which changes their appearance, with a region covering both how they used to look
+	 * and how they look now. DAMAGE_MARGIN is added to the region before it is reported.
+	 * This also counts towards the modification count, even if there is no listener.
+	 * @param damaged the region which needs to be repainted, must be non-null
+	 */
+	protected void fireDrawableChanged(Rectangle damaged)
+	{
+		modCount++;
+		if (listener != null)
+		{
+			Rectangle region = new Rectangle(damaged);
+			region.grow(DAMAGE_MARGIN, DAMAGE_MARGIN);
+			listener.drawableChanged(this, region);
+		}
 	}
 
 
@@ -268,6 +796,7 @@ public abstract class Drawable implements Serializable
 	 * Draws this Drawable on the given Graphics object.
 	 * Although this function will draw using the current
 	 * color, g's original color will be preserved.
+	 * If there is a transform, it is applied to a copy of g rather than to the Points.
 	 * @param g the Graphics to draw on. Must be non-null.
 	 */
 	public void draw(Graphics g)
@@ -275,7 +804,15 @@ public abstract class Drawable implements Serializable
 		Color tempColor = g.getColor();
 		g.setColor(getCurrentColor());
 
-		paint(g);
+		if (transform == null)
+			paint(g);
+		else
+		{
+			Graphics2D transformed = (Graphics2D)g.create();
+			transformed.transform(transform);
+			paint(transformed);
+			transformed.dispose();
+		}
 
 		g.setColor(tempColor);
 	}
@@ -284,7 +821,8 @@ public abstract class Drawable implements Serializable
 	
 	/**
 	 * Simply paints this Drawable without performing any
-	 * coloring operations.
+	 * coloring operations. The Points are painted as they are, without the transform,
+	 * so this should use the Points directly rather than getPoint(int).
 	 * @param g the Graphics to draw on. Must be non-null.
 	 */
 	protected abstract void paint(Graphics g);
@@ -302,13 +840,46 @@ public abstract class Drawable implements Serializable
 	
 	/**
 	 * Makes a deep copy of the Points which define this Drawable and returns the result.
-	 * @return a deep 
+	 * Any transform is applied to the copy, so that a clone looks the same without it.
+	 * @return a deep copy of the PointList
 	 */
-	protected ArrayList<Point> clonePointList()
+	protected PointList clonePointList()
 	{
-		ArrayList<Point> list = new ArrayList<>(points.size());
-		for (int j = 0; j < points.size(); j++)
-			list.add(new Point(points.get(j)));
-		return list;
+		return getPointList();
+	}
+	
+	
+	
+	/**
+	 * Saves this Drawable in the same form as the original class did,
+	 * with its Points written as an ArrayList of Points, transformed if there is a transform.
+	 * @param out the stream to write to
+	 * @throws IOException if the stream can't be written to
+	 */
+	private void writeObject(ObjectOutputStream out) throws IOException
+	{
+		ObjectOutputStream.PutField fields = out.putFields();
+		fields.put("points", (transform == null ? points : getPointList()).toList());
+		fields.put("ghosting", ghosting);
+		fields.put("color", color);
+		out.writeFields();
+	}
+	
+	
+	
+	/**
+	 * Loads a Drawable saved by writeObject, or by the original class,
+	 * and packs its ArrayList of Points into a PointList.
+	 * @param in the stream to read from
+	 * @throws IOException if the stream can't be read from
+	 * @throws ClassNotFoundException if the saved Points can't be loaded
+	 */
+	@SuppressWarnings("unchecked")
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException
+	{
+		ObjectInputStream.GetField fields = in.readFields();
+		points = new PointList((ArrayList<Point>)fields.get("points", null));
+		ghosting = fields.get("ghosting", false);
+		color = (Color)fields.get("color", Color.BLACK);
 	}
 }
@@ -0,0 +1,28 @@
+
+package victorypaint.Drawables;
+
+import java.awt.Rectangle;
+
+/**
+ * A DrawableListener is notified whenever a Drawable it has been attached to changes,
+ * so that anything caching the Drawable's appearance knows when that cache is stale.
+ * @author Jesse Victors, A01485921
+ */
+public interface DrawableListener
+{
+	/**
+	 * Called after the Points or Color of the given Drawable have been changed.
+	 * @param drawable the Drawable that changed
+	 * @param damaged the region covering both how the Drawable used to look and how it looks now
+	 */
+	void drawableChanged(Drawable drawable, Rectangle damaged);
+
+
+
+	/**
+	 * Called after the ghosting property of the given Drawable has been changed.
+	 * Its appearance may have changed anywhere within its bounding box.
+	 * @param drawable the Drawable that changed
+	 */
+	void ghostingChanged(Drawable drawable);
+}
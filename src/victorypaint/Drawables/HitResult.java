@@ -0,0 +1,166 @@
+
+package victorypaint.Drawables;
+
+import java.awt.Point;
+
+/**
+ * A HitResult holds the answer to a hit-testing query on a Drawable: the point that was hit,
+ * its squared distance from the location that was queried, and which of the Drawable's Points it was.
+ * Queries write into a HitResult rather than returning new Points, so one HitResult can be reused
+ * for every query, and a search over thousands of Drawables doesn't allocate anything.
+ * Distances are kept squared so that comparing them never needs a square root.
+ * @author Jesse Victors, A01485921
+ */
+public final class HitResult
+{
+	/**
+	 * The point that was hit
+	 */
+	private int x, y;
+
+	/**
+	 * The squared distance from the queried location to the point that was hit,
+	 * or infinity if nothing has been hit
+	 */
+	private double distanceSq = Double.POSITIVE_INFINITY;
+
+	/**
+	 * The index of the Point that was hit, or -1 if the hit isn't one of the Drawable's Points
+	 */
+	private int index = -1;
+
+	/**
+	 * Room for converting a location to and from a Drawable's transform without allocating
+	 */
+	final double[] coords = new double[2];
+
+	/**
+	 * Room for a Bezier's four points while a Curve is hit-tested, without allocating
+	 */
+	final double[] bezier = new double[8];
+
+	/**
+	 * Room for the distances a DistanceKernel works out a block at a time, without allocating
+	 */
+	final double[] distances = new double[DistanceKernel.BLOCK];
+
+
+	/**
+	 * Forgets the last hit, so that nothing has been hit.
+	 */
+	public void clear()
+	{
+		x = y = 0;
+		distanceSq = Double.POSITIVE_INFINITY;
+		index = -1;
+	}
+
+
+
+	/**
+	 * Records a hit on the given point.
+	 * @param x the x coordinate of the point that was hit
+	 * @param y the y coordinate of the point that was hit
+	 * @param distanceSq the squared distance from the queried location to the point
+	 * @param index the index of the Point that was hit, or -1 if it isn't one of the Drawable's Points
+	 */
+	public void set(int x, int y, double distanceSq, int index)
+	{
+		this.x = x;
+		this.y = y;
+		this.distanceSq = distanceSq;
+		this.index = index;
+	}
+
+
+
+	/**
+	 * Copies another HitResult into this one.
+	 * @param other the HitResult to copy, must be non-null
+	 */
+	public void set(HitResult other)
+	{
+		set(other.x, other.y, other.distanceSq, other.index);
+	}
+
+
+
+	/**
+	 * @return true if something has been hit since this HitResult was last cleared
+	 */
+	public boolean isHit()
+	{
+		return distanceSq != Double.POSITIVE_INFINITY;
+	}
+
+
+
+	/**
+	 * @return the x coordinate of the point that was hit
+	 */
+	public int getX()
+	{
+		return x;
+	}
+
+
+
+	/**
+	 * @return the y coordinate of the point that was hit
+	 */
+	public int getY()
+	{
+		return y;
+	}
+
+
+
+	/**
+	 * @return the squared distance from the queried location to the point that was hit
+	 */
+	public double getDistanceSq()
+	{
+		return distanceSq;
+	}
+
+
+
+	/**
+	 * @return the distance from the queried location to the point that was hit
+	 */
+	public double getDistance()
+	{
+		return Math.sqrt(distanceSq);
+	}
+
+
+
+	/**
+	 * @return the index of the Point that was hit, or -1 if the hit isn't one of the Drawable's Points
+	 */
+	public int getIndex()
+	{
+		return index;
+	}
+
+
+
+	/**
+	 * @param pt the point to compare with, may be null
+	 * @return true if the given point is where the hit was
+	 */
+	public boolean isAt(Point pt)
+	{
+		return pt != null && pt.x == x && pt.y == y;
+	}
+
+
+
+	/**
+	 * @return a new Point where the hit was
+	 */
+	public Point toPoint()
+	{
+		return new Point(x, y);
+	}
+}
@@ -10,6 +10,12 @@ import java.awt.Point;
  */
 public class LineSegment extends Drawable
 {
+	/**
+	 * Pinned to the value of the original class so that old save files can still be opened.
+	 */
+	private static final long serialVersionUID = 5035235421871356280L;
+	
+	
 	/**
 	 * Constructs a LineSegment with zero length,
 	 * as both A and B are set to the given position.
@@ -41,7 +47,9 @@ public class LineSegment extends Drawable
 	 */
 	public void setPointA(Point newPoint)
 	{
+		bakeTransform();
 		points.set(0, newPoint);
+		pointMoved(newPoint);
 	}
 
 
@@ -63,7 +71,9 @@ public class LineSegment extends Drawable
 	 */
 	public void setPointB(Point newPoint)
 	{
+		bakeTransform();
 		points.set(1, newPoint);
+		pointMoved(newPoint);
 	}
 
 	
@@ -75,7 +85,7 @@ public class LineSegment extends Drawable
 	@Override
 	protected void paint(Graphics g)
 	{
-		Point a = getPointA(), b = getPointB();
+		Point a = points.get(0), b = points.get(1);
 		g.drawLine(a.x, a.y, b.x, b.y);
 	}
 	
@@ -90,6 +100,7 @@ public class LineSegment extends Drawable
 	{
 		LineSegment ls = new LineSegment(getLocation());
 		ls.points = clonePointList();
+		ls.color = color;
 		return ls;
 	}
 }
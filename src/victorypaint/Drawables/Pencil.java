@@ -2,14 +2,40 @@
 package victorypaint.Drawables;
 
 import java.awt.Graphics;
+import java.awt.Graphics2D;
 import java.awt.Point;
 
 /**
  * A Pencil is open curve specified by a flexible set of Points.
+ * When it is drawn scaled down, a simplified version of the curve is drawn instead,
+ * so that a zoomed out view of a long stroke doesn't draw thousands of segments
+ * which all land in the same few pixels. The simplified versions are cached
+ * until the Points change.
  * @author Jesse Victors, A01485921
  */
 public class Pencil extends Drawable
 {
+	/**
+	 * Pinned to the value of the original class so that old save files can still be opened.
+	 */
+	private static final long serialVersionUID = 3938577036403128464L;
+	
+	/**
+	 * How far, in pixels, a simplified curve may stray from the real one when drawn
+	 */
+	public static final double DETAIL_TOLERANCE = 0.5;
+	
+	/**
+	 * The number of levels of detail. Level n is simplified with a tolerance of 2^n units.
+	 */
+	private static final int DETAIL_LEVELS = 16;
+	
+	/**
+	 * The simplified versions of the curve, indexed by level. May be null, as may any level.
+	 */
+	private transient PointList[] detail;
+	
+	
 	/**
 	 * Constructs a Pencil at the specific Location,
 	 * which is the Pencil's first point.
@@ -31,7 +57,73 @@ public class Pencil extends Drawable
 	 */
 	public void addPoint(Point pt)
 	{
+		bakeTransform();
 		points.add(pt);
+		detail = null;
+		pointAdded(pt);
+	}
+
+
+
+	/**
+	 * Moves the last Point of the curve to the given Point. While the curve is being drawn,
+	 * this is much cheaper than setPoint, since only the last segment needs repainting.
+	 * @param pt the new last Point, must be non-null
+	 */
+	public void setLastPoint(Point pt)
+	{
+		bakeTransform();
+		int last = points.size() - 1;
+		Point oldPoint = points.get(last);
+		points.set(last, pt);
+		detail = null;
+		segmentPointMoved(last, oldPoint);
+	}
+
+
+
+	/**
+	 * Moves the entire Pencil so that its first Point is at the given location.
+	 * The simplified versions of the curve are moved along with it rather than thrown away.
+	 * @param newLoc the new location for the Pencil. Must be non-null.
+	 */
+	@Override
+	public void setLocation(Point newLoc)
+	{
+		bakeTransform();
+		int dx = newLoc.x - points.getX(0), dy = newLoc.y - points.getY(0);
+		if (detail != null)
+			for (PointList level : detail)
+				if (level != null)
+					level.translate(dx, dy);
+		super.setLocation(newLoc);
+	}
+
+
+
+	/**
+	 * Sets the nth Point of the curve to the given Point.
+	 * @param n the index of the Point to replace
+	 * @param newPoint the new Point, must be non-null
+	 */
+	@Override
+	public void setPoint(int n, Point newPoint)
+	{
+		detail = null;
+		super.setPoint(n, newPoint);
+	}
+
+
+
+	/**
+	 * Replaces all the Points of the curve with copies of the given Points.
+	 * @param newPoints the new Points, must be non-null and contain at least one Point
+	 */
+	@Override
+	public void setPointList(PointList newPoints)
+	{
+		detail = null;
+		super.setPointList(newPoints);
 	}
 
 
@@ -39,13 +131,42 @@ public class Pencil extends Drawable
 	/**
 	 * Draws the open Pencil by drawing line segments between consecutive pairs of points,
 	 * but does not draw a line from the Pencil's last point to the Pencil's first point.
+	 * The whole curve is drawn in a single call straight from the PointList's arrays,
+	 * since Java2D pays a fixed cost on every call which would otherwise dominate a long stroke.
 	 * @param g the Graphics to draw on. Must be non-null.
 	 */
 	@Override
 	protected void paint(Graphics g)
 	{
-		for (int j = 0; j < points.size() - 1; j++)
-			g.drawLine(points.get(j).x, points.get(j).y, points.get(j + 1).x, points.get(j + 1).y);
+		PointList list = getDetail(g);
+		if (list.size() > 1)
+			g.drawPolyline(list.getXArray(), list.getYArray(), list.size());
+	}
+	
+	
+	
+	/**
+	 * Picks the simplest version of the curve which strays no more than DETAIL_TOLERANCE pixels
+	 * from the real one at the scale of the given Graphics, simplifying it if that hasn't been done yet.
+	 * @param g the Graphics the curve will be drawn on, must be non-null
+	 * @return the Points to draw, which may be all of them
+	 */
+	private PointList getDetail(Graphics g)
+	{
+		if (points.size() < 3 || !(g instanceof Graphics2D))
+			return points;
+		
+		double scale = Math.sqrt(Math.abs(((Graphics2D)g).getTransform().getDeterminant()));
+		int level = (int)Math.floor(Math.log(DETAIL_TOLERANCE / scale) / Math.log(2));
+		if (level < 0)
+			return points;
+		
+		level = Math.min(level, DETAIL_LEVELS - 1);
+		if (detail == null)
+			detail = new PointList[DETAIL_LEVELS];
+		if (detail[level] == null)
+			detail[level] = points.simplify(1 << level);
+		return detail[level];
 	}
 	
 	
@@ -59,6 +180,7 @@ public class Pencil extends Drawable
 	{
 		Pencil c = new Pencil(getLocation());
 		c.points = clonePointList();
+		c.color = color;
 		return c;
 	}
 }
@@ -0,0 +1,350 @@
+
+package victorypaint.Drawables;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A PointList is a growable list of integer coordinates, stored as two parallel int arrays
+ * rather than as separate Point objects. A long stroke therefore costs eight bytes per Point,
+ * and loops over the coordinates don't need to chase a reference for every Point.
+ * Points read from a PointList are copies, so changing them doesn't change the list.
+ * @author Jesse Victors, A01485921
+ */
+public class PointList
+{
+	/**
+	 * The x coordinates. Only the first size elements are in use.
+	 */
+	private int[] xs;
+
+	/**
+	 * The y coordinates. Only the first size elements are in use.
+	 */
+	private int[] ys;
+
+	/**
+	 * The number of Points in the list.
+	 */
+	private int size;
+
+
+	/**
+	 * Constructs an empty PointList with room for the given number of Points.
+	 * @param initialCapacity the number of Points to make room for, must be positive
+	 */
+	public PointList(int initialCapacity)
+	{
+		xs = new int[initialCapacity];
+		ys = new int[initialCapacity];
+	}
+
+
+
+	/**
+	 * Constructs a PointList holding copies of the Points in the given list.
+	 * @param list the Points to copy, must be non-null and contain no nulls
+	 */
+	public PointList(List<Point> list)
+	{
+		this(Math.max(1, list.size()));
+		for (Point pt : list)
+			add(pt);
+	}
+
+
+
+	/**
+	 * @return the number of Points in the list
+	 */
+	public int size()
+	{
+		return size;
+	}
+
+
+
+	/**
+	 * @param n the index of the Point
+	 * @return the x coordinate of the nth Point
+	 */
+	public int getX(int n)
+	{
+		checkIndex(n);
+		return xs[n];
+	}
+
+
+
+	/**
+	 * @param n the index of the Point
+	 * @return the y coordinate of the nth Point
+	 */
+	public int getY(int n)
+	{
+		checkIndex(n);
+		return ys[n];
+	}
+
+
+
+	/**
+	 * @param n the index of the Point
+	 * @return a new Point holding the coordinates of the nth Point
+	 */
+	public Point get(int n)
+	{
+		checkIndex(n);
+		return new Point(xs[n], ys[n]);
+	}
+
+
+
+	/**
+	 * Sets the coordinates of the nth Point.
+	 * @param n the index of the Point
+	 * @param x the new x coordinate
+	 * @param y the new y coordinate
+	 */
+	public void set(int n, int x, int y)
+	{
+		checkIndex(n);
+		xs[n] = x;
+		ys[n] = y;
+	}
+
+
+
+	/**
+	 * Sets the coordinates of the nth Point to those of the given Point.
+	 * @param n the index of the Point
+	 * @param pt the new coordinates, must be non-null
+	 */
+	public void set(int n, Point pt)
+	{
+		set(n, pt.x, pt.y);
+	}
+
+
+
+	/**
+	 * Appends a Point with the given coordinates, growing the arrays if necessary.
+	 * @param x the x coordinate
+	 * @param y the y coordinate
+	 */
+	public void add(int x, int y)
+	{
+		if (size == xs.length)
+		{
+			int capacity = Math.max(4, size + (size >> 1));
+			xs = Arrays.copyOf(xs, capacity);
+			ys = Arrays.copyOf(ys, capacity);
+		}
+
+		xs[size] = x;
+		ys[size] = y;
+		size++;
+	}
+
+
+
+	/**
+	 * Appends a Point with the coordinates of the given Point.
+	 * @param pt the coordinates to append, must be non-null
+	 */
+	public void add(Point pt)
+	{
+		add(pt.x, pt.y);
+	}
+
+
+
+	/**
+	 * Moves every Point by the given amount.
+	 * @param dx the distance to move along the x axis
+	 * @param dy the distance to move along the y axis
+	 */
+	public void translate(int dx, int dy)
+	{
+		for (int j = 0; j < size; j++)
+		{
+			xs[j] += dx;
+			ys[j] += dy;
+		}
+	}
+
+
+
+	/**
+	 * Returns the array holding the x coordinates, for loops which need to be fast.
+	 * The array may be longer than size(), and it is replaced whenever the list grows,
+	 * so it should not be held onto or written to.
+	 * @return the array holding the x coordinates
+	 */
+	public int[] getXArray()
+	{
+		return xs;
+	}
+
+
+
+	/**
+	 * Returns the array holding the y coordinates, for loops which need to be fast.
+	 * The array may be longer than size(), and it is replaced whenever the list grows,
+	 * so it should not be held onto or written to.
+	 * @return the array holding the y coordinates
+	 */
+	public int[] getYArray()
+	{
+		return ys;
+	}
+
+
+
+	/**
+	 * @return a copy of this PointList, trimmed to its size
+	 */
+	public PointList copy()
+	{
+		PointList list = new PointList(Math.max(1, size));
+		System.arraycopy(xs, 0, list.xs, 0, size);
+		System.arraycopy(ys, 0, list.ys, 0, size);
+		list.size = size;
+		return list;
+	}
+
+
+
+	/**
+	 * Simplifies the curve through these Points with the Douglas-Peucker algorithm,
+	 * dropping Points until none of the dropped ones is farther than the given tolerance
+	 * from the simplified curve. The first and last Points are always kept.
+	 * @param tolerance how far the simplified curve may stray from the original, must not be negative
+	 * @return a new PointList holding the Points which were kept, in order
+	 */
+	public PointList simplify(double tolerance)
+	{
+		if (size < 3)
+			return copy();
+
+		boolean[] kept = new boolean[size];
+		kept[0] = kept[size - 1] = true;
+		int keptCount = 2;
+		double toleranceSq = tolerance * tolerance;
+
+		//pairs of indexes of the spans still to be simplified, used instead of recursion
+		//so that a very long curve can't overflow the call stack
+		int[] spans = new int[64];
+		int top = 0;
+		spans[top++] = 0;
+		spans[top++] = size - 1;
+
+		while (top > 0)
+		{
+			int last = spans[--top], first = spans[--top];
+			double ax = xs[first], ay = ys[first];
+			double dx = xs[last] - ax, dy = ys[last] - ay;
+			double lengthSq = dx * dx + dy * dy;
+
+			int farthest = -1;
+			double farthestSq = toleranceSq;
+			for (int j = first + 1; j < last; j++)
+			{
+				double px = xs[j] - ax, py = ys[j] - ay;
+				double distSq;
+				if (lengthSq == 0)
+					distSq = px * px + py * py;
+				else
+				{
+					double cross = px * dy - py * dx;
+					distSq = cross * cross / lengthSq;
+				}
+
+				if (distSq > farthestSq)
+				{
+					farthestSq = distSq;
+					farthest = j;
+				}
+			}
+
+			if (farthest >= 0)
+			{
+				kept[farthest] = true;
+				keptCount++;
+				if (top + 4 > spans.length)
+					spans = Arrays.copyOf(spans, spans.length * 2);
+				spans[top++] = first;
+				spans[top++] = farthest;
+				spans[top++] = farthest;
+				spans[top++] = last;
+			}
+		}
+
+		PointList list = new PointList(keptCount);
+		for (int j = 0; j < size; j++)
+			if (kept[j])
+				list.add(xs[j], ys[j]);
+		return list;
+	}
+
+
+
+	/**
+	 * @return a new list of Points holding the same coordinates as this PointList
+	 */
+	public ArrayList<Point> toList()
+	{
+		ArrayList<Point> list = new ArrayList<>(size);
+		for (int j = 0; j < size; j++)
+			list.add(new Point(xs[j], ys[j]));
+		return list;
+	}
+
+
+
+	/**
+	 * @param obj the object to compare with
+	 * @return true if obj is a PointList holding the same coordinates in the same order
+	 */
+	@Override
+	public boolean equals(Object obj)
+	{
+		if (!(obj instanceof PointList))
+			return false;
+
+		PointList other = (PointList)obj;
+		if (other.size != size)
+			return false;
+		for (int j = 0; j < size; j++)
+			if (xs[j] != other.xs[j] || ys[j] != other.ys[j])
+				return false;
+		return true;
+	}
+
+
+
+	/**
+	 * @return a hash code which is consistent with equals
+	 */
+	@Override
+	public int hashCode()
+	{
+		int hash = size;
+		for (int j = 0; j < size; j++)
+			hash = 31 * (31 * hash + xs[j]) + ys[j];
+		return hash;
+	}
+
+
+
+	/*
+	 * Throws an IndexOutOfBoundsException if n isn't the index of a Point in the list.
+	 */
+	private void checkIndex(int n)
+	{
+		if (n < 0 || n >= size)
+			throw new IndexOutOfBoundsException("Index: " + n + ", Size: " + size);
+	}
+}
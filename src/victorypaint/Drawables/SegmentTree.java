@@ -0,0 +1,222 @@
+
+package victorypaint.Drawables;
+
+/**
+ * A bounding volume hierarchy over the line segments between consecutive Points of a Drawable,
+ * so that the closest point on a long stroke can be found without looking at every segment.
+ * Each node holds the bounding box of a run of consecutive segments, and is split into two halves
+ * until a run is short enough to be searched directly. Since a stroke is drawn continuously,
+ * consecutive segments are close together and the boxes stay small.
+ * The tree is stored as an implicit binary tree in a single array, so it is built in linear time
+ * and searched without allocating anything. It holds only the boxes, and is searched along with
+ * the Points it was built from, which must not have changed since.
+ * The leaves are searched with the current DistanceKernel.
+ * A SegmentTree is never changed once it is built, so it may be searched from any thread.
+ * @author Jesse Victors, A01485921
+ */
+final class SegmentTree
+{
+	/**
+	 * The most segments in a leaf, which are searched one after another
+	 */
+	private static final int LEAF_SIZE = 16;
+
+	/**
+	 * The projections of a location are rounded to whole pixels, which may bring them
+	 * this much closer to the location than the boxes they were found in
+	 */
+	private static final double ROUNDING = 0.5;
+
+	/**
+	 * The number of Points the tree was built from
+	 */
+	private final int pointCount;
+
+	/**
+	 * The number of segments, which is one less than the number of Points.
+	 * A single Point is treated as a segment from the Point to itself.
+	 */
+	private final int segmentCount;
+
+	/**
+	 * The bounding box of each node, as {minX, minY, maxX, maxY}. The children of node k
+	 * are nodes 2k + 1 and 2k + 2, and hold the first and second halves of its segments.
+	 */
+	private final int[] boxes;
+
+
+	/**
+	 * Builds a SegmentTree over the segments between consecutive Points of the given list.
+	 * @param points the Points, must be non-null and contain at least one Point
+	 */
+	SegmentTree(PointList points)
+	{
+		pointCount = points.size();
+		segmentCount = Math.max(1, pointCount - 1);
+
+		int depth = 0;
+		while ((segmentCount + (1 << depth) - 1) >> depth > LEAF_SIZE)
+			depth++;
+		boxes = new int[4 * ((2 << depth) - 1)];
+		build(points.getXArray(), points.getYArray(), 0, 0, segmentCount);
+	}
+
+
+
+	/**
+	 * Fills in the boxes of node k, which holds the segments from lo up to but not including hi, and of its children.
+	 */
+	private void build(int[] xs, int[] ys, int k, int lo, int hi)
+	{
+		int minX, minY, maxX, maxY;
+		if (hi - lo <= LEAF_SIZE)
+		{
+			minX = maxX = xs[lo];
+			minY = maxY = ys[lo];
+			for (int j = lo + 1; j <= lastPoint(hi); j++)
+			{
+				minX = Math.min(minX, xs[j]);
+				minY = Math.min(minY, ys[j]);
+				maxX = Math.max(maxX, xs[j]);
+				maxY = Math.max(maxY, ys[j]);
+			}
+		}
+		else
+		{
+			int mid = (lo + hi) >>> 1, left = 2 * k + 1, right = 2 * k + 2;
+			build(xs, ys, left, lo, mid);
+			build(xs, ys, right, mid, hi);
+			minX = Math.min(boxes[4 * left], boxes[4 * right]);
+			minY = Math.min(boxes[4 * left + 1], boxes[4 * right + 1]);
+			maxX = Math.max(boxes[4 * left + 2], boxes[4 * right + 2]);
+			maxY = Math.max(boxes[4 * left + 3], boxes[4 * right + 3]);
+		}
+
+		boxes[4 * k] = minX;
+		boxes[4 * k + 1] = minY;
+		boxes[4 * k + 2] = maxX;
+		boxes[4 * k + 3] = maxY;
+	}
+
+
+
+	/**
+	 * @return the index of the last Point of the segments up to but not including hi
+	 */
+	private int lastPoint(int hi)
+	{
+		return Math.min(hi, pointCount - 1);
+	}
+
+
+
+	/**
+	 * Projects the given location onto the closest segment, exactly as if it had been projected onto
+	 * every segment with Drawable.projectOntoLineSegment, and records the projection in the given HitResult
+	 * if it is closer than what the HitResult already holds. The Points themselves are tried too,
+	 * since rounding a projection to whole pixels can take it farther away than the end of its segment.
+	 * @param xs the x coordinates of the Points the tree was built from
+	 * @param ys the y coordinates of the Points the tree was built from
+	 * @param x the x coordinate of the location
+	 * @param y the y coordinate of the location
+	 * @param result the closest hit so far, must be non-null
+	 */
+	void project(int[] xs, int[] ys, double x, double y, HitResult result)
+	{
+		project(DistanceKernel.getCurrent(), xs, ys, x, y, result, 0, 0, segmentCount);
+	}
+
+
+
+	/**
+	 * Projects the location onto the segments of node k, from lo up to but not including hi,
+	 * searching the nearer child first and skipping nodes which can't hold anything closer.
+	 */
+	private void project(DistanceKernel kernel, int[] xs, int[] ys, double x, double y, HitResult result, int k, int lo, int hi)
+	{
+		if (hi - lo <= LEAF_SIZE)
+		{
+			kernel.findClosestPoint(xs, ys, lo, lastPoint(hi), x, y, result);
+			kernel.projectOntoSegments(xs, ys, lo, lastPoint(hi), x, y, result);
+			return;
+		}
+
+		int mid = (lo + hi) >>> 1, left = 2 * k + 1, right = 2 * k + 2;
+		double leftDistSq = boxDistanceSq(left, x, y, ROUNDING), rightDistSq = boxDistanceSq(right, x, y, ROUNDING);
+		if (leftDistSq <= rightDistSq)
+		{
+			if (leftDistSq < result.getDistanceSq())
+				project(kernel, xs, ys, x, y, result, left, lo, mid);
+			if (rightDistSq < result.getDistanceSq())
+				project(kernel, xs, ys, x, y, result, right, mid, hi);
+		}
+		else
+		{
+			if (rightDistSq < result.getDistanceSq())
+				project(kernel, xs, ys, x, y, result, right, mid, hi);
+			if (leftDistSq < result.getDistanceSq())
+				project(kernel, xs, ys, x, y, result, left, lo, mid);
+		}
+	}
+
+
+
+	/**
+	 * Finds the Point closest to the given location, and records it and its index in the given HitResult,
+	 * which must be cleared. If several Points are equally close, the first of them is found.
+	 * @param xs the x coordinates of the Points the tree was built from
+	 * @param ys the y coordinates of the Points the tree was built from
+	 * @param x the x coordinate of the location
+	 * @param y the y coordinate of the location
+	 * @param result where to write the closest Point, must be non-null
+	 */
+	void findClosestPoint(int[] xs, int[] ys, double x, double y, HitResult result)
+	{
+		findClosestPoint(DistanceKernel.getCurrent(), xs, ys, x, y, result, 0, 0, segmentCount);
+	}
+
+
+
+	/**
+	 * Finds the closest of the Points of node k, from lo up to and including the last Point of the segment before hi,
+	 * searching the nearer child first and skipping nodes which can't hold anything closer.
+	 */
+	private void findClosestPoint(DistanceKernel kernel, int[] xs, int[] ys, double x, double y, HitResult result, int k, int lo, int hi)
+	{
+		if (hi - lo <= LEAF_SIZE)
+		{
+			kernel.findClosestPoint(xs, ys, lo, lastPoint(hi), x, y, result);
+			return;
+		}
+
+		//nodes as close as the closest Point so far are still searched, in case they hold an earlier Point
+		int mid = (lo + hi) >>> 1, left = 2 * k + 1, right = 2 * k + 2;
+		double leftDistSq = boxDistanceSq(left, x, y, 0), rightDistSq = boxDistanceSq(right, x, y, 0);
+		if (leftDistSq <= rightDistSq)
+		{
+			if (leftDistSq <= result.getDistanceSq())
+				findClosestPoint(kernel, xs, ys, x, y, result, left, lo, mid);
+			if (rightDistSq <= result.getDistanceSq())
+				findClosestPoint(kernel, xs, ys, x, y, result, right, mid, hi);
+		}
+		else
+		{
+			if (rightDistSq <= result.getDistanceSq())
+				findClosestPoint(kernel, xs, ys, x, y, result, right, mid, hi);
+			if (leftDistSq <= result.getDistanceSq())
+				findClosestPoint(kernel, xs, ys, x, y, result, left, lo, mid);
+		}
+	}
+
+
+
+	/**
+	 * @return the squared distance from the given location to the box of node k, grown by the given margin
+	 */
+	private double boxDistanceSq(int k, double x, double y, double margin)
+	{
+		double dx = Math.max(0, Math.max(boxes[4 * k] - margin - x, x - boxes[4 * k + 2] - margin));
+		double dy = Math.max(0, Math.max(boxes[4 * k + 1] - margin - y, y - boxes[4 * k + 3] - margin));
+		return dx * dx + dy * dy;
+	}
+}
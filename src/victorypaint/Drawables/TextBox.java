@@ -4,8 +4,13 @@ package victorypaint.Drawables;
 import java.awt.Dimension;
 import java.awt.Font;
 import java.awt.Graphics;
+import java.awt.Graphics2D;
 import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
 import java.awt.event.KeyEvent;
+import java.awt.font.FontRenderContext;
+import java.awt.geom.AffineTransform;
 import java.awt.geom.Rectangle2D;
 
 /**
@@ -14,6 +19,11 @@ import java.awt.geom.Rectangle2D;
  */
 public class TextBox extends Drawable
 {
+	/**
+	 * Pinned to the value of the original class so that old save files can still be opened.
+	 */
+	private static final long serialVersionUID = 5957941080837989343L;
+	
 	/**
 	 * Font to use when displaying the text
 	 */
@@ -65,6 +75,8 @@ public class TextBox extends Drawable
 	
 	/**
 	 * Uses the current text to update the offset and textBounds as rendered on the given Graphics object.
+	 * The text is measured as if the Graphics weren't scaled, so that zooming the view
+	 * doesn't change the size of the TextBox.
 	 * @param graphics used for rendering the text. Must be non-null.
 	 */
 	public void updateTextBounds(Graphics graphics)
@@ -73,20 +85,49 @@ public class TextBox extends Drawable
 		//http://docs.oracle.com/javase/tutorial/2d/text/measuringtext.html
 		//http://docs.oracle.com/javase/tutorial/2d/text/drawmulstring.html
 		
-		Rectangle2D rect = graphics.getFontMetrics().getStringBounds(getText(), graphics);
+		if (graphics instanceof Graphics2D)
+		{
+			FontRenderContext frc = ((Graphics2D)graphics).getFontRenderContext();
+			frc = new FontRenderContext(null, frc.getAntiAliasingHint(), frc.getFractionalMetricsHint());
+			setTextBounds(graphics.getFont().getStringBounds(getText(), frc));
+		}
+		else
+			setTextBounds(graphics.getFontMetrics().getStringBounds(getText(), graphics));
+	}
+	
+	
+	
+	/**
+	 * Updates the offset, textBounds, and the corner Points to match the given bounds of the text.
+	 * If this changes the size of the TextBox, the old and new regions are reported as damaged.
+	 * @param rect the bounds of the text, as measured relative to where it is drawn
+	 */
+	private void setTextBounds(Rectangle2D rect)
+	{
 		offset = new Point((int)Math.round(rect.getMinX()), (int)Math.round(rect.getMinY()));
 		textBounds = new Dimension((int)Math.round(rect.getWidth()), (int)Math.round(rect.getHeight()));
 		
-		Point loc = getLocation();
-		points.set(1, new Point(loc.x + textBounds.width, loc.y));
-		points.set(2, new Point(loc.x + textBounds.width, loc.y + textBounds.height));
-		points.set(3, new Point(loc.x, loc.y + textBounds.height));
+		Point loc = points.get(0);
+		Point corner = new Point(loc.x + textBounds.width, loc.y + textBounds.height);
+		if (corner.equals(points.get(2)))
+			return; //nothing changed, so there's no need to notify anyone
+		
+		Rectangle damaged = getBounds();
+		points.set(1, new Point(corner.x, loc.y));
+		points.set(2, corner);
+		points.set(3, new Point(loc.x, corner.y));
+		invalidateBounds();
+		
+		damaged.add(getBounds());
+		fireDrawableChanged(damaged);
 	}
 
 
 
 	/**
 	 * Appends the given text to the current text.
+	 * The text is measured straight away so that the TextBox's bounds are correct
+	 * before it is next drawn.
 	 * @param str the text to append. Must be non-null.
 	 */
 	public void processKey(char c)
@@ -95,12 +136,40 @@ public class TextBox extends Drawable
 			text.deleteCharAt(text.length()-1);
 		else
 			text.append(c);
+		
+		textChanged();
+	}
+	
+	
+	
+	/**
+	 * Replaces the current text with the given text.
+	 * @param str the new text. Must be non-null.
+	 */
+	public void setText(String str)
+	{
+		text = new StringBuffer(str);
+		textChanged();
+	}
+	
+	
+	
+	/**
+	 * Reports the text as changed and measures it straight away, so that the
+	 * TextBox's bounds are correct before it is next drawn.
+	 */
+	private void textChanged()
+	{
+		fireDrawableChanged();
+		setTextBounds(defaultFont.getStringBounds(getText(), new FontRenderContext(null, false, false)));
 	}
 
 	
 
 	/**
 	 * Draws this TextBox at its location.
+	 * When the Graphics is scaled, the text is drawn with fractional metrics
+	 * so that it stays within the bounds it was measured to have.
 	 * @param g the Graphics to draw on, must be non-null
 	 */
 	@Override
@@ -110,12 +179,22 @@ public class TextBox extends Drawable
 		g.setFont(defaultFont);
 
 		updateTextBounds(g);
-		Point loc = getLocation();
+		Point loc = points.get(0);
+
+		Object oldMetrics = null;
+		if (g instanceof Graphics2D && ((Graphics2D)g).getTransform().getDeterminant() != 1)
+		{
+			Graphics2D g2 = (Graphics2D)g;
+			oldMetrics = g2.getRenderingHint(RenderingHints.KEY_FRACTIONALMETRICS);
+			g2.setRenderingHint(RenderingHints.KEY_FRACTIONALMETRICS, RenderingHints.VALUE_FRACTIONALMETRICS_ON);
+		}
 
 		if (isGhosting())
 			g.drawRect(loc.x, loc.y, textBounds.width, textBounds.height);
 		g.drawString(getText(), loc.x - offset.x, loc.y - offset.y);
 
+		if (oldMetrics != null)
+			((Graphics2D)g).setRenderingHint(RenderingHints.KEY_FRACTIONALMETRICS, oldMetrics);
 		g.setFont(oldFont);
 	}
 
@@ -133,6 +212,30 @@ public class TextBox extends Drawable
 	
 	
 	
+	/**
+	 * Overrides normal functionality and instead does nothing, for the same reason as setPoint.
+	 * @param newPoints 
+	 */
+	@Override
+	public void setPointList(PointList newPoints)
+	{ }
+	
+	
+	
+	/**
+	 * Attaches the given transform only if it is a translation, and otherwise does nothing,
+	 * for the same reason as setPoint.
+	 * @param newTransform the transform to apply to the TextBox, or null to remove the transform
+	 */
+	@Override
+	public void setTransform(AffineTransform newTransform)
+	{
+		if (newTransform == null || (newTransform.getType() & ~AffineTransform.TYPE_TRANSLATION) == 0)
+			super.setTransform(newTransform);
+	}
+	
+	
+	
 	/**
 	 * Makes a deep copy clone of this TextBox and returns the result.
 	 * @return a deep copy of this TextBox
@@ -142,6 +245,7 @@ public class TextBox extends Drawable
 	{
 		TextBox tb = new TextBox(getLocation());
 		tb.points = clonePointList();
+		tb.color = color;
 		tb.text = new StringBuffer(text);
 		tb.offset = new Point(offset);
 		tb.textBounds = new Dimension(textBounds);
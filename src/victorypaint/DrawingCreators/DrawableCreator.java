@@ -1,13 +1,15 @@
 
 package victorypaint.DrawingCreators;
 
-import java.awt.Component;
 import victorypaint.Drawables.Drawable;
+import victorypaint.DrawingPanel;
+import victorypaint.Edits.AddEdit;
 import victorypaint.MouseInputAcceptor;
 
 /**
  * Abstract class for constructing a Drawable based on user input from a specified Component.
  * It is up to the subclasses to decide the specifics of the user's input and which Drawable will be created.
+ * Once a Drawable has been created, an AddEdit is posted for it so that its creation can be undone.
  * @author Jesse Victors, A01485921
  */
 public abstract class DrawableCreator extends MouseInputAcceptor
@@ -16,17 +18,23 @@ public abstract class DrawableCreator extends MouseInputAcceptor
 	 * Holds whether this DrawableCreator is currently constructing a Drawable or not.
 	 */
 	protected boolean creating = false;
+	
+	/**
+	 * The DrawingPanel the Drawable is created on
+	 */
+	protected DrawingPanel drawingPanel;
 
 
 	/**
-	 * Constructs a DrawableCreator using the specified Component for user input.
-	 * This adds a MouseListener and a MouseMotionListener to the Component,
+	 * Constructs a DrawableCreator using the specified DrawingPanel for user input.
+	 * This adds a MouseListener and a MouseMotionListener to the DrawingPanel,
 	 * so that user input from a mouse can be detected.
-	 * @param input the input Component, must be non-null.
+	 * @param panel the DrawingPanel the Drawable is created on, must be non-null.
 	 */
-	public DrawableCreator(Component input)
+	public DrawableCreator(DrawingPanel panel)
 	{
-		super(input);
+		super(panel);
+		drawingPanel = panel;
 	}
 
 
@@ -61,11 +69,15 @@ public abstract class DrawableCreator extends MouseInputAcceptor
 	/**
 	 * Finalizes this DrawableCreator and removes user input listeners,
 	 * sets the "creating" and "accepting user input" properties to false.
+	 * If a Drawable was being created, an AddEdit is posted for it.
 	 */
 	@Override
 	protected final void finish()
 	{
-		super.finish();
+		if (creating)
+			postEdit(new AddEdit(drawingPanel, getDrawable()));
+		
 		creating = false;
+		super.finish();
 	}
 }
@@ -1,10 +1,10 @@
 
 package victorypaint.DrawingCreators;
 
-import java.awt.Component;
 import java.awt.Point;
 import java.awt.event.MouseEvent;
 import victorypaint.Drawables.LineSegment;
+import victorypaint.DrawingPanel;
 
 /**
  * A LineSegmentCreator constructs a LineSegment based on user input from a specified Component.
@@ -23,12 +23,12 @@ public class LineSegmentCreator extends DrawableCreator
 
 
 	/**
-	 * Creates a LineSegmentCreator using the specified Component for user input
-	 * @param input the input Component, must be non-null.
+	 * Creates a LineSegmentCreator using the specified DrawingPanel for user input
+	 * @param panel the DrawingPanel the LineSegment is created on, must be non-null.
 	 */
-	public LineSegmentCreator(Component input)
+	public LineSegmentCreator(DrawingPanel panel)
 	{
-		super(input);
+		super(panel);
 	}
 
 
@@ -1,12 +1,15 @@
 
 package victorypaint.DrawingCreators;
 
-import java.awt.Component;
 import java.awt.Point;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseListener;
 import java.awt.event.MouseMotionListener;
+import victorypaint.Drawables.Curve;
+import victorypaint.Drawables.Drawable;
 import victorypaint.Drawables.Pencil;
+import victorypaint.Drawables.PointList;
+import victorypaint.DrawingPanel;
 
 /**
  * A PencilCreator constructs a Pencil based on user input from a specified Component.
@@ -14,43 +17,141 @@ import victorypaint.Drawables.Pencil;
  * points are added to the Pencil when the mouse is dragged around on the Component,
  * and the Pencil is finalized when the user lets go of the mouse or
  * the mouse is moved outside of the input Component.
+ * Mice report their position far more often than a curve needs, so the points are
+ * thinned out as they arrive. Points closer than the minimum spacing to the previous one
+ * are dropped, and a run of points which all lie within the tolerance of a straight line
+ * is stored as just the two ends of that line. The Pencil's size therefore depends
+ * on the shape that was drawn rather than how fast the mouse reports its position.
+ * Both distances are in pixels on screen, so they scale with the DrawingPanel's zoom.
+ * Optionally, the finished stroke is then fitted with a Curve of Bezier curves,
+ * which replaces the Pencil if it needs fewer Points.
  * @author Jesse Victors, A01485921
  */
 public class PencilCreator extends DrawableCreator implements MouseListener, MouseMotionListener
 {
+	/**
+	 * The default minimum spacing, in pixels, between points
+	 */
+	public static final double DEFAULT_SPACING = 2;
+	
+	/**
+	 * The default tolerance, in pixels, of how far the curve may stray from the mouse's path
+	 */
+	public static final double DEFAULT_TOLERANCE = 1;
+	
+	/**
+	 * The default tolerance, in pixels, for fitting a Curve to the stroke, which is 0 to not fit one
+	 */
+	public static final double DEFAULT_FIT_TOLERANCE = 0;
+	
+	/**
+	 * The most points which are held back while waiting to see if a line continues straight.
+	 * This bounds the work done for each mouse movement.
+	 */
+	private static final int MAX_PENDING = 256;
+	
 	/**
 	 * The Pencil being created.
 	 */
 	private Pencil curve = new Pencil(new Point());
+	
+	/**
+	 * Points closer than this to the previous point are dropped, in pixels
+	 */
+	private double spacing = DEFAULT_SPACING;
+	
+	/**
+	 * How far the curve may stray from the mouse's path, in pixels, or 0 to keep every point
+	 */
+	private double tolerance = DEFAULT_TOLERANCE;
+	
+	/**
+	 * How far a fitted Curve may stray from the stroke, in pixels, or 0 to not fit one
+	 */
+	private double fitTolerance = DEFAULT_FIT_TOLERANCE;
+	
+	/**
+	 * The Curve which replaced the Pencil once it was finished, or null if it wasn't replaced
+	 */
+	private Curve fitted;
+	
+	/**
+	 * The last point of the curve which is fixed in place
+	 */
+	private Point anchor;
+	
+	/**
+	 * The points since the anchor which were replaced by a straight line from it.
+	 * The last of them is the Pencil's last point, which moves as the line is extended.
+	 */
+	private PointList pending = new PointList(16);
+	
+	/**
+	 * The last point the mouse was dragged to, which may have been dropped
+	 */
+	private Point lastInput;
+
+
+	/**
+	 * Creates a PencilCreator using the specified DrawingPanel for user input
+	 * @param panel the DrawingPanel the Pencil is created on, must be non-null.
+	 */
+	public PencilCreator(DrawingPanel panel)
+	{
+		super(panel);
+	}
+
+
+
+	/**
+	 * Sets the minimum spacing between points. Points closer than this to the previous one are dropped.
+	 * @param spacing the spacing in pixels, or 0 to only drop repeated points
+	 */
+	public void setSpacing(double spacing)
+	{
+		this.spacing = spacing;
+	}
+
 
 
 	/**
-	 * Creates a PencilCreator using the specified Component for user input
-	 * @param input the input Component, must be non-null.
+	 * Sets how far the curve may stray from the mouse's path when runs of points are straightened.
+	 * @param tolerance the tolerance in pixels, or 0 to keep every point which isn't dropped for spacing
 	 */
-	public PencilCreator(Component input)
+	public void setTolerance(double tolerance)
 	{
-		super(input);
+		this.tolerance = tolerance;
 	}
 
 
 
 	/**
-	 * Returns the Pencil currently being constructed.
-	 * @return the Pencil
+	 * Sets how far a Curve fitted to the finished stroke may stray from it.
+	 * @param fitTolerance the tolerance in pixels, or 0 to keep the stroke as a Pencil
+	 */
+	public void setFitTolerance(double fitTolerance)
+	{
+		this.fitTolerance = fitTolerance;
+	}
+
+
+
+	/**
+	 * Returns the Pencil currently being constructed, or the Curve which replaced it once it was finished.
+	 * @return the Pencil or Curve
 	 */
 	@Override
-	public Pencil getDrawable()
+	public Drawable getDrawable()
 	{
-		return curve;
+		return fitted != null ? fitted : curve;
 	}
 
 
 
 	/**
 	 * Called when the user presses down on the mouse whilst inside the input Component.
-	 * This method sets up the Pencil
-	 * and moves it to the mouse's location.
+	 * This method sets up the Pencil, moves it to the mouse's location,
+	 * and has the DrawingPanel ink it as it is drawn.
 	 * @param e the MouseEvent corresponding to the mouse press, must be non-null
 	 */
 	@Override
@@ -59,20 +160,53 @@ public class PencilCreator extends DrawableCreator implements MouseListener, Mou
 		creating = true;
 		curve.setLocation(e.getPoint());
 		curve.setGhosting(true);
+		anchor = lastInput = e.getPoint();
+		pending = new PointList(16);
+		drawingPanel.setInking(curve);
 	}
 
 
 
 	/**
 	 * Called when the user lets go of the mouse button whilst inside the input Component.
-	 * This method finalizes the Pencil.
+	 * This method finalizes the Pencil, making sure it ends where the mouse was last dragged to,
+	 * and fits a Curve to it if a fit tolerance has been set.
 	 * @param e the MouseEvent corresponding to the mouse release
 	 */
 	@Override
 	public void mouseReleased(MouseEvent e)
 	{
+		if (creating)
+		{
+			if (!lastInput.equals(getLastPoint()))
+				addPoint(lastInput);
+			if (fitTolerance > 0)
+				fitCurve();
+		}
+		
 		finish();
-		curve.setGhosting(false);
+		drawingPanel.setInking(null);
+		getDrawable().setGhosting(false);
+	}
+
+
+
+	/**
+	 * Fits a Curve to the Pencil, and if the Curve needs fewer Points,
+	 * puts it in the DrawingPanel in place of the Pencil.
+	 */
+	private void fitCurve()
+	{
+		Curve fit = Curve.fit(curve.getPointList(), fitTolerance / drawingPanel.getZoom());
+		int position = drawingPanel.indexOf(curve);
+		if (fit == null || fit.getPointCount() >= curve.getPointCount() || position < 0)
+			return;
+		
+		fit.setDefaultColor(curve.getDefaultColor());
+		fit.setGhosting(true);
+		drawingPanel.remove(curve);
+		drawingPanel.add(position, fit);
+		fitted = fit;
 	}
 
 
@@ -92,12 +226,86 @@ public class PencilCreator extends DrawableCreator implements MouseListener, Mou
 
 	/**
 	 * Called when the user's mouse is dragged around in the input Component.
-	 * This method adds the mouse's location to the Pencil.
+	 * This method adds the mouse's location to the Pencil, unless it is too close to the last point.
 	 * @param e the MouseEvent corresponding to the mouse drag, must be non-null
 	 */
 	@Override
 	public void mouseDragged(MouseEvent e)
 	{
-		curve.addPoint(e.getPoint());
+		if (!creating)
+			return;
+		
+		lastInput = e.getPoint();
+		Point last = getLastPoint();
+		if (!lastInput.equals(last) && lastInput.distance(last) >= spacing / drawingPanel.getZoom())
+			addPoint(lastInput);
+	}
+
+
+
+	/**
+	 * @return the last point of the Pencil
+	 */
+	private Point getLastPoint()
+	{
+		return curve.getPoint(curve.getPointCount() - 1);
+	}
+
+
+
+	/**
+	 * Adds the given point to the curve. If every point since the anchor stays within
+	 * the tolerance of a straight line from the anchor to the new point, the Pencil's
+	 * last point is moved to the new point instead. Otherwise the Pencil's last point
+	 * becomes the anchor and the new point is appended.
+	 */
+	private void addPoint(Point pt)
+	{
+		double tol = tolerance / drawingPanel.getZoom();
+		if (tol <= 0)
+		{
+			curve.addPoint(pt);
+			return;
+		}
+		
+		if (pending.size() > 0 && pending.size() < MAX_PENDING && straight(pt, tol))
+		{
+			pending.add(pt);
+			curve.setLastPoint(pt);
+			return;
+		}
+		
+		if (pending.size() > 0)
+		{
+			anchor = pending.get(pending.size() - 1);
+			pending = new PointList(16);
+		}
+		pending.add(pt);
+		curve.addPoint(pt);
+	}
+
+
+
+	/**
+	 * @return true if every pending point is within the given distance of
+	 * the line segment from the anchor to the given point
+	 */
+	private boolean straight(Point end, double tol)
+	{
+		double ax = anchor.x, ay = anchor.y;
+		double dx = end.x - ax, dy = end.y - ay;
+		double lengthSq = dx * dx + dy * dy;
+		double tolSq = tol * tol;
+		
+		int[] xs = pending.getXArray(), ys = pending.getYArray();
+		for (int j = 0; j < pending.size(); j++)
+		{
+			double px = xs[j] - ax, py = ys[j] - ay;
+			double t = lengthSq == 0 ? 0 : Math.max(0, Math.min(1, (px * dx + py * dy) / lengthSq));
+			double ex = px - t * dx, ey = py - t * dy;
+			if (ex * ex + ey * ey > tolSq)
+				return false;
+		}
+		return true;
 	}
 }
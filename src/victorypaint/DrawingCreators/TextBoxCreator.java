@@ -1,12 +1,12 @@
 
 package victorypaint.DrawingCreators;
 
-import java.awt.Component;
 import java.awt.Point;
 import java.awt.event.KeyEvent;
 import java.awt.event.KeyListener;
 import java.awt.event.MouseEvent;
 import victorypaint.Drawables.TextBox;
+import victorypaint.DrawingPanel;
 
 /**
  * A TextBoxCreator constructs a TextBox based on user input from a specified Component.
@@ -24,12 +24,12 @@ public class TextBoxCreator extends DrawableCreator implements KeyListener
 
 
 	/**
-	 * Creates a TextBoxCreator using the specified Component for user input
-	 * @param input the input Component, must be non-null.
+	 * Creates a TextBoxCreator using the specified DrawingPanel for user input
+	 * @param panel the DrawingPanel the TextBox is created on, must be non-null.
 	 */
-	public TextBoxCreator(Component input)
+	public TextBoxCreator(DrawingPanel panel)
 	{
-		super(input);
+		super(panel);
 	}
 
 
@@ -0,0 +1,329 @@
+
+package victorypaint;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.Set;
+import victorypaint.Drawables.Drawable;
+
+/**
+ * A DrawingDocument holds the list of Drawables in a drawing. The list is never changed in place:
+ * every change publishes a new Snapshot, which is an immutable list with a version number,
+ * so anything which is iterating over an older Snapshot carries on undisturbed.
+ * There is a single writer, the Swing event thread, which makes every change.
+ * Any thread may read the current Snapshot without locking.
+ * The Drawables themselves are still changed in place by the event thread, so background work
+ * such as saving should use freeze(), which returns a Snapshot of copies that nothing will change.
+ * Copies are only made of the Drawables which changed since the last time freeze() was called.
+ * @author Jesse Victors, A01485921
+ */
+public class DrawingDocument
+{
+	/**
+	 * The current list of Drawables. Replaced, rather than changed, by every change to the list.
+	 */
+	private volatile Snapshot current = new Snapshot(new Drawable[0], 0);
+
+	/**
+	 * The copies made by freeze(), for each Drawable in the list, along with its modification count
+	 * when it was copied. Only used by the event thread.
+	 */
+	private IdentityHashMap<Drawable, FrozenCopy> frozen = new IdentityHashMap<>();
+
+	/**
+	 * The Snapshot last returned by freeze(), or null if there isn't one yet
+	 */
+	private Snapshot lastFrozen;
+
+
+	/**
+	 * @return the current list of Drawables, which will never change. May be called from any thread,
+	 * but the Drawables in it may be changing on the event thread.
+	 */
+	public Snapshot getSnapshot()
+	{
+		return current;
+	}
+
+
+
+	/**
+	 * Returns a list of copies of the current Drawables, which nothing will change and which
+	 * may be read from any thread. A Drawable which hasn't changed since the last call shares
+	 * the copy made then, and if nothing has changed at all, the same Snapshot is returned.
+	 * Must be called from the event thread.
+	 * @return a Snapshot of copies of the current Drawables, with the same version as getSnapshot()
+	 */
+	public Snapshot freeze()
+	{
+		Snapshot live = current;
+		Drawable[] copies = new Drawable[live.size()];
+		boolean reused = lastFrozen != null && lastFrozen.getVersion() == live.getVersion();
+		IdentityHashMap<Drawable, FrozenCopy> nowFrozen = new IdentityHashMap<>(live.size() * 2);
+
+		for (int j = 0; j < copies.length; j++)
+		{
+			Drawable drawable = live.get(j);
+			FrozenCopy copy = frozen.get(drawable);
+			if (copy == null || copy.modCount != drawable.getModCount())
+			{
+				copy = new FrozenCopy(drawable.clone(), drawable.getModCount());
+				reused = false;
+			}
+			nowFrozen.put(drawable, copy);
+			copies[j] = copy.drawable;
+		}
+
+		frozen = nowFrozen; //Drawables which have been removed are forgotten
+		if (!reused)
+			lastFrozen = new Snapshot(copies, live.getVersion());
+		return lastFrozen;
+	}
+
+
+
+	/**
+	 * @return the number of Drawables in the current list
+	 */
+	public int size()
+	{
+		return current.size();
+	}
+
+
+
+	/**
+	 * @param drawable the Drawable to look for
+	 * @return the position of the given Drawable in the current list, or -1 if it is not in the list
+	 */
+	public int indexOf(Drawable drawable)
+	{
+		return current.indexOf(drawable);
+	}
+
+
+
+	/**
+	 * Inserts the given Drawable into the list at the given position. Must be called from the event thread.
+	 * @param position where to insert the Drawable, from 0 to the number of Drawables
+	 * @param drawable the Drawable to insert, must be non-null
+	 */
+	public void add(int position, Drawable drawable)
+	{
+		Drawable[] old = current.drawables;
+		if (position < 0 || position > old.length)
+			throw new IndexOutOfBoundsException("Position " + position + " of " + old.length);
+
+		Drawable[] list = new Drawable[old.length + 1];
+		System.arraycopy(old, 0, list, 0, position);
+		list[position] = drawable;
+		System.arraycopy(old, position, list, position + 1, old.length - position);
+		publish(list);
+	}
+
+
+
+	/**
+	 * Removes the given Drawable from the list. Must be called from the event thread.
+	 * @param drawable the Drawable to remove
+	 * @return true if the Drawable was in the list, false otherwise
+	 */
+	public boolean remove(Drawable drawable)
+	{
+		Drawable[] old = current.drawables;
+		int position = current.indexOf(drawable);
+		if (position < 0)
+			return false;
+
+		Drawable[] list = new Drawable[old.length - 1];
+		System.arraycopy(old, 0, list, 0, position);
+		System.arraycopy(old, position + 1, list, position, list.length - position);
+		publish(list);
+		return true;
+	}
+
+
+
+	/**
+	 * Removes every one of the given Drawables which is in the list, in a single change
+	 * rather than one for each Drawable. Must be called from the event thread.
+	 * @param drawables the Drawables to remove, in any order, must be non-null
+	 * @param removed where to add the Drawables which were removed, in the order they were in the list. Must be non-null.
+	 * @return the positions the removed Drawables were at, in increasing order
+	 */
+	public int[] removeAll(Collection<Drawable> drawables, List<Drawable> removed)
+	{
+		Set<Drawable> remove = Collections.newSetFromMap(new IdentityHashMap<Drawable, Boolean>());
+		remove.addAll(drawables);
+
+		Drawable[] old = current.drawables;
+		Drawable[] list = new Drawable[old.length];
+		int[] positions = new int[Math.min(remove.size(), old.length)];
+		int kept = 0, count = 0;
+		for (int j = 0; j < old.length; j++)
+			if (remove.contains(old[j]))
+			{
+				positions[count++] = j;
+				removed.add(old[j]);
+			}
+			else
+				list[kept++] = old[j];
+
+		if (count > 0)
+			publish(Arrays.copyOf(list, kept));
+		return Arrays.copyOf(positions, count);
+	}
+
+
+
+	/**
+	 * Puts back Drawables removed by removeAll, where they were before, in a single change.
+	 * Must be called from the event thread.
+	 * @param positions the positions the Drawables were at, in increasing order, as returned by removeAll
+	 * @param drawables the Drawables, in the order they were in the list, must be non-null
+	 */
+	public void addAll(int[] positions, List<Drawable> drawables)
+	{
+		Drawable[] old = current.drawables;
+		if (positions.length > 0 && positions[positions.length - 1] >= old.length + positions.length)
+			throw new IndexOutOfBoundsException("Position " + positions[positions.length - 1] + " of "
+					+ (old.length + positions.length));
+
+		Drawable[] list = new Drawable[old.length + positions.length];
+		int added = 0, kept = 0;
+		for (int j = 0; j < list.length; j++)
+			if (added < positions.length && positions[added] == j)
+				list[j] = drawables.get(added++);
+			else
+				list[j] = old[kept++];
+		publish(list);
+	}
+
+
+
+	/**
+	 * Replaces the whole list with the given Drawables. The given list is copied,
+	 * so changing it afterwards doesn't change this DrawingDocument. Must be called from the event thread.
+	 * @param drawables the new Drawables, must be non-null
+	 */
+	public void setDrawables(List<Drawable> drawables)
+	{
+		publish(drawables.toArray(new Drawable[drawables.size()]));
+	}
+
+
+
+	/**
+	 * Publishes the given array as the new current list, with the next version number
+	 */
+	private void publish(Drawable[] list)
+	{
+		current = new Snapshot(list, current.getVersion() + 1);
+	}
+
+
+
+	/**
+	 * A Snapshot is an immutable list of Drawables, as the list was at one version of the DrawingDocument.
+	 */
+	public static final class Snapshot extends AbstractList<Drawable> implements RandomAccess
+	{
+		/**
+		 * The Drawables, which are never changed once the Snapshot has been made
+		 */
+		private final Drawable[] drawables;
+
+		/**
+		 * The number of changes made to the DrawingDocument's list before this Snapshot
+		 */
+		private final long version;
+
+
+		/**
+		 * Constructs a Snapshot which takes ownership of the given array.
+		 */
+		private Snapshot(Drawable[] drawables, long version)
+		{
+			this.drawables = drawables;
+			this.version = version;
+		}
+
+
+
+		/**
+		 * @return the number of changes made to the DrawingDocument's list before this Snapshot.
+		 * Snapshots with the same version hold the same Drawables, or copies of them.
+		 */
+		public long getVersion()
+		{
+			return version;
+		}
+
+
+
+		/**
+		 * @param n the index of the Drawable
+		 * @return the nth Drawable
+		 */
+		@Override
+		public Drawable get(int n)
+		{
+			return drawables[n];
+		}
+
+
+
+		/**
+		 * @return the number of Drawables
+		 */
+		@Override
+		public int size()
+		{
+			return drawables.length;
+		}
+
+
+
+		/**
+		 * @return a copy of the array of Drawables
+		 */
+		@Override
+		public Object[] toArray()
+		{
+			return Arrays.copyOf(drawables, drawables.length, Object[].class);
+		}
+	}
+
+
+
+	/**
+	 * A copy of a Drawable made by freeze(), and the Drawable's modification count when it was made
+	 */
+	private static final class FrozenCopy
+	{
+		/**
+		 * The copy, which nothing will change
+		 */
+		private final Drawable drawable;
+
+		/**
+		 * The original Drawable's modification count when the copy was made
+		 */
+		private final int modCount;
+
+
+		/**
+		 * Constructs a FrozenCopy of the given copy and modification count.
+		 */
+		private FrozenCopy(Drawable drawable, int modCount)
+		{
+			this.drawable = drawable;
+			this.modCount = modCount;
+		}
+	}
+}
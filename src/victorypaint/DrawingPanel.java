@@ -1,60 +1,808 @@
 
 package victorypaint;
 
+import java.awt.AlphaComposite;
+import java.awt.Color;
 import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
+import java.awt.event.MouseWheelListener;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.NoninvertibleTransformException;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
 import javax.swing.JPanel;
 import victorypaint.Drawables.Drawable;
+import victorypaint.Drawables.DrawableListener;
+import victorypaint.Drawables.Pencil;
 import victorypaint.Modifiers.DrawableModifier;
+import victorypaint.Rendering.RenderEngine;
+import victorypaint.Spatial.DrawableIndex;
 
 /**
  * A DrawingPanel is exactly identical to a JPanel,
  * except that it also draws all the elements from a list of Drawables, which it maintains.
  * It also holds a DrawableModifier intended for modifying a given Drawable.
+ * The list is kept in a DrawingDocument, so painting works through a Snapshot of the list
+ * which can't change underneath it, and background work can be given a frozen copy of the drawing.
+ * All Drawables which are not ghosting are rendered once into a cached image,
+ * which is only rebuilt when one of them changes. Ghosting Drawables are the ones
+ * currently being created or modified, so they are drawn on top of that image every time.
+ * Repaints are coalesced by a RepaintScheduler, so the DrawingPanel is only repainted
+ * when something has changed, and then at most once per display refresh.
+ * Only the region a Drawable reports as damaged is repainted, and only the Drawables
+ * which overlap that region are drawn again. Those are found with the spatial index,
+ * so a small repaint doesn't need to look at every Drawable.
+ * The Drawables are shown through a view which can be zoomed with the mouse wheel
+ * and panned by dragging with the middle mouse button. Mouse events are converted
+ * to drawing coordinates before they reach any listeners, so DrawableCreators and
+ * DrawableModifiers never see screen coordinates.
+ * A Pencil which is being drawn can be marked as inking. Its finished segments are then
+ * drawn once onto an overlay image as they arrive, rather than the whole stroke every frame,
+ * so a long stroke costs no more per frame than a short one.
+ * Likewise, a Drawable which is being dragged or rotated can be marked as the sprite.
+ * It is drawn once into an image, which is then drawn with the Drawable's transform
+ * every frame, so dragging it costs the same no matter how many Points it has.
  * @author Jesse Victors, A01485921
  */
-public class DrawingPanel extends JPanel
+public class DrawingPanel extends JPanel implements DrawableListener
 {
 	/**
 	 * The list of Drawables
 	 */
-	protected ArrayList<Drawable> drawables = new ArrayList<>(16);
-	
+	private DrawingDocument document = new DrawingDocument();
+
+	/**
+	 * A spatial index of the Drawables, kept in sync with the list
+	 */
+	private DrawableIndex index = new DrawableIndex();
+
+	/**
+	 * The position of each Drawable in the list, so that the Drawables found in the spatial index
+	 * can be drawn in the right order. Rebuilt when it is next needed, after a Drawable is
+	 * inserted or removed anywhere but the end of the list. May be null.
+	 */
+	private IdentityHashMap<Drawable, Integer> zOrder;
+
+	/**
+	 * Orders Drawables by their position in the list
+	 */
+	private Comparator<Drawable> zOrderComparator = new Comparator<Drawable>()
+	{
+		@Override
+		public int compare(Drawable a, Drawable b)
+		{
+			return Integer.compare(zOrder.get(a), zOrder.get(b));
+		}
+	};
+
+	/**
+	 * Holds the Drawables found by getDrawablesIn, reused between paints
+	 */
+	private ArrayList<Drawable> visible = new ArrayList<>();
+
 	/**
 	 * Reference to any DrawableModifier. May be null.
 	 */
 	private DrawableModifier modifier;
 
-	
 	/**
-	 * Updates the current DrawableModifier to the given DrawableModifier
+	 * Draws the Drawables into the cached image
+	 */
+	private RenderEngine renderEngine = new RenderEngine();
+
+	/**
+	 * Holds a rendering of every Drawable that is not ghosting, on a transparent background.
+	 * May be null if nothing has been painted yet.
+	 */
+	private BufferedImage committedCache;
+
+	/**
+	 * The region of committedCache which is out of date with the Drawables,
+	 * or null if all of it is up to date.
+	 */
+	private Rectangle cacheDamage;
+
+	/**
+	 * The Pencil the user is drawing, whose finished segments are kept in inkOverlay. May be null.
+	 */
+	private Pencil inking;
+
+	/**
+	 * Holds the finished segments of the inking Pencil, on a transparent background.
+	 * May be null if nothing has been inked yet.
+	 */
+	private BufferedImage inkOverlay;
+
+	/**
+	 * The number of the inking Pencil's Points whose segments have been drawn onto inkOverlay
+	 */
+	private int inkedPoints;
+
+	/**
+	 * The region of inkOverlay which has been drawn on, or null if it is all clear
+	 */
+	private Rectangle inkDirty;
+
+	/**
+	 * The Drawable being dragged or rotated, which is drawn from spriteImage. May be null.
+	 */
+	private Drawable sprite;
+
+	/**
+	 * Holds the sprite as it was drawn through spriteTransform, on a transparent background.
+	 * Its top left corner is at spriteOrigin on the panel. May be null if it hasn't been drawn yet.
+	 */
+	private BufferedImage spriteImage;
+
+	/**
+	 * Where the top left corner of spriteImage was on the panel when it was drawn
+	 */
+	private Point spriteOrigin;
+
+	/**
+	 * The inverse of the view transform combined with the sprite's own transform when it was drawn
+	 */
+	private AffineTransform spriteInverse;
+
+	/**
+	 * The zoom when the sprite was drawn. It is drawn again if the view is zoomed.
+	 */
+	private double spriteZoom;
+
+	/**
+	 * The largest image, in pixels, which will be made for the sprite.
+	 * A larger sprite is drawn directly every frame instead.
+	 */
+	private static final int MAX_SPRITE_PIXELS = 1 << 22;
+
+	/**
+	 * The smallest and largest amounts the view may be zoomed by
+	 */
+	public static final double MIN_ZOOM = 1 / 64.0, MAX_ZOOM = 32;
+
+	/**
+	 * How much one notch of the mouse wheel zooms the view by
+	 */
+	private static final double WHEEL_ZOOM = 1.25;
+
+	/**
+	 * How much the view is zoomed by. 2 shows the Drawables at twice their size.
+	 */
+	private double zoom = 1;
+
+	/**
+	 * Where on the panel the drawing's origin is shown
+	 */
+	private double originX, originY;
+
+	/**
+	 * Where the mouse was when the view was last panned, or null if it isn't being panned
+	 */
+	private Point panAnchor;
+
+	/**
+	 * Coalesces every repaint request into at most one repaint per frame.
+	 */
+	private RepaintScheduler scheduler = new RepaintScheduler()
+	{
+		@Override
+		protected void repaintNow(Rectangle region)
+		{
+			DrawingPanel.super.repaint(0, region.x, region.y, region.width, region.height);
+		}
+	};
+
+
+	/**
+	 * Constructs an empty DrawingPanel showing the drawing at its actual size.
+	 */
+	public DrawingPanel()
+	{
+		addMouseWheelListener(new MouseWheelListener()
+		{
+			@Override
+			public void mouseWheelMoved(MouseWheelEvent e)
+			{
+				zoomAt(Math.pow(WHEEL_ZOOM, -e.getPreciseWheelRotation()), e.getPoint());
+			}
+		});
+	}
+
+
+
+	/**
+	 * Updates the current DrawableModifier to the given DrawableModifier,
+	 * and gives it the spatial index of the Drawables to select from
 	 * @param dm the new DrawableModifier
 	 */
 	public void setDrawableModifier(DrawableModifier dm)
 	{
 		modifier = dm;
+		if (modifier != null)
+			modifier.setDrawableIndex(index);
+		repaint();
 	}
 
-	
+
+
+	/**
+	 * Requests that the given region be repainted. Rather than going straight to Swing,
+	 * the request is handed to the RepaintScheduler, which merges it with any other requests
+	 * made before the next frame.
+	 * @param tm ignored, the RepaintScheduler decides when to repaint
+	 * @param x the x coordinate of the region
+	 * @param y the y coordinate of the region
+	 * @param width the width of the region
+	 * @param height the height of the region
+	 */
+	@Override
+	public void repaint(long tm, int x, int y, int width, int height)
+	{
+		if (scheduler == null) //JPanel's constructor repaints before the scheduler exists
+			super.repaint(tm, x, y, width, height);
+		else
+			scheduler.invalidate(new Rectangle(x, y, width, height));
+	}
+
+
+
+	/**
+	 * @return how much the view is zoomed by. 2 shows the Drawables at twice their size.
+	 */
+	public double getZoom()
+	{
+		return zoom;
+	}
+
+
+
+	/**
+	 * Zooms the view by the given factor, keeping the given point on the panel still.
+	 * The zoom is kept between MIN_ZOOM and MAX_ZOOM.
+	 * @param factor how much to zoom by, such as 2 to zoom in or 0.5 to zoom out. Must be positive.
+	 * @param anchor the point on the panel which stays still, or null for the middle of the panel
+	 */
+	public void zoomAt(double factor, Point anchor)
+	{
+		if (anchor == null)
+			anchor = new Point(getWidth() / 2, getHeight() / 2);
+
+		double newZoom = Math.max(MIN_ZOOM, Math.min(MAX_ZOOM, zoom * factor));
+		originX = anchor.x - (anchor.x - originX) * newZoom / zoom;
+		originY = anchor.y - (anchor.y - originY) * newZoom / zoom;
+		zoom = newZoom;
+		damageAll();
+	}
+
+
+
+	/**
+	 * Moves the view so that the Drawables appear the given number of pixels further along.
+	 * @param dx how far to move the Drawables to the right, in pixels
+	 * @param dy how far to move the Drawables down, in pixels
+	 */
+	public void pan(double dx, double dy)
+	{
+		originX += dx;
+		originY += dy;
+		damageAll();
+	}
+
+
+
+	/**
+	 * Shows the drawing at its actual size with its origin at the top left corner of the panel.
+	 */
+	public void resetView()
+	{
+		zoom = 1;
+		originX = originY = 0;
+		damageAll();
+	}
+
+
+
+	/**
+	 * @return a new transform from drawing coordinates to panel coordinates
+	 */
+	public AffineTransform getViewTransform()
+	{
+		return new AffineTransform(zoom, 0, 0, zoom, originX, originY);
+	}
+
+
+
+	/**
+	 * @param pt a point on the panel, must be non-null
+	 * @return the point in the drawing shown there
+	 */
+	public Point toDrawing(Point pt)
+	{
+		return new Point((int)Math.floor((pt.x - originX) / zoom), (int)Math.floor((pt.y - originY) / zoom));
+	}
+
+
+
+	/**
+	 * @param region a region of the panel, must be non-null
+	 * @return the smallest region of the drawing which covers everything shown in the given region
+	 */
+	public Rectangle toDrawing(Rectangle region)
+	{
+		try
+		{
+			return outerBounds(getViewTransform().createInverse().createTransformedShape(region).getBounds2D());
+		}
+		catch (NoninvertibleTransformException ex)
+		{
+			throw new IllegalStateException(ex); //zoom is never 0
+		}
+	}
+
+
+
+	/**
+	 * @param region a region of the drawing, must be non-null
+	 * @return the smallest region of the panel which covers where the given region is shown
+	 */
+	public Rectangle toPanel(Rectangle region)
+	{
+		return outerBounds(getViewTransform().createTransformedShape(region).getBounds2D());
+	}
+
+
+
+	/**
+	 * @return the smallest integer Rectangle containing the given Rectangle2D
+	 */
+	private static Rectangle outerBounds(Rectangle2D rect)
+	{
+		int x = (int)Math.floor(rect.getMinX()), y = (int)Math.floor(rect.getMinY());
+		return new Rectangle(x, y, (int)Math.ceil(rect.getMaxX()) - x, (int)Math.ceil(rect.getMaxY()) - y);
+	}
+
+
+
+	/**
+	 * Converts a mouse event to drawing coordinates and passes it on to the MouseListeners.
+	 * Presses and releases of the middle button pan the view instead and are not passed on.
+	 * @param e the mouse event, in panel coordinates
+	 */
+	@Override
+	protected void processMouseEvent(MouseEvent e)
+	{
+		if (e.getButton() == MouseEvent.BUTTON2)
+		{
+			if (e.getID() == MouseEvent.MOUSE_PRESSED)
+				panAnchor = e.getPoint();
+			else if (e.getID() == MouseEvent.MOUSE_RELEASED)
+				panAnchor = null;
+			return;
+		}
+		super.processMouseEvent(toDrawing(e));
+	}
+
+
+
+	/**
+	 * Converts a mouse motion event to drawing coordinates and passes it on to the MouseMotionListeners.
+	 * While the view is being panned, drags move the view instead and are not passed on.
+	 * @param e the mouse motion event, in panel coordinates
+	 */
+	@Override
+	protected void processMouseMotionEvent(MouseEvent e)
+	{
+		if (panAnchor != null && e.getID() == MouseEvent.MOUSE_DRAGGED)
+		{
+			pan(e.getX() - panAnchor.x, e.getY() - panAnchor.y);
+			panAnchor = e.getPoint();
+			return;
+		}
+		super.processMouseMotionEvent(toDrawing(e));
+	}
+
+
+
+	/**
+	 * @return a copy of the given mouse event in drawing coordinates, or the event itself
+	 * if the view is at its actual size and position
+	 */
+	private MouseEvent toDrawing(MouseEvent e)
+	{
+		if (zoom == 1 && originX == 0 && originY == 0)
+			return e;
+
+		Point pt = toDrawing(e.getPoint());
+		return new MouseEvent(e.getComponent(), e.getID(), e.getWhen(), e.getModifiersEx(),
+				pt.x, pt.y, e.getXOnScreen(), e.getYOnScreen(), e.getClickCount(), e.isPopupTrigger(), e.getButton());
+	}
+
+
 
 	/**
 	 * Draws the default JPanel, including any backgrounds and components,
-	 * and then draws all of the Drawables this this DrawingPanel has.
+	 * then the cached image of all the Drawables that aren't ghosting,
+	 * and finally all of the ghosting Drawables this DrawingPanel has.
+	 * Everything but the JPanel itself is drawn through the view transform.
 	 * @param g the Graphics to draw to, must be non-null
 	 */
 	@Override
 	public void paintComponent(Graphics g)
 	{
 		super.paintComponent(g);
-		
-		for (Drawable drawable : drawables)
-			drawable.draw(g);
+
+		if (committedCache == null || committedCache.getWidth() != getWidth() ||
+				committedCache.getHeight() != getHeight())
+		{
+			committedCache = new BufferedImage(Math.max(1, getWidth()), Math.max(1, getHeight()),
+					BufferedImage.TYPE_INT_ARGB);
+			cacheDamage = new Rectangle(0, 0, committedCache.getWidth(), committedCache.getHeight());
+		}
+
+		if (cacheDamage != null)
+			updateCache((Graphics2D)g);
+		g.drawImage(committedCache, 0, 0, null);
+
+		Graphics2D view = (Graphics2D)g.create();
+		view.transform(getViewTransform());
+		Rectangle clip = view.getClipBounds();
+		for (Drawable drawable : getDrawablesIn(clip))
+			if (drawable.isGhosting() && (clip == null || drawable.getBounds().intersects(clip)))
+			{
+				if (drawable == inking)
+					drawInk((Graphics2D)g, view);
+				else if (drawable == sprite)
+					drawSprite((Graphics2D)g, view);
+				else
+					drawable.draw(view);
+			}
 
 		if (modifier != null)
+			modifier.draw(view);
+		view.dispose();
+	}
+
+
+
+	/**
+	 * Clears the damaged region of the cached image and redraws every Drawable
+	 * that is not ghosting and which overlaps that region.
+	 * The cached image holds the panel as it is shown, so it is drawn through the view transform.
+	 * @param g the Graphics the cache will be drawn to, whose rendering hints will be copied
+	 */
+	private void updateCache(Graphics2D g)
+	{
+		Rectangle region = cacheDamage;
+		cacheDamage = null; //cleared beforehand so Drawables which change while being drawn damage it again
+
+		Graphics2D cacheGraphics = committedCache.createGraphics();
+		cacheGraphics.clip(region);
+		cacheGraphics.setComposite(AlphaComposite.Clear);
+		cacheGraphics.fill(region);
+		cacheGraphics.setComposite(AlphaComposite.SrcOver);
+		cacheGraphics.setRenderingHints(g.getRenderingHints());
+		cacheGraphics.setFont(g.getFont());
+		cacheGraphics.transform(getViewTransform());
+
+		Rectangle drawingRegion = toDrawing(region);
+		renderEngine.draw(getDrawablesIn(drawingRegion), cacheGraphics, drawingRegion);
+		cacheGraphics.dispose();
+	}
+
+
+
+	/**
+	 * Finds the Drawables whose bounds overlap the given region, using the spatial index,
+	 * and puts them in the order they are in the list, which is the order they must be drawn in.
+	 * When the region covers most of the Drawables, it is quicker to skip the index and sorting
+	 * and just hand back the whole list.
+	 * @param region the region to look in, or null to look everywhere
+	 * @return the Drawables to draw, in order, which may include some outside the region.
+	 * This list is reused by the next call.
+	 */
+	private List<Drawable> getDrawablesIn(Rectangle region)
+	{
+		List<Drawable> drawables = document.getSnapshot();
+		if (region == null)
+			return drawables;
+
+		visible.clear();
+		index.search(region, visible);
+		if (visible.size() > drawables.size() / 2)
+			return drawables;
+
+		if (visible.size() > 1)
+		{
+			if (zOrder == null)
+			{
+				zOrder = new IdentityHashMap<>(drawables.size() * 2);
+				for (int j = 0; j < drawables.size(); j++)
+					zOrder.put(drawables.get(j), j);
+			}
+			Collections.sort(visible, zOrderComparator);
+		}
+		return visible;
+	}
+
+
+
+	/**
+	 * Marks the given region of the cached image as out of date and repaints it.
+	 * @param region the damaged region of the drawing, must be non-null
+	 */
+	private void damageCache(Rectangle region)
+	{
+		region = toDamagedPanel(region);
+		if (cacheDamage == null)
+			cacheDamage = region;
+		else
+			cacheDamage.add(region);
+		repaint(region);
+	}
+
+
+
+	/**
+	 * Marks the whole cached image as out of date and repaints the whole panel.
+	 */
+	private void damageAll()
+	{
+		cacheDamage = new Rectangle(0, 0, getWidth(), getHeight());
+		clearInk();
+		repaint();
+	}
+
+
+
+	/**
+	 * Marks the given Pencil as the one the user is drawing. Only Points appended to it
+	 * and changes to its last Point are expected until it stops inking; after those,
+	 * only the new segments are drawn. Once it stops ghosting it is merged into the cached
+	 * image like any other Drawable.
+	 * @param pencil the Pencil being drawn, which should be ghosting, or null if there isn't one
+	 */
+	public void setInking(Pencil pencil)
+	{
+		inking = pencil;
+		clearInk();
+	}
+
+
+
+	/**
+	 * Clears the ink overlay, so that the inking Pencil will be drawn onto it from scratch.
+	 */
+	private void clearInk()
+	{
+		if (inkDirty != null)
+		{
+			Graphics2D inkGraphics = inkOverlay.createGraphics();
+			inkGraphics.setComposite(AlphaComposite.Clear);
+			inkGraphics.fill(inkDirty);
+			inkGraphics.dispose();
+			inkDirty = null;
+		}
+		inkedPoints = 0;
+	}
+
+
+
+	/**
+	 * Draws the inking Pencil. The segments between its Points, except for the last segment,
+	 * are finished, so any which haven't been drawn onto the ink overlay yet are drawn there
+	 * and the overlay is drawn to the panel. The last segment may still move, so it is drawn
+	 * straight to the panel every time.
+	 * @param g the Graphics of the panel, must be non-null
+	 * @param view g with the view transform applied, must be non-null
+	 */
+	private void drawInk(Graphics2D g, Graphics2D view)
+	{
+		if (inkOverlay == null || inkOverlay.getWidth() != getWidth() || inkOverlay.getHeight() != getHeight())
+		{
+			inkOverlay = new BufferedImage(Math.max(1, getWidth()), Math.max(1, getHeight()),
+					BufferedImage.TYPE_INT_ARGB);
+			inkDirty = null;
+			inkedPoints = 0;
+		}
+
+		int last = inking.getPointCount() - 1;
+		if (last < inkedPoints - 1)
+			clearInk(); //Points were taken away, so start again
+
+		Color color = inking.getCurrentColor();
+		if (inkedPoints < last)
+		{
+			Graphics2D inkGraphics = inkOverlay.createGraphics();
+			inkGraphics.setRenderingHints(g.getRenderingHints());
+			inkGraphics.transform(getViewTransform());
+			inkGraphics.setColor(color);
+
+			//the new segments are drawn as one polyline, starting from the last Point already inked
+			int first = Math.max(0, inkedPoints - 1), count = last - first;
+			int[] xs = new int[count], ys = new int[count];
+			Rectangle segments = new Rectangle(inking.getPoint(first));
+			for (int j = 0; j < count; j++)
+			{
+				Point pt = inking.getPoint(first + j);
+				xs[j] = pt.x;
+				ys[j] = pt.y;
+				segments.add(pt);
+			}
+			inkGraphics.drawPolyline(xs, ys, count);
+
+			segments.grow(Drawable.DAMAGE_MARGIN, Drawable.DAMAGE_MARGIN);
+			segments = toDamagedPanel(segments);
+			if (inkDirty == null)
+				inkDirty = segments;
+			else
+				inkDirty.add(segments);
+			inkGraphics.dispose();
+			inkedPoints = last;
+		}
+
+		g.drawImage(inkOverlay, 0, 0, null);
+		if (last > 0)
+		{
+			Point a = inking.getPoint(last - 1), b = inking.getPoint(last);
+			Color oldColor = view.getColor();
+			view.setColor(color);
+			view.drawLine(a.x, a.y, b.x, b.y);
+			view.setColor(oldColor);
+		}
+	}
+
+
+
+	/**
+	 * Marks the given Drawable as the one the user is dragging or rotating.
+	 * Until it stops being the sprite, only its transform is expected to change,
+	 * so it is drawn once into an image which is then moved with the transform.
+	 * @param drawable the Drawable being dragged, which should be ghosting, or null if there isn't one
+	 */
+	public void setSprite(Drawable drawable)
+	{
+		sprite = drawable;
+		spriteImage = null;
+	}
+
+
+
+	/**
+	 * Draws the sprite, drawing it into its image first if that hasn't been done at this zoom.
+	 * The image is drawn with the change in the sprite's transform since it was drawn into the image.
+	 * If the image would be too large, the sprite is drawn directly instead.
+	 * @param g the Graphics of the panel, must be non-null
+	 * @param view g with the view transform applied, must be non-null
+	 */
+	private void drawSprite(Graphics2D g, Graphics2D view)
+	{
+		if ((spriteImage == null || spriteZoom != zoom) && !updateSprite(g))
+		{
+			sprite.draw(view);
+			return;
+		}
+
+		AffineTransform blit = getViewTransform();
+		blit.concatenate(sprite.getTransform());
+		blit.concatenate(spriteInverse);
+		blit.translate(spriteOrigin.x, spriteOrigin.y);
+
+		if ((blit.getType() & ~AffineTransform.TYPE_TRANSLATION) == 0)
+			g.drawImage(spriteImage, blit, null);
+		else
+		{
+			Graphics2D smooth = (Graphics2D)g.create(); //turned, so smooth it out
+			smooth.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+			smooth.drawImage(spriteImage, blit, null);
+			smooth.dispose();
+		}
+	}
+
+
+
+	/**
+	 * Draws the sprite, as it is now, into a new image.
+	 * @param g the Graphics the image will be drawn to, whose rendering hints will be copied
+	 * @return false if the sprite is too large to be drawn into an image, true otherwise
+	 */
+	private boolean updateSprite(Graphics2D g)
+	{
+		spriteImage = null;
+		Rectangle region = toDamagedPanel(getDamageBounds(sprite));
+		if ((long)region.width * region.height > MAX_SPRITE_PIXELS)
+			return false;
+
+		AffineTransform drawn = getViewTransform();
+		drawn.concatenate(sprite.getTransform());
+		try
+		{
+			spriteInverse = drawn.createInverse();
+		}
+		catch (NoninvertibleTransformException ex)
 		{
-			modifier.calculateSelection(drawables);
-			modifier.draw(g);
+			return false; //a Drawable's transform is only ever a translation or rotation
 		}
+
+		spriteImage = new BufferedImage(region.width, region.height, BufferedImage.TYPE_INT_ARGB);
+		spriteOrigin = region.getLocation();
+		spriteZoom = zoom;
+
+		Graphics2D spriteGraphics = spriteImage.createGraphics();
+		spriteGraphics.setRenderingHints(g.getRenderingHints());
+		spriteGraphics.setFont(g.getFont());
+		spriteGraphics.translate(-region.x, -region.y);
+		spriteGraphics.transform(getViewTransform());
+		sprite.draw(spriteGraphics);
+		spriteGraphics.dispose();
+		return true;
+	}
+
+
+
+	/**
+	 * @param region a damaged region of the drawing, must be non-null
+	 * @return the region of the panel which needs repainting, with an extra pixel
+	 * on each side in case the view rounds the Drawables onto different pixels
+	 */
+	private Rectangle toDamagedPanel(Rectangle region)
+	{
+		Rectangle panelRegion = toPanel(region);
+		panelRegion.grow(1, 1);
+		return panelRegion;
+	}
+
+
+
+	/**
+	 * @return the region covered by the given Drawable, including DAMAGE_MARGIN
+	 */
+	private static Rectangle getDamageBounds(Drawable drawable)
+	{
+		Rectangle region = drawable.getBounds();
+		region.grow(Drawable.DAMAGE_MARGIN, Drawable.DAMAGE_MARGIN);
+		return region;
+	}
+
+
+
+	/**
+	 * Called when a Drawable in the list changes. The damaged region is repainted,
+	 * and if that Drawable is in the cached image, that region of it will be redrawn too.
+	 * @param drawable the Drawable that changed
+	 * @param damaged the region covering both how the Drawable used to look and how it looks now
+	 */
+	@Override
+	public void drawableChanged(Drawable drawable, Rectangle damaged)
+	{
+		index.changed(drawable);
+		if (drawable.isGhosting())
+			repaint(toDamagedPanel(damaged));
+		else
+			damageCache(damaged);
+	}
+
+
+
+	/**
+	 * Called when a Drawable in the list starts or stops ghosting,
+	 * which means it either leaves or joins the cached image.
+	 * @param drawable the Drawable that changed
+	 */
+	@Override
+	public void ghostingChanged(Drawable drawable)
+	{
+		damageCache(getDamageBounds(drawable));
 	}
 
 
@@ -65,32 +813,150 @@ public class DrawingPanel extends JPanel
 	 * If this is null, this method does nothing.
 	 */
 	public void add(Drawable drawable)
+	{
+		add(document.size(), drawable);
+	}
+
+
+
+	/**
+	 * Inserts the given Drawable into the list at the given position,
+	 * so that it is drawn after the Drawables before it and underneath the ones after it.
+	 * @param position where to insert the Drawable, from 0 to the number of Drawables
+	 * @param drawable the Drawable to add to the list.
+	 * If this is null, this method does nothing.
+	 */
+	public void add(int position, Drawable drawable)
 	{
 		if (drawable != null)
-			drawables.add(drawable);
+		{
+			document.add(position, drawable);
+			index.add(drawable);
+			if (zOrder != null && position == document.size() - 1)
+				zOrder.put(drawable, position);
+			else
+				zOrder = null;
+			drawable.setDrawableListener(this);
+			damageCache(getDamageBounds(drawable));
+		}
 	}
-	
-	
-	
+
+
+
+	/**
+	 * @param drawable the Drawable to look for
+	 * @return the position of the given Drawable in the list, or -1 if it is not in the list
+	 */
+	public int indexOf(Drawable drawable)
+	{
+		return document.indexOf(drawable);
+	}
+
+
+
+	/**
+	 * Removes the given Drawable from the list.
+	 * @param drawable the Drawable to remove from the list.
+	 * If this is null or not in the list, this method does nothing.
+	 */
+	public void remove(Drawable drawable)
+	{
+		if (document.remove(drawable))
+		{
+			index.remove(drawable);
+			zOrder = null;
+			drawable.setDrawableListener(null);
+			damageCache(getDamageBounds(drawable));
+		}
+	}
+
+
+
+	/**
+	 * Removes every one of the given Drawables which is in the list, all at once.
+	 * @param drawables the Drawables to remove, in any order, must be non-null
+	 * @param removed where to add the Drawables which were removed, in the order they were in the list. Must be non-null.
+	 * @return the positions the removed Drawables were at, in increasing order, for putting them back with addAll
+	 */
+	public int[] removeAll(Collection<Drawable> drawables, List<Drawable> removed)
+	{
+		int first = removed.size();
+		int[] positions = document.removeAll(drawables, removed);
+		if (positions.length > 0)
+			zOrder = null;
+		for (Drawable drawable : removed.subList(first, removed.size()))
+		{
+			index.remove(drawable);
+			drawable.setDrawableListener(null);
+			damageCache(getDamageBounds(drawable));
+		}
+		return positions;
+	}
+
+
+
+	/**
+	 * Puts back Drawables removed by removeAll, where they were before, all at once.
+	 * @param positions the positions the Drawables were at, in increasing order, as returned by removeAll
+	 * @param drawables the Drawables, in the order they were in the list, must be non-null
+	 */
+	public void addAll(int[] positions, List<Drawable> drawables)
+	{
+		document.addAll(positions, drawables);
+		zOrder = null;
+		for (Drawable drawable : drawables)
+		{
+			index.add(drawable);
+			drawable.setDrawableListener(this);
+			damageCache(getDamageBounds(drawable));
+		}
+	}
+
+
+
 	/**
 	 * @return a deep copy of the list of Drawables. All Drawables will be cloned
 	 */
-	public ArrayList getDrawableList()
+	public ArrayList<Drawable> getDrawableList()
 	{
-		ArrayList temp = new ArrayList(drawables.size());
+		List<Drawable> drawables = document.getSnapshot();
+		ArrayList<Drawable> temp = new ArrayList<>(drawables.size());
 		for (int j = 0; j < drawables.size(); j++)
 			temp.add(drawables.get(j).clone());
 		return temp;
 	}
-	
-	
-	
+
+
+
+	/**
+	 * @return the DrawingDocument holding the list of Drawables, which can provide
+	 * Snapshots of the list and frozen copies of the drawing for background work
+	 */
+	public DrawingDocument getDocument()
+	{
+		return document;
+	}
+
+
+
 	/**
 	 * Sets the list of Drawables to the given list.
+	 * The list is copied, so changing it afterwards doesn't change the DrawingPanel.
 	 * @param list the new list of Drawables
 	 */
-	public void setDrawableList(ArrayList list)
+	public void setDrawableList(List<Drawable> list)
 	{
-		drawables = list;
+		for (Drawable drawable : document.getSnapshot())
+			drawable.setDrawableListener(null);
+
+		document.setDrawables(list);
+		zOrder = null;
+		index.clear();
+		for (Drawable drawable : document.getSnapshot())
+		{
+			index.add(drawable);
+			drawable.setDrawableListener(this);
+		}
+		damageAll();
 	}
 }
@@ -0,0 +1,84 @@
+
+package victorypaint.Edits;
+
+import victorypaint.Drawables.Drawable;
+import victorypaint.DrawingPanel;
+
+/**
+ * An AddEdit records that a Drawable was added to a DrawingPanel,
+ * either by being created or by being copied.
+ * Undoing it removes the Drawable, and redoing it puts the Drawable back where it was in the list.
+ * @author Jesse Victors, A01485921
+ */
+public class AddEdit extends DrawableEdit
+{
+	/**
+	 * The DrawingPanel the Drawable was added to
+	 */
+	private DrawingPanel drawingPanel;
+	
+	/**
+	 * Where the Drawable is in the DrawingPanel's list
+	 */
+	private int index;
+	
+	
+	/**
+	 * Constructs an AddEdit for a Drawable which has just been added to the given DrawingPanel.
+	 * @param panel the DrawingPanel holding the Drawable, must be non-null
+	 * @param drawable the Drawable which was added, must be non-null
+	 */
+	public AddEdit(DrawingPanel panel, Drawable drawable)
+	{
+		super(drawable);
+		drawingPanel = panel;
+		index = panel.indexOf(drawable);
+	}
+
+
+
+	/**
+	 * Removes the Drawable from the DrawingPanel.
+	 */
+	@Override
+	public void undo()
+	{
+		super.undo();
+		index = drawingPanel.indexOf(drawable);
+		drawingPanel.remove(drawable);
+	}
+
+
+
+	/**
+	 * Adds the Drawable back to the DrawingPanel, where it was before it was removed.
+	 */
+	@Override
+	public void redo()
+	{
+		super.redo();
+		drawingPanel.add(index, drawable);
+	}
+
+
+
+	/**
+	 * @return "Add"
+	 */
+	@Override
+	public String getPresentationName()
+	{
+		return "Add";
+	}
+
+
+
+	/**
+	 * @return the estimated size of the Drawable, since it is only kept alive by this edit once undone
+	 */
+	@Override
+	public long getMemorySize()
+	{
+		return sizeOf(drawable);
+	}
+}
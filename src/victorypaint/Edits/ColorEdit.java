@@ -0,0 +1,77 @@
+
+package victorypaint.Edits;
+
+import java.awt.Color;
+import victorypaint.Drawables.Drawable;
+
+/**
+ * A ColorEdit records that the default color of a Drawable was changed.
+ * @author Jesse Victors, A01485921
+ */
+public class ColorEdit extends DrawableEdit
+{
+	/**
+	 * The default color of the Drawable before and after it was changed
+	 */
+	private Color oldColor, newColor;
+	
+	
+	/**
+	 * Constructs a ColorEdit for a Drawable whose default color has just been changed.
+	 * @param drawable the Drawable which was changed, must be non-null
+	 * @param oldColor its previous default color
+	 * @param newColor its current default color
+	 */
+	public ColorEdit(Drawable drawable, Color oldColor, Color newColor)
+	{
+		super(drawable);
+		this.oldColor = oldColor;
+		this.newColor = newColor;
+	}
+
+
+
+	/**
+	 * Changes the Drawable back to its previous default color.
+	 */
+	@Override
+	public void undo()
+	{
+		super.undo();
+		drawable.setDefaultColor(oldColor);
+	}
+
+
+
+	/**
+	 * Changes the Drawable to its new default color again.
+	 */
+	@Override
+	public void redo()
+	{
+		super.redo();
+		drawable.setDefaultColor(newColor);
+	}
+
+
+
+	/**
+	 * @return "Color"
+	 */
+	@Override
+	public String getPresentationName()
+	{
+		return "Color";
+	}
+
+
+
+	/**
+	 * @return the overhead of an edit, since Colors are small and often shared
+	 */
+	@Override
+	public long getMemorySize()
+	{
+		return EDIT_OVERHEAD;
+	}
+}
@@ -0,0 +1,102 @@
+
+package victorypaint.Edits;
+
+import java.util.ArrayList;
+import victorypaint.Drawables.Drawable;
+import victorypaint.DrawingPanel;
+
+/**
+ * A DocumentEdit records that the whole list of Drawables in a DrawingPanel was replaced,
+ * such as by starting a new drawing or opening a saved one.
+ * The lists themselves are remembered rather than copies of them.
+ * @author Jesse Victors, A01485921
+ */
+public class DocumentEdit extends DrawableEdit
+{
+	/**
+	 * The DrawingPanel whose list was replaced
+	 */
+	private DrawingPanel drawingPanel;
+	
+	/**
+	 * The list of Drawables before and after it was replaced
+	 */
+	private ArrayList<Drawable> oldList, newList;
+	
+	/**
+	 * What the user did to replace the list
+	 */
+	private String presentationName;
+	
+	/**
+	 * The estimated size of the old list, measured once since it may be very large
+	 */
+	private long memorySize = EDIT_OVERHEAD;
+	
+	
+	/**
+	 * Constructs a DocumentEdit for a DrawingPanel whose list of Drawables has just been replaced.
+	 * @param panel the DrawingPanel whose list was replaced, must be non-null
+	 * @param oldList the list of Drawables it used to have, must be non-null
+	 * @param newList the list of Drawables it has now, must be non-null
+	 * @param presentationName what the user did to replace the list, such as "New"
+	 */
+	public DocumentEdit(DrawingPanel panel, ArrayList<Drawable> oldList, ArrayList<Drawable> newList,
+			String presentationName)
+	{
+		super(null);
+		drawingPanel = panel;
+		this.oldList = oldList;
+		this.newList = newList;
+		this.presentationName = presentationName;
+		
+		for (Drawable d : oldList)
+			memorySize += sizeOf(d);
+	}
+
+
+
+	/**
+	 * Gives the DrawingPanel back the list of Drawables it used to have.
+	 */
+	@Override
+	public void undo()
+	{
+		super.undo();
+		drawingPanel.setDrawableList(oldList);
+	}
+
+
+
+	/**
+	 * Gives the DrawingPanel the list of Drawables it was given again.
+	 */
+	@Override
+	public void redo()
+	{
+		super.redo();
+		drawingPanel.setDrawableList(newList);
+	}
+
+
+
+	/**
+	 * @return the name given to the constructor
+	 */
+	@Override
+	public String getPresentationName()
+	{
+		return presentationName;
+	}
+
+
+
+	/**
+	 * @return the overhead of an edit plus the estimated size of the old list
+	 */
+	@Override
+	public long getMemorySize()
+	{
+		return memorySize;
+	}
+}
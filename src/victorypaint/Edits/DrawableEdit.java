@@ -0,0 +1,64 @@
+
+package victorypaint.Edits;
+
+import javax.swing.undo.AbstractUndoableEdit;
+import victorypaint.Drawables.Drawable;
+
+/**
+ * The superclass for all undoable changes to the Drawables.
+ * Rather than remembering the whole drawing, each DrawableEdit remembers only
+ * what changed, so undoing or redoing it costs as much as the change did.
+ * Each DrawableEdit also estimates how much memory it holds onto,
+ * so that UndoHistory can forget the oldest edits once they add up to too much.
+ * @author Jesse Victors, A01485921
+ */
+public abstract class DrawableEdit extends AbstractUndoableEdit
+{
+	/**
+	 * A rough estimate, in bytes, of the memory used by any edit regardless of what it holds.
+	 */
+	protected static final long EDIT_OVERHEAD = 64;
+	
+	/**
+	 * The Drawable which was changed, or null if the edit changed the whole drawing or several Drawables
+	 */
+	protected final Drawable drawable;
+	
+	
+	/**
+	 * Constructs a DrawableEdit which changed the given Drawable.
+	 * @param drawable the Drawable which was changed, or null if the whole drawing or several Drawables were changed
+	 */
+	public DrawableEdit(Drawable drawable)
+	{
+		this.drawable = drawable;
+	}
+
+
+
+	/**
+	 * @return the Drawable which was changed, or null if the whole drawing or several Drawables were changed
+	 */
+	public Drawable getDrawable()
+	{
+		return drawable;
+	}
+
+
+
+	/**
+	 * @return a rough estimate, in bytes, of the memory kept alive by this edit
+	 */
+	public abstract long getMemorySize();
+
+
+
+	/**
+	 * @param drawable the Drawable to measure, must be non-null
+	 * @return a rough estimate, in bytes, of the memory used by the given Drawable
+	 */
+	protected static long sizeOf(Drawable drawable)
+	{
+		return EDIT_OVERHEAD + 8L * drawable.getPointCount();
+	}
+}
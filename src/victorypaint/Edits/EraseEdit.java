@@ -0,0 +1,104 @@
+
+package victorypaint.Edits;
+
+import java.util.ArrayList;
+import java.util.List;
+import victorypaint.Drawables.Drawable;
+import victorypaint.DrawingPanel;
+
+/**
+ * An EraseEdit records that several Drawables were removed from a DrawingPanel at once,
+ * such as by sweeping the mouse across them. Undoing it puts them all back where they were in the list,
+ * so they are drawn in the same order, and redoing it removes them all again.
+ * @author Jesse Victors, A01485921
+ */
+public class EraseEdit extends DrawableEdit
+{
+	/**
+	 * The DrawingPanel the Drawables were removed from
+	 */
+	private DrawingPanel drawingPanel;
+
+	/**
+	 * The Drawables which were removed, in the order they were in the list
+	 */
+	private List<Drawable> drawables;
+
+	/**
+	 * Where the Drawables were in the DrawingPanel's list, in increasing order
+	 */
+	private int[] positions;
+
+	/**
+	 * The estimated size of the Drawables, measured once since there may be many of them
+	 */
+	private long memorySize = EDIT_OVERHEAD;
+
+
+	/**
+	 * Constructs an EraseEdit for Drawables which have just been removed from the given DrawingPanel
+	 * with DrawingPanel.removeAll.
+	 * @param panel the DrawingPanel which held the Drawables, must be non-null
+	 * @param drawables the Drawables which were removed, in the order they were in the list, must be non-null
+	 * @param positions where the Drawables were in the list, as returned by DrawingPanel.removeAll
+	 */
+	public EraseEdit(DrawingPanel panel, List<Drawable> drawables, int[] positions)
+	{
+		super(null);
+		drawingPanel = panel;
+		this.drawables = drawables;
+		this.positions = positions;
+
+		for (Drawable d : drawables)
+			memorySize += sizeOf(d);
+	}
+
+
+
+	/**
+	 * Adds the Drawables back to the DrawingPanel, where they were before they were removed.
+	 */
+	@Override
+	public void undo()
+	{
+		super.undo();
+		drawingPanel.addAll(positions, drawables);
+	}
+
+
+
+	/**
+	 * Removes the Drawables from the DrawingPanel again.
+	 */
+	@Override
+	public void redo()
+	{
+		super.redo();
+		List<Drawable> removed = new ArrayList<>(drawables.size());
+		positions = drawingPanel.removeAll(drawables, removed);
+		drawables = removed;
+	}
+
+
+
+	/**
+	 * @return "Erase"
+	 */
+	@Override
+	public String getPresentationName()
+	{
+		return "Erase";
+	}
+
+
+
+	/**
+	 * @return the overhead of an edit plus the estimated size of the Drawables,
+	 * since they are only kept alive by this edit
+	 */
+	@Override
+	public long getMemorySize()
+	{
+		return memorySize;
+	}
+}
@@ -0,0 +1,84 @@
+
+package victorypaint.Edits;
+
+import java.awt.Point;
+import victorypaint.Drawables.Drawable;
+
+/**
+ * A PointEdit records that a single Point of a Drawable was moved.
+ * @author Jesse Victors, A01485921
+ */
+public class PointEdit extends DrawableEdit
+{
+	/**
+	 * The index of the Point which was moved
+	 */
+	private int index;
+	
+	/**
+	 * Where the Point was before and after it was moved
+	 */
+	private Point oldPoint, newPoint;
+	
+	
+	/**
+	 * Constructs a PointEdit for a Point of a Drawable which has just been moved.
+	 * @param drawable the Drawable whose Point was moved, must be non-null
+	 * @param index the index of the Point which was moved
+	 * @param oldPoint where the Point used to be, must be non-null
+	 * @param newPoint where the Point is now, must be non-null
+	 */
+	public PointEdit(Drawable drawable, int index, Point oldPoint, Point newPoint)
+	{
+		super(drawable);
+		this.index = index;
+		this.oldPoint = new Point(oldPoint);
+		this.newPoint = new Point(newPoint);
+	}
+
+
+
+	/**
+	 * Moves the Point back to where it used to be.
+	 */
+	@Override
+	public void undo()
+	{
+		super.undo();
+		drawable.setPoint(index, oldPoint);
+	}
+
+
+
+	/**
+	 * Moves the Point to where it was moved to again.
+	 */
+	@Override
+	public void redo()
+	{
+		super.redo();
+		drawable.setPoint(index, newPoint);
+	}
+
+
+
+	/**
+	 * @return "Modify"
+	 */
+	@Override
+	public String getPresentationName()
+	{
+		return "Modify";
+	}
+
+
+
+	/**
+	 * @return the overhead of an edit plus the two Points
+	 */
+	@Override
+	public long getMemorySize()
+	{
+		return EDIT_OVERHEAD + 2 * 24;
+	}
+}
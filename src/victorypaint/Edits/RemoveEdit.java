@@ -0,0 +1,85 @@
+
+package victorypaint.Edits;
+
+import victorypaint.Drawables.Drawable;
+import victorypaint.DrawingPanel;
+
+/**
+ * A RemoveEdit records that a Drawable was removed from a DrawingPanel.
+ * Undoing it puts the Drawable back where it was in the list, so it is drawn in the same order,
+ * and redoing it removes the Drawable again.
+ * @author Jesse Victors, A01485921
+ */
+public class RemoveEdit extends DrawableEdit
+{
+	/**
+	 * The DrawingPanel the Drawable was removed from
+	 */
+	private DrawingPanel drawingPanel;
+	
+	/**
+	 * Where the Drawable was in the DrawingPanel's list
+	 */
+	private int index;
+	
+	
+	/**
+	 * Constructs a RemoveEdit for a Drawable which has just been removed from the given DrawingPanel.
+	 * @param panel the DrawingPanel which held the Drawable, must be non-null
+	 * @param drawable the Drawable which was removed, must be non-null
+	 * @param index where the Drawable was in the DrawingPanel's list
+	 */
+	public RemoveEdit(DrawingPanel panel, Drawable drawable, int index)
+	{
+		super(drawable);
+		drawingPanel = panel;
+		this.index = index;
+	}
+
+
+
+	/**
+	 * Adds the Drawable back to the DrawingPanel, where it was before it was removed.
+	 */
+	@Override
+	public void undo()
+	{
+		super.undo();
+		drawingPanel.add(index, drawable);
+	}
+
+
+
+	/**
+	 * Removes the Drawable from the DrawingPanel again.
+	 */
+	@Override
+	public void redo()
+	{
+		super.redo();
+		index = drawingPanel.indexOf(drawable);
+		drawingPanel.remove(drawable);
+	}
+
+
+
+	/**
+	 * @return "Delete"
+	 */
+	@Override
+	public String getPresentationName()
+	{
+		return "Delete";
+	}
+
+
+
+	/**
+	 * @return the estimated size of the Drawable, since it is only kept alive by this edit
+	 */
+	@Override
+	public long getMemorySize()
+	{
+		return sizeOf(drawable);
+	}
+}
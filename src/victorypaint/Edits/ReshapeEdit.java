@@ -0,0 +1,79 @@
+
+package victorypaint.Edits;
+
+import victorypaint.Drawables.Drawable;
+import victorypaint.Drawables.PointList;
+
+/**
+ * A ReshapeEdit records that many of the Points of a Drawable were moved at once,
+ * such as when it is rotated. Both the old and the new Points are remembered,
+ * since the change can't be reversed exactly once the Points have been rounded.
+ * @author Jesse Victors, A01485921
+ */
+public class ReshapeEdit extends DrawableEdit
+{
+	/**
+	 * The Points of the Drawable before and after it was reshaped
+	 */
+	private PointList oldPoints, newPoints;
+	
+	
+	/**
+	 * Constructs a ReshapeEdit for a Drawable which has just been reshaped.
+	 * @param drawable the Drawable which was reshaped, must be non-null
+	 * @param oldPoints the Points it used to have, which will not be copied
+	 * @param newPoints the Points it has now, which will not be copied
+	 */
+	public ReshapeEdit(Drawable drawable, PointList oldPoints, PointList newPoints)
+	{
+		super(drawable);
+		this.oldPoints = oldPoints;
+		this.newPoints = newPoints;
+	}
+
+
+
+	/**
+	 * Gives the Drawable back the Points it used to have.
+	 */
+	@Override
+	public void undo()
+	{
+		super.undo();
+		drawable.setPointList(oldPoints);
+	}
+
+
+
+	/**
+	 * Gives the Drawable the Points it was reshaped to again.
+	 */
+	@Override
+	public void redo()
+	{
+		super.redo();
+		drawable.setPointList(newPoints);
+	}
+
+
+
+	/**
+	 * @return "Rotate"
+	 */
+	@Override
+	public String getPresentationName()
+	{
+		return "Rotate";
+	}
+
+
+
+	/**
+	 * @return the overhead of an edit plus both sets of Points
+	 */
+	@Override
+	public long getMemorySize()
+	{
+		return EDIT_OVERHEAD + 8L * (oldPoints.size() + newPoints.size());
+	}
+}
@@ -0,0 +1,89 @@
+
+package victorypaint.Edits;
+
+import java.awt.Point;
+import victorypaint.Drawables.Drawable;
+
+/**
+ * A TranslateEdit records that a Drawable was moved by some distance.
+ * Only the distance is remembered, so it costs the same no matter how many Points the Drawable has.
+ * @author Jesse Victors, A01485921
+ */
+public class TranslateEdit extends DrawableEdit
+{
+	/**
+	 * How far the Drawable was moved
+	 */
+	private int dx, dy;
+	
+	
+	/**
+	 * Constructs a TranslateEdit for a Drawable which has just been moved by the given distance.
+	 * @param drawable the Drawable which was moved, must be non-null
+	 * @param dx the distance it was moved along the x axis
+	 * @param dy the distance it was moved along the y axis
+	 */
+	public TranslateEdit(Drawable drawable, int dx, int dy)
+	{
+		super(drawable);
+		this.dx = dx;
+		this.dy = dy;
+	}
+
+
+
+	/**
+	 * Moves the Drawable back by the distance it was moved.
+	 */
+	@Override
+	public void undo()
+	{
+		super.undo();
+		translate(-dx, -dy);
+	}
+
+
+
+	/**
+	 * Moves the Drawable by the distance it was moved again.
+	 */
+	@Override
+	public void redo()
+	{
+		super.redo();
+		translate(dx, dy);
+	}
+
+
+
+	/**
+	 * Moves the Drawable by the given distance.
+	 */
+	private void translate(int x, int y)
+	{
+		Point loc = drawable.getLocation();
+		drawable.setLocation(new Point(loc.x + x, loc.y + y));
+	}
+
+
+
+	/**
+	 * @return "Translate"
+	 */
+	@Override
+	public String getPresentationName()
+	{
+		return "Translate";
+	}
+
+
+
+	/**
+	 * @return the overhead of an edit, since only the distance is stored
+	 */
+	@Override
+	public long getMemorySize()
+	{
+		return EDIT_OVERHEAD;
+	}
+}
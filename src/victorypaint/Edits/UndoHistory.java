@@ -0,0 +1,116 @@
+
+package victorypaint.Edits;
+
+import javax.swing.undo.UndoManager;
+import javax.swing.undo.UndoableEdit;
+
+/**
+ * An UndoHistory is an UndoManager which limits the memory its edits hold onto,
+ * rather than just how many edits it holds. Whenever a new edit pushes the total
+ * estimated size of its edits past the limit, the oldest edits are forgotten.
+ * The most recent edit is always kept, however large it is.
+ * Only DrawableEdits are measured; any other kind of edit is treated as free.
+ * @author Jesse Victors, A01485921
+ */
+public class UndoHistory extends UndoManager
+{
+	/**
+	 * The default memory limit, in bytes, of 16 MB
+	 */
+	public static final long DEFAULT_MEMORY_LIMIT = 16L << 20;
+	
+	/**
+	 * The most memory, in bytes, the edits may hold onto
+	 */
+	private long memoryLimit;
+	
+	
+	/**
+	 * Constructs an UndoHistory with the given memory limit.
+	 * @param memoryLimit the most memory, in bytes, the edits may hold onto
+	 */
+	public UndoHistory(long memoryLimit)
+	{
+		this.memoryLimit = memoryLimit;
+		setLimit(Integer.MAX_VALUE); //the memory limit is what matters
+	}
+
+
+
+	/**
+	 * @return the most memory, in bytes, the edits may hold onto
+	 */
+	public synchronized long getMemoryLimit()
+	{
+		return memoryLimit;
+	}
+
+
+
+	/**
+	 * Changes the memory limit, forgetting the oldest edits if they now hold onto too much.
+	 * @param memoryLimit the most memory, in bytes, the edits may hold onto
+	 */
+	public synchronized void setMemoryLimit(long memoryLimit)
+	{
+		this.memoryLimit = memoryLimit;
+		trimForMemoryLimit();
+	}
+
+
+
+	/**
+	 * @return the estimated memory, in bytes, the edits are holding onto
+	 */
+	public synchronized long getMemorySize()
+	{
+		long size = 0;
+		for (UndoableEdit edit : edits)
+			size += sizeOf(edit);
+		return size;
+	}
+
+
+
+	/**
+	 * Adds the given edit, forgetting any edits which could have been redone,
+	 * and then the oldest edits if the total is now over the memory limit.
+	 * @param edit the edit to add
+	 * @return true if the edit was added
+	 */
+	@Override
+	public synchronized boolean addEdit(UndoableEdit edit)
+	{
+		boolean added = super.addEdit(edit);
+		trimForMemoryLimit();
+		return added;
+	}
+
+
+
+	/**
+	 * Forgets the oldest edits until the rest fit within the memory limit,
+	 * always keeping the most recent one.
+	 */
+	private void trimForMemoryLimit()
+	{
+		long size = getMemorySize();
+		while (size > memoryLimit && edits.size() > 1)
+		{
+			size -= sizeOf(edits.firstElement());
+			trimEdits(0, 0);
+		}
+	}
+
+
+
+	/**
+	 * @return the estimated memory, in bytes, held onto by the given edit
+	 */
+	private static long sizeOf(UndoableEdit edit)
+	{
+		if (edit instanceof DrawableEdit)
+			return ((DrawableEdit)edit).getMemorySize();
+		return 0;
+	}
+}
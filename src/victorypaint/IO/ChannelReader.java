@@ -0,0 +1,144 @@
+
+package victorypaint.IO;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Arrays;
+
+/**
+ * A ChannelReader reads from a channel into a ByteBuffer, and then reads
+ * the bytes, ints, and variable-length integers written by a ChannelWriter from that buffer.
+ * @author Jesse Victors, A01485921
+ */
+class ChannelReader
+{
+	/**
+	 * The most bytes allocated for an array before they have actually been read,
+	 * so that a corrupt length can't allocate far more memory than the channel holds
+	 */
+	private static final int INITIAL_ARRAY_SIZE = 1 << 16;
+	
+	/**
+	 * The channel to read from
+	 */
+	private ReadableByteChannel channel;
+	
+	/**
+	 * Holds bytes which have been read from the channel but not yet used
+	 */
+	private ByteBuffer buffer = ByteBuffer.allocateDirect(ChannelWriter.BUFFER_SIZE);
+	
+	
+	/**
+	 * Constructs a ChannelReader which reads from the given channel.
+	 * @param channel the channel to read from, must be non-null
+	 */
+	ChannelReader(ReadableByteChannel channel)
+	{
+		this.channel = channel;
+		buffer.flip(); //start out empty
+	}
+
+
+
+	/**
+	 * @return the next byte, from 0 to 255
+	 * @throws IOException if the channel can't be read from or has ended
+	 */
+	int readByte() throws IOException
+	{
+		ensureRemaining(1);
+		return buffer.get() & 0xFF;
+	}
+
+
+
+	/**
+	 * @return the next four bytes as an int, most significant first
+	 * @throws IOException if the channel can't be read from or has ended
+	 */
+	int readInt() throws IOException
+	{
+		ensureRemaining(4);
+		return buffer.getInt();
+	}
+
+
+
+	/**
+	 * @return the next variable-length integer, as written by ChannelWriter.writeVarInt
+	 * @throws IOException if the channel can't be read from or has ended,
+	 * or if the integer is longer than five bytes
+	 */
+	int readVarInt() throws IOException
+	{
+		int n = 0;
+		for (int shift = 0; shift < 32; shift += 7)
+		{
+			int b = readByte();
+			n |= (b & 0x7F) << shift;
+			if ((b & 0x80) == 0)
+				return n;
+		}
+		throw new IOException("Malformed variable-length integer");
+	}
+
+
+
+	/**
+	 * @return the next zigzag-encoded variable-length integer,
+	 * as written by ChannelWriter.writeSignedVarInt
+	 * @throws IOException if the channel can't be read from or has ended
+	 */
+	int readSignedVarInt() throws IOException
+	{
+		int n = readVarInt();
+		return (n >>> 1) ^ -(n & 1);
+	}
+
+
+
+	/**
+	 * The array grows as its bytes are read, rather than being allocated at its full length up front.
+	 * @return the next array of bytes, as written by ChannelWriter.writeByteArray
+	 * @throws IOException if the channel can't be read from or has ended
+	 */
+	byte[] readByteArray() throws IOException
+	{
+		int length = readVarInt();
+		if (length < 0)
+			throw new IOException("Negative array length: " + length);
+		
+		byte[] bytes = new byte[Math.min(length, INITIAL_ARRAY_SIZE)];
+		int offset = 0;
+		while (offset < length)
+		{
+			ensureRemaining(1);
+			if (offset == bytes.length)
+				bytes = Arrays.copyOf(bytes, (int)Math.min(length, 2L * bytes.length));
+			int chunk = Math.min(buffer.remaining(), bytes.length - offset);
+			buffer.get(bytes, offset, chunk);
+			offset += chunk;
+		}
+		return bytes;
+	}
+
+
+
+	/**
+	 * Reads from the channel until the buffer holds at least the given number of bytes.
+	 */
+	private void ensureRemaining(int bytes) throws IOException
+	{
+		if (buffer.remaining() >= bytes)
+			return;
+		
+		buffer.compact();
+		while (buffer.position() < bytes)
+			if (channel.read(buffer) < 0)
+				throw new EOFException("Unexpected end of drawing");
+		buffer.flip();
+	}
+}
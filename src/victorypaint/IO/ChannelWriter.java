@@ -0,0 +1,146 @@
+
+package victorypaint.IO;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * A ChannelWriter collects bytes, ints, and variable-length integers in a ByteBuffer,
+ * and writes the buffer to a channel whenever it fills up.
+ * Variable-length integers take one byte for every seven bits they need,
+ * so small numbers such as the distance between neighbouring Points take a single byte.
+ * @author Jesse Victors, A01485921
+ */
+class ChannelWriter
+{
+	/**
+	 * The size of the buffer, in bytes
+	 */
+	static final int BUFFER_SIZE = 1 << 16;
+	
+	/**
+	 * The channel to write to
+	 */
+	private WritableByteChannel channel;
+	
+	/**
+	 * Holds bytes which haven't been written to the channel yet
+	 */
+	private ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+	
+	
+	/**
+	 * Constructs a ChannelWriter which writes to the given channel.
+	 * @param channel the channel to write to, must be non-null
+	 */
+	ChannelWriter(WritableByteChannel channel)
+	{
+		this.channel = channel;
+	}
+
+
+
+	/**
+	 * Writes the given byte.
+	 * @param b the byte to write
+	 * @throws IOException if the channel can't be written to
+	 */
+	void writeByte(int b) throws IOException
+	{
+		ensureRemaining(1);
+		buffer.put((byte)b);
+	}
+
+
+
+	/**
+	 * Writes the given int as four bytes, most significant first.
+	 * @param n the int to write
+	 * @throws IOException if the channel can't be written to
+	 */
+	void writeInt(int n) throws IOException
+	{
+		ensureRemaining(4);
+		buffer.putInt(n);
+	}
+
+
+
+	/**
+	 * Writes the given int as a variable-length integer, seven bits per byte,
+	 * with the high bit of each byte set if another byte follows.
+	 * Negative numbers always take five bytes; use writeSignedVarInt for those.
+	 * @param n the int to write
+	 * @throws IOException if the channel can't be written to
+	 */
+	void writeVarInt(int n) throws IOException
+	{
+		ensureRemaining(5);
+		while ((n & ~0x7F) != 0)
+		{
+			buffer.put((byte)((n & 0x7F) | 0x80));
+			n >>>= 7;
+		}
+		buffer.put((byte)n);
+	}
+
+
+
+	/**
+	 * Writes the given int as a zigzag-encoded variable-length integer,
+	 * so that numbers close to zero take few bytes whether they are positive or negative.
+	 * @param n the int to write
+	 * @throws IOException if the channel can't be written to
+	 */
+	void writeSignedVarInt(int n) throws IOException
+	{
+		writeVarInt((n << 1) ^ (n >> 31));
+	}
+
+
+
+	/**
+	 * Writes the given bytes, preceded by how many there are.
+	 * @param bytes the bytes to write, must be non-null
+	 * @throws IOException if the channel can't be written to
+	 */
+	void writeByteArray(byte[] bytes) throws IOException
+	{
+		writeVarInt(bytes.length);
+		int offset = 0;
+		while (offset < bytes.length)
+		{
+			if (!buffer.hasRemaining())
+				flush();
+			int length = Math.min(buffer.remaining(), bytes.length - offset);
+			buffer.put(bytes, offset, length);
+			offset += length;
+		}
+	}
+
+
+
+	/**
+	 * Writes everything in the buffer to the channel.
+	 * @throws IOException if the channel can't be written to
+	 */
+	void flush() throws IOException
+	{
+		buffer.flip();
+		while (buffer.hasRemaining())
+			channel.write(buffer);
+		buffer.clear();
+	}
+
+
+
+	/**
+	 * Flushes the buffer if it has room for fewer than the given number of bytes.
+	 */
+	private void ensureRemaining(int bytes) throws IOException
+	{
+		if (buffer.remaining() < bytes)
+			flush();
+	}
+}
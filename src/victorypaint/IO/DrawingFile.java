@@ -0,0 +1,424 @@
+
+package victorypaint.IO;
+
+import java.awt.Color;
+import java.awt.Point;
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.ObjectInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import victorypaint.Drawables.Curve;
+import victorypaint.Drawables.Drawable;
+import victorypaint.Drawables.LineSegment;
+import victorypaint.Drawables.Pencil;
+import victorypaint.Drawables.PointList;
+import victorypaint.Drawables.TextBox;
+
+/**
+ * Saves and opens drawings in Victory Paint's own binary format,
+ * which doesn't depend on how the Drawable classes are laid out.
+ * A drawing file consists of:
+ * <ul>
+ * <li>the MAGIC number and a one-byte VERSION</li>
+ * <li>a table of every distinct Color used, each as an ARGB int</li>
+ * <li>the Drawables, each as a type byte, an index into the Color table, and its Points.
+ * The Points are stored as the difference from the previous Point, zigzag-encoded
+ * as variable-length integers, so a typical Pencil stroke takes two bytes per Point.
+ * A TextBox stores only its location, followed by its text as UTF-8.</li>
+ * </ul>
+ * Version 2 added Curves, so a drawing is only written as version 2 if it has a Curve in it.
+ * Files of every earlier version can still be opened.
+ * All counts are variable-length integers. Files written with ObjectOutputStream,
+ * as older versions did, are still recognized and opened.
+ * Saving and opening may report their progress to a DrawingProgress, which can also cancel them.
+ * @author Jesse Victors, A01485921
+ */
+public final class DrawingFile
+{
+	/**
+	 * The first four bytes of every drawing file, "VPDF" in ASCII
+	 */
+	public static final int MAGIC = 0x56504446;
+	
+	/**
+	 * The newest version of the format, which is written by this class whenever a drawing has a Curve in it
+	 */
+	public static final int VERSION = 2;
+	
+	/**
+	 * The first two bytes of a Java serialization stream, used to recognize old save files
+	 */
+	private static final int SERIALIZATION_MAGIC = 0xACED;
+	
+	/**
+	 * The version of the format written for drawings without Curves, which older versions can open
+	 */
+	private static final int VERSION_WITHOUT_CURVES = 1;
+	
+	/**
+	 * The type byte written before each kind of Drawable
+	 */
+	private static final int TYPE_PENCIL = 1, TYPE_LINE_SEGMENT = 2, TYPE_TEXT_BOX = 3, TYPE_CURVE = 4;
+	
+	
+	/**
+	 * There's no need to construct a DrawingFile; everything is static.
+	 */
+	private DrawingFile()
+	{ }
+
+
+
+	/**
+	 * Saves the given Drawables to the given file, replacing anything already in it.
+	 * @param drawables the Drawables to save, must be non-null
+	 * @param path the file to save to, must be non-null
+	 * @throws IOException if the file can't be written, or a Drawable is of an unknown type
+	 */
+	public static void save(List<Drawable> drawables, Path path) throws IOException
+	{
+		save(drawables, path, null);
+	}
+
+
+
+	/**
+	 * Saves the given Drawables to the given file, replacing anything already in it.
+	 * The drawing is written to a temporary file next to it first, which is then moved
+	 * over the file, so the file is never left half-written if saving fails or is cancelled.
+	 * @param drawables the Drawables to save, must be non-null
+	 * @param path the file to save to, must be non-null
+	 * @param progress told how far saving has got, or null
+	 * @throws IOException if the file can't be written, or a Drawable is of an unknown type
+	 * @throws InterruptedIOException if saving was cancelled
+	 */
+	public static void save(List<Drawable> drawables, Path path, DrawingProgress progress) throws IOException
+	{
+		Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+		try
+		{
+			try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE,
+					StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING))
+			{
+				write(drawables, channel, progress);
+			}
+			
+			if (progress != null && progress.isCancelled())
+				throw new InterruptedIOException("Cancelled");
+			try
+			{
+				Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			}
+			catch (AtomicMoveNotSupportedException ex)
+			{
+				Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+			}
+		}
+		finally
+		{
+			Files.deleteIfExists(temp);
+		}
+	}
+
+
+
+	/**
+	 * Opens the Drawables saved in the given file, in either the binary format or the old serialized one.
+	 * @param path the file to open, must be non-null
+	 * @return the Drawables in the file, in the order they were saved
+	 * @throws IOException if the file can't be read or isn't a drawing
+	 */
+	public static ArrayList<Drawable> load(Path path) throws IOException
+	{
+		return load(path, null);
+	}
+
+
+
+	/**
+	 * Opens the Drawables saved in the given file, in either the binary format or the old serialized one.
+	 * Old serialized files are read all at once, so their progress is only reported at the end.
+	 * @param path the file to open, must be non-null
+	 * @param progress told how far opening has got, or null
+	 * @return the Drawables in the file, in the order they were saved
+	 * @throws IOException if the file can't be read or isn't a drawing
+	 * @throws InterruptedIOException if opening was cancelled
+	 */
+	public static ArrayList<Drawable> load(Path path, DrawingProgress progress) throws IOException
+	{
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ))
+		{
+			ByteBuffer header = ByteBuffer.allocate(2);
+			while (header.hasRemaining() && channel.read(header) >= 0);
+			channel.position(0);
+			
+			if (header.position() == 2 && (header.getShort(0) & 0xFFFF) == SERIALIZATION_MAGIC)
+			{
+				ArrayList<Drawable> drawables = readSerialized(channel);
+				reportProgress(progress, drawables.size(), drawables.size());
+				return drawables;
+			}
+			return read(channel, progress);
+		}
+	}
+
+
+
+	/**
+	 * Writes the given Drawables to the given channel in the binary format.
+	 * @param drawables the Drawables to write, must be non-null
+	 * @param channel the channel to write to, must be non-null. It is not closed.
+	 * @throws IOException if the channel can't be written to, or a Drawable is of an unknown type
+	 */
+	public static void write(List<Drawable> drawables, WritableByteChannel channel) throws IOException
+	{
+		write(drawables, channel, null);
+	}
+
+
+
+	/**
+	 * Writes the given Drawables to the given channel in the binary format.
+	 * @param drawables the Drawables to write, must be non-null
+	 * @param channel the channel to write to, must be non-null. It is not closed.
+	 * @param progress told how far writing has got, or null
+	 * @throws IOException if the channel can't be written to, or a Drawable is of an unknown type
+	 * @throws InterruptedIOException if writing was cancelled
+	 */
+	public static void write(List<Drawable> drawables, WritableByteChannel channel, DrawingProgress progress)
+			throws IOException
+	{
+		Map<Color, Integer> colorTable = new LinkedHashMap<>();
+		boolean hasCurves = false;
+		for (Drawable drawable : drawables)
+		{
+			if (!colorTable.containsKey(drawable.getDefaultColor()))
+				colorTable.put(drawable.getDefaultColor(), colorTable.size());
+			hasCurves |= drawable instanceof Curve;
+		}
+
+		ChannelWriter out = new ChannelWriter(channel);
+		out.writeInt(MAGIC);
+		out.writeByte(hasCurves ? VERSION : VERSION_WITHOUT_CURVES);
+		
+		out.writeVarInt(colorTable.size());
+		for (Color color : colorTable.keySet())
+			out.writeInt(color.getRGB());
+		
+		int done = 0;
+		out.writeVarInt(drawables.size());
+		for (Drawable drawable : drawables)
+		{
+			out.writeByte(getType(drawable));
+			out.writeVarInt(colorTable.get(drawable.getDefaultColor()));
+			
+			if (drawable instanceof TextBox)
+			{
+				Point loc = drawable.getLocation();
+				out.writeSignedVarInt(loc.x);
+				out.writeSignedVarInt(loc.y);
+				out.writeByteArray(((TextBox)drawable).getText().getBytes(StandardCharsets.UTF_8));
+			}
+			else
+				writePoints(drawable.getPointList(), out);
+			
+			reportProgress(progress, ++done, drawables.size());
+		}
+		out.flush();
+	}
+
+
+
+	/**
+	 * Reads Drawables in the binary format from the given channel.
+	 * @param channel the channel to read from, must be non-null. It is not closed.
+	 * @return the Drawables, in the order they were written
+	 * @throws IOException if the channel can't be read from or doesn't hold a drawing
+	 */
+	public static ArrayList<Drawable> read(ReadableByteChannel channel) throws IOException
+	{
+		return read(channel, null);
+	}
+
+
+
+	/**
+	 * Reads Drawables in the binary format from the given channel.
+	 * @param channel the channel to read from, must be non-null. It is not closed.
+	 * @param progress told how far reading has got, or null
+	 * @return the Drawables, in the order they were written
+	 * @throws IOException if the channel can't be read from or doesn't hold a drawing
+	 * @throws InterruptedIOException if reading was cancelled
+	 */
+	public static ArrayList<Drawable> read(ReadableByteChannel channel, DrawingProgress progress)
+			throws IOException
+	{
+		ChannelReader in = new ChannelReader(channel);
+		if (in.readInt() != MAGIC)
+			throw new IOException("Not a Victory Paint drawing");
+		int version = in.readByte();
+		if (version < 1 || version > VERSION)
+			throw new IOException("Unsupported drawing version: " + version);
+		
+		int colorCount = in.readVarInt();
+		if (colorCount < 0)
+			throw new IOException("Bad number of Colors: " + colorCount);
+		List<Color> colorTable = new ArrayList<>(Math.min(colorCount, 1 << 16));
+		for (int j = 0; j < colorCount; j++)
+			colorTable.add(new Color(in.readInt(), true));
+		
+		int count = in.readVarInt();
+		if (count < 0)
+			throw new IOException("Bad number of Drawables: " + count);
+		ArrayList<Drawable> drawables = new ArrayList<>(Math.max(16, Math.min(count, 1 << 16)));
+		for (int j = 0; j < count; j++)
+		{
+			int type = in.readByte();
+			int colorIndex = in.readVarInt();
+			if (colorIndex < 0 || colorIndex >= colorTable.size())
+				throw new IOException("Bad color index: " + colorIndex);
+			
+			Drawable drawable;
+			if (type == TYPE_TEXT_BOX)
+			{
+				TextBox textBox = new TextBox(new Point(in.readSignedVarInt(), in.readSignedVarInt()));
+				textBox.setText(new String(in.readByteArray(), StandardCharsets.UTF_8));
+				drawable = textBox;
+			}
+			else
+			{
+				PointList points = readPoints(in);
+				if (type == TYPE_PENCIL)
+					drawable = new Pencil(points.get(0));
+				else if (type == TYPE_LINE_SEGMENT)
+				{
+					if (points.size() != 2)
+						throw new IOException("Bad number of Points for a LineSegment: " + points.size());
+					drawable = new LineSegment(points.get(0));
+				}
+				else if (type == TYPE_CURVE)
+					drawable = new Curve(points.get(0));
+				else
+					throw new IOException("Unknown Drawable type: " + type);
+				drawable.setPointList(points);
+			}
+			
+			drawable.setDefaultColor(colorTable.get(colorIndex));
+			drawables.add(drawable);
+			
+			reportProgress(progress, j + 1, count);
+		}
+		return drawables;
+	}
+
+
+
+	/**
+	 * Tells the DrawingProgress, if there is one, how far saving or opening has got.
+	 * @throws InterruptedIOException if the DrawingProgress has been cancelled
+	 */
+	private static void reportProgress(DrawingProgress progress, int done, int total)
+			throws InterruptedIOException
+	{
+		if (progress == null)
+			return;
+		if (progress.isCancelled())
+			throw new InterruptedIOException("Cancelled");
+		progress.progress(done, total);
+	}
+
+
+
+	/**
+	 * Writes how many Points there are, and then each Point as the difference from the previous one.
+	 */
+	private static void writePoints(PointList points, ChannelWriter out) throws IOException
+	{
+		int[] xs = points.getXArray(), ys = points.getYArray();
+		int prevX = 0, prevY = 0;
+		
+		out.writeVarInt(points.size());
+		for (int j = 0; j < points.size(); j++)
+		{
+			out.writeSignedVarInt(xs[j] - prevX);
+			out.writeSignedVarInt(ys[j] - prevY);
+			prevX = xs[j];
+			prevY = ys[j];
+		}
+	}
+
+
+
+	/**
+	 * Reads Points written by writePoints.
+	 */
+	private static PointList readPoints(ChannelReader in) throws IOException
+	{
+		int count = in.readVarInt();
+		if (count < 1)
+			throw new IOException("Bad number of Points: " + count);
+		
+		PointList points = new PointList(Math.min(count, 1 << 16));
+		int x = 0, y = 0;
+		for (int j = 0; j < count; j++)
+		{
+			x += in.readSignedVarInt();
+			y += in.readSignedVarInt();
+			points.add(x, y);
+		}
+		return points;
+	}
+
+
+
+	/**
+	 * @return the type byte for the given Drawable
+	 * @throws IOException if the Drawable is of a type this format doesn't know about
+	 */
+	private static int getType(Drawable drawable) throws IOException
+	{
+		if (drawable instanceof Pencil)
+			return TYPE_PENCIL;
+		if (drawable instanceof LineSegment)
+			return TYPE_LINE_SEGMENT;
+		if (drawable instanceof TextBox)
+			return TYPE_TEXT_BOX;
+		if (drawable instanceof Curve)
+			return TYPE_CURVE;
+		throw new IOException("Can't save a " + drawable.getClass().getSimpleName());
+	}
+
+
+
+	/**
+	 * Reads a list of Drawables written with ObjectOutputStream, as older versions saved them.
+	 */
+	@SuppressWarnings("unchecked")
+	private static ArrayList<Drawable> readSerialized(ReadableByteChannel channel) throws IOException
+	{
+		ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+		try
+		{
+			return (ArrayList<Drawable>)in.readObject();
+		}
+		catch (ClassNotFoundException | ClassCastException ex)
+		{
+			throw new IOException("Not a Victory Paint drawing", ex);
+		}
+	}
+}
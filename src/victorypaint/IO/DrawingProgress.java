@@ -0,0 +1,26 @@
+
+package victorypaint.IO;
+
+/**
+ * A DrawingProgress is told how far DrawingFile has got through saving or opening a drawing,
+ * and is asked whether it should give up.
+ * @author Jesse Victors, A01485921
+ */
+public interface DrawingProgress
+{
+	/**
+	 * Called after each Drawable is saved or opened.
+	 * @param done how many Drawables have been saved or opened so far
+	 * @param total how many Drawables there are altogether
+	 */
+	void progress(int done, int total);
+
+
+
+	/**
+	 * Checked after each Drawable is saved or opened. If this returns true, DrawingFile stops
+	 * and throws an InterruptedIOException, leaving any file it was saving to untouched.
+	 * @return true if saving or opening should stop
+	 */
+	boolean isCancelled();
+}
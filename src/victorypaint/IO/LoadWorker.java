@@ -0,0 +1,69 @@
+
+package victorypaint.IO;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import javax.swing.SwingWorker;
+import victorypaint.Drawables.Drawable;
+
+/**
+ * A LoadWorker opens a drawing from a file in the background, so that the user can keep drawing
+ * while it is read. Nothing is changed until it is done; the opened Drawables can then be taken
+ * from get() on the Swing event thread and swapped in all at once.
+ * Its progress, from 0 to 100, is the percentage of Drawables read so far,
+ * and it may be cancelled at any time.
+ * @author Jesse Victors, A01485921
+ */
+public class LoadWorker extends SwingWorker<ArrayList<Drawable>, Void> implements DrawingProgress
+{
+	/**
+	 * The file to open
+	 */
+	private Path path;
+	
+	
+	/**
+	 * Constructs a LoadWorker which will open the given file once executed.
+	 * @param path the file to open, must be non-null
+	 */
+	public LoadWorker(Path path)
+	{
+		this.path = path;
+	}
+
+
+
+	/**
+	 * @return the file being opened
+	 */
+	public Path getPath()
+	{
+		return path;
+	}
+
+
+
+	/**
+	 * Opens the file, on a background thread.
+	 * @return the Drawables in the file
+	 * @throws Exception if the file can't be read or isn't a drawing
+	 */
+	@Override
+	protected ArrayList<Drawable> doInBackground() throws Exception
+	{
+		return DrawingFile.load(path, this);
+	}
+
+
+
+	/**
+	 * Updates this LoadWorker's progress to the percentage of Drawables read so far.
+	 * @param done how many Drawables have been read
+	 * @param total how many Drawables there are altogether
+	 */
+	@Override
+	public void progress(int done, int total)
+	{
+		setProgress(total == 0 ? 100 : (int)(100L * done / total));
+	}
+}
@@ -0,0 +1,77 @@
+
+package victorypaint.IO;
+
+import java.nio.file.Path;
+import java.util.List;
+import javax.swing.SwingWorker;
+import victorypaint.Drawables.Drawable;
+
+/**
+ * A SaveWorker saves a drawing to a file in the background, so that the user can keep drawing
+ * while it is written. It must be given a snapshot of the Drawables which nothing else will change,
+ * such as the frozen copies returned by DrawingDocument.freeze().
+ * Its progress, from 0 to 100, is the percentage of Drawables written so far,
+ * and it may be cancelled at any time, in which case the file is left as it was.
+ * @author Jesse Victors, A01485921
+ */
+public class SaveWorker extends SwingWorker<Void, Void> implements DrawingProgress
+{
+	/**
+	 * The Drawables to save, which nothing else may change
+	 */
+	private List<Drawable> snapshot;
+	
+	/**
+	 * The file to save to
+	 */
+	private Path path;
+	
+	
+	/**
+	 * Constructs a SaveWorker which will save the given snapshot to the given file once executed.
+	 * @param snapshot the Drawables to save, which nothing else may change. Must be non-null.
+	 * @param path the file to save to, must be non-null
+	 */
+	public SaveWorker(List<Drawable> snapshot, Path path)
+	{
+		this.snapshot = snapshot;
+		this.path = path;
+	}
+
+
+
+	/**
+	 * @return the file being saved to
+	 */
+	public Path getPath()
+	{
+		return path;
+	}
+
+
+
+	/**
+	 * Saves the snapshot, on a background thread.
+	 * @return null
+	 * @throws Exception if the file can't be written
+	 */
+	@Override
+	protected Void doInBackground() throws Exception
+	{
+		DrawingFile.save(snapshot, path, this);
+		return null;
+	}
+
+
+
+	/**
+	 * Updates this SaveWorker's progress to the percentage of Drawables written so far.
+	 * @param done how many Drawables have been written
+	 * @param total how many Drawables there are altogether
+	 */
+	@Override
+	public void progress(int done, int total)
+	{
+		setProgress(total == 0 ? 100 : (int)(100L * done / total));
+	}
+}
@@ -0,0 +1,16 @@
+
+package victorypaint;
+
+/**
+ * An InputFinishedListener is notified when a MouseInputAcceptor stops accepting user input,
+ * for example once a DrawableCreator has finished constructing its Drawable.
+ * @author Jesse Victors, A01485921
+ */
+public interface InputFinishedListener
+{
+	/**
+	 * Called right after the given MouseInputAcceptor has stopped accepting user input.
+	 * @param acceptor the MouseInputAcceptor that finished
+	 */
+	void inputFinished(MouseInputAcceptor acceptor);
+}
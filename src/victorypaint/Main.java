@@ -6,19 +6,28 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
 import java.io.*;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Random;
+import java.util.concurrent.ExecutionException;
 import javax.sound.sampled.AudioInputStream;
 import javax.sound.sampled.AudioSystem;
 import javax.sound.sampled.Clip;
 import javax.swing.*;
 import javax.swing.event.ChangeEvent;
 import javax.swing.event.ChangeListener;
+import victorypaint.Drawables.Drawable;
 import victorypaint.DrawingCreators.DrawableCreator;
 import victorypaint.DrawingCreators.LineSegmentCreator;
 import victorypaint.DrawingCreators.PencilCreator;
 import victorypaint.DrawingCreators.TextBoxCreator;
+import victorypaint.Edits.DocumentEdit;
+import victorypaint.Edits.UndoHistory;
+import victorypaint.IO.LoadWorker;
+import victorypaint.IO.SaveWorker;
 import victorypaint.Modifiers.*;
 
 /*Changelog
@@ -50,7 +59,8 @@ import victorypaint.Modifiers.*;
  * Handles GUI setups, general organization, and top-level commands.
  * @author Jesse Victors, A01485921, April 2012
 */
-public class Main extends JFrame implements Runnable, ActionListener, ChangeListener
+public class Main extends JFrame implements ActionListener, ChangeListener, InputFinishedListener,
+		PropertyChangeListener
 {	
 	/**
 	 * A list of all drawing functions. These are buttons corresponding all things the user can draw.
@@ -84,19 +94,65 @@ public class Main extends JFrame implements Runnable, ActionListener, ChangeList
 	
 	
 	/**
-	 * Keeps track of each drawing state for the Undo function
+	 * The file that File Save writes to and File Open reads from
 	 */
-	private ArrayList<ArrayList> undoList = new ArrayList<>(16);
+	private static final String SAVE_FILE = "VPsave.dat";
+	
+	/**
+	 * Keeps track of each change to the drawing for the Undo and Redo functions.
+	 * Its memory limit, in bytes, may be set with the victorypaint.undoMemoryLimit system property.
+	 */
+	private UndoHistory undoHistory = new UndoHistory(
+			Long.getLong("victorypaint.undoMemoryLimit", UndoHistory.DEFAULT_MEMORY_LIMIT));
+	
+	/**
+	 * The minimum spacing, in pixels, between the points of a Pencil as it is drawn.
+	 * May be set with the victorypaint.pencilSpacing system property.
+	 */
+	private double pencilSpacing = getDoubleProperty("victorypaint.pencilSpacing", PencilCreator.DEFAULT_SPACING);
+	
+	/**
+	 * How far, in pixels, a Pencil may stray from the mouse's path as it is drawn.
+	 * May be set with the victorypaint.pencilTolerance system property; 0 keeps every point.
+	 */
+	private double pencilTolerance = getDoubleProperty("victorypaint.pencilTolerance", PencilCreator.DEFAULT_TOLERANCE);
+	
+	/**
+	 * How far, in pixels, a Curve fitted to a finished Pencil may stray from it.
+	 * May be set with the victorypaint.curveTolerance system property; 0, the default, doesn't fit Curves.
+	 */
+	private double curveTolerance = getDoubleProperty("victorypaint.curveTolerance", PencilCreator.DEFAULT_FIT_TOLERANCE);
+	
+	/**
+	 * Shows how far the current save or open has got. Hidden unless one is running.
+	 */
+	private JProgressBar ioProgressBar = new JProgressBar(0, 100);
+	
+	/**
+	 * Cancels the current save or open. Hidden unless one is running.
+	 */
+	private JButton ioCancelButton = new JButton("Cancel");
+	
+	/**
+	 * The save or open currently running in the background, or null if there isn't one
+	 */
+	private SwingWorker<?, ?> ioWorker;
 
 
 	/**
-	 * Sets up GUI, initializes variables, and launches the repaint thread
+	 * Sets up GUI and initializes variables on the Swing event thread
 	 * @param args
 	 */
 	public static void main(String[] args)
 	{
-		Main main = new Main();
-		new Thread(main).start();
+		SwingUtilities.invokeLater(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				new Main();
+			}
+		});
 	}
 
 
@@ -119,6 +175,26 @@ public class Main extends JFrame implements Runnable, ActionListener, ChangeList
 	
 	
 	
+	/**
+	 * Reads a number from a system property, like Long.getLong but for doubles.
+	 * @param name the name of the system property
+	 * @param def the value to use if the property isn't set or isn't a number
+	 * @return the value of the property, or def
+	 */
+	private static double getDoubleProperty(String name, double def)
+	{
+		try
+		{
+			return Double.parseDouble(System.getProperty(name, Double.toString(def)));
+		}
+		catch (NumberFormatException ex)
+		{
+			return def;
+		}
+	}
+	
+	
+	
 	/**
 	 * Plays the startup sound. It looks for "startupSound.wav" either in "resources" folder of
 	 * the project directory or in the "resources" folder of the .jar.
@@ -202,6 +278,10 @@ public class Main extends JFrame implements Runnable, ActionListener, ChangeList
 		editMenu.setToolTipText("Modify something you've already drawn");
 		editMenu.setFont(menuFont);
 		
+		JMenu viewMenu = new JMenu("View");
+		viewMenu.setToolTipText("Zoom and move around the drawing");
+		viewMenu.setFont(menuFont);
+		
 		JMenu envMenu = new JMenu("Environment");
 		envMenu.setToolTipText("Modify the general drawing environment");
 		envMenu.setFont(menuFont);
@@ -214,6 +294,8 @@ public class Main extends JFrame implements Runnable, ActionListener, ChangeList
 		menuBar.add(Box.createHorizontalStrut(10));
 		menuBar.add(editMenu);
 		menuBar.add(Box.createHorizontalStrut(10));
+		menuBar.add(viewMenu);
+		menuBar.add(Box.createHorizontalStrut(10));
 		menuBar.add(envMenu);
 		menuBar.add(Box.createHorizontalStrut(10));
 		menuBar.add(helpMenu);
@@ -241,14 +323,22 @@ public class Main extends JFrame implements Runnable, ActionListener, ChangeList
 		//set up edit menu:
 		String[][] editMenuItemInfo = {
 				{"Undo",		"Edit Undo",		"Undo the last action",				"Z"},
+				{"Redo",		"Edit Redo",		"Redo the last action that was undone",	"Y"},
 				{"Color",		"Edit Color",		"Press mouse near a drawing to color it to random color."},
 				{"Translate",	"Edit Translate",	"Moves an object. Press mouse near a drawing and drag it around"},
-				{"Delete",		"Edit Delete",		"Delete something that you drew. Click near it to delete."},
+				{"Delete",		"Edit Delete",		"Delete something that you drew. Click near it to delete, or drag across several things to erase them all."},
 				{"Clone",		"Edit Clone",		"Similar in functionality to Translate, but drags a copy into place."},
 				{"Modify",		"Edit Modify",		"Similar in functionality to Translate, but translates a single point."},
 				{"Rotate",		"Edit Rotate",		"Press mouse near a drawing and drag in a circular fashion to rotate."}};
 		setupMenu(editMenuItemInfo, editMenu);
 		
+		//set up view menu:
+		String[][] viewMenuItemInfo = {
+				{"Zoom in",		"View Zoom In",		"Show the drawing larger. The mouse wheel zooms too.",	"="},
+				{"Zoom out",	"View Zoom Out",	"Show more of the drawing. The mouse wheel zooms too.",	"-"},
+				{"Actual size",	"View Actual Size",	"Undo any zooming, and any panning with the middle mouse button", "0"}};
+		setupMenu(viewMenuItemInfo, viewMenu);
+		
 		//set up environment menu:
 		String[][] sliderInfo = {
 				{"Red Slider",		"Controls the red component of the color"},
@@ -317,6 +407,30 @@ public class Main extends JFrame implements Runnable, ActionListener, ChangeList
 
 
 	
+	/**
+	 * Sets up the progress bar and cancel button for saving and opening,
+	 * and adds them, hidden, to the given panel.
+	 * @param panel the panel to add them to, must be non-null
+	 */
+	private void setupIOProgress(JPanel panel)
+	{
+		ioProgressBar.setStringPainted(true);
+		ioProgressBar.setMaximumSize(new Dimension(200, ioProgressBar.getPreferredSize().height));
+		ioProgressBar.setVisible(false);
+		
+		ioCancelButton.setName("IO Cancel");
+		ioCancelButton.setToolTipText("Stop saving or opening the drawing");
+		ioCancelButton.setFont(menuFont);
+		ioCancelButton.setFocusable(false);
+		ioCancelButton.addActionListener(this);
+		ioCancelButton.setVisible(false);
+		
+		panel.add(ioProgressBar);
+		panel.add(ioCancelButton);
+	}
+
+
+	
 	/**
 	 * Sets up the GUI and adds it to the specified Container.
 	 * @param contentPane the Container to add the GUI to, must be non-null
@@ -361,6 +475,7 @@ public class Main extends JFrame implements Runnable, ActionListener, ChangeList
 		topMenu.setLayout(new BoxLayout(topMenu, BoxLayout.X_AXIS));
 		topMenu.setBackground(SIDE_PANEL_COLOR);
 		setupMenuOptions(topMenu);
+		setupIOProgress(topMenu);
 
 		drawPanel.setBackground(Color.WHITE);
 		drawPanel.setPreferredSize(getSize());
@@ -373,27 +488,18 @@ public class Main extends JFrame implements Runnable, ActionListener, ChangeList
 
 
 	/**
-	 * This method runs in a separate thread. 50 times per second, it takes care of two things:
-	 * 1) Repainting the GUI, which includes the drawing panel,
-	 * 2) If a DrawableCreator is no longer accepting user input, un-select all drawing options
+	 * Called when a DrawableCreator or DrawableModifier is no longer accepting user input.
+	 * If it was the current DrawableCreator, it is forgotten.
+	 * Repainting is taken care of by DrawingPanel whenever something changes.
+	 * @param acceptor the MouseInputAcceptor that finished
 	 */
 	@Override
-	public void run()
+	public void inputFinished(MouseInputAcceptor acceptor)
 	{
-		while (true)
+		if (acceptor == creator)
 		{
-			try
-			{	Thread.sleep(20);	}
-			catch (Exception e)
-			{ }
-
-			if (creator != null && !creator.acceptingUserInput())
-			{
-			//	bg.clearSelection();
-				creator = null;
-			}
-
-			repaint();
+		//	bg.clearSelection();
+			creator = null;
 		}
 	}
 
@@ -409,19 +515,6 @@ public class Main extends JFrame implements Runnable, ActionListener, ChangeList
 	{
 		Component src = (Component)e.getSource();
 		
-		//handle undo
-		if (src.getName().equals("Edit Undo"))
-		{
-			if (undoList.size() > 0)
-			{
-				drawPanel.setDrawableList(undoList.remove(undoList.size() - 1));
-				return;
-			}
-		}
-		else
-			undoList.add(drawPanel.getDrawableList());
-		
-		
 		if (src instanceof JToggleButton)
 		{ 	//if a drawing function
 			
@@ -432,81 +525,188 @@ public class Main extends JFrame implements Runnable, ActionListener, ChangeList
 					break;
 					
 				case "Pencil Button":
-					creator = new PencilCreator(drawPanel);
+					PencilCreator pencilCreator = new PencilCreator(drawPanel);
+					pencilCreator.setSpacing(pencilSpacing);
+					pencilCreator.setTolerance(pencilTolerance);
+					pencilCreator.setFitTolerance(curveTolerance);
+					creator = pencilCreator;
 					break;
 					
 				case "Text Button":
 					creator = new TextBoxCreator(drawPanel);
 					break;
 			}
+			creator.setInputFinishedListener(this);
+			creator.addUndoableEditListener(undoHistory);
 			drawPanel.add(creator.getDrawable());
 		}
 		else
 		{ //its a general menu function
 			
-			try
+			DrawableModifier modifier = null;
+			
+			switch (src.getName())
 			{
-				switch (src.getName())
-				{
-					case "File New":
-						drawPanel.drawables = new ArrayList<>(16);
-						break;
-						
-					case "File Open":
-						ObjectInputStream ois = new ObjectInputStream(new FileInputStream("VPsave.dat"));
-						drawPanel.drawables = (ArrayList)ois.readObject();
-						ois.close();
-						break;
-						
-					case "File Save":
-						ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream("VPsave.dat"));
-						oos.writeObject(drawPanel.drawables);
-						oos.close();
-						break;
-						
-					case "File Close":
-						System.exit(0);
-						break;
+				case "File New":
+					replaceDrawableList(new ArrayList<Drawable>(16), "New");
+					break;
 					
-					case "Edit Color":
-						drawPanel.setDrawableModifier(new DrawableColorChanger(drawPanel, new Color(new Random().nextInt())));
-						break;
-							
-					case "Edit Translate":
-						drawPanel.setDrawableModifier(new DrawableTranslator(drawPanel));
-						break;
-						
-					case "Edit Delete":
-						drawPanel.setDrawableModifier(new DrawableDeleter(drawPanel, drawPanel.drawables));
-						break;
-						
-					case "Edit Clone":
-						drawPanel.setDrawableModifier(new DrawableCopier(drawPanel, drawPanel.drawables));
-						break;
-						
-					case "Edit Modify":
-						drawPanel.setDrawableModifier(new DrawableEditor(drawPanel));
-						break;
-						
-					case "Edit Rotate":
-						drawPanel.setDrawableModifier(new DrawableRotator(drawPanel));
-						break;
+				case "File Open":
+					startIO(new LoadWorker(Paths.get(SAVE_FILE)));
+					break;
+					
+				case "File Save":
+					startIO(new SaveWorker(drawPanel.getDocument().freeze(), Paths.get(SAVE_FILE)));
+					break;
+					
+				case "IO Cancel":
+					if (ioWorker != null)
+						ioWorker.cancel(false);
+					break;
+					
+				case "File Close":
+					System.exit(0);
+					break;
+				
+				case "Edit Undo":
+					if (undoHistory.canUndo())
+						undoHistory.undo();
+					break;
+					
+				case "Edit Redo":
+					if (undoHistory.canRedo())
+						undoHistory.redo();
+					break;
+				
+				case "Edit Color":
+					modifier = new DrawableColorChanger(drawPanel, new Color(new Random().nextInt()));
+					break;
 						
-					case "Help Confused":
-						new HelpScreen(getLocation(), getSize());
-						break;
+				case "Edit Translate":
+					modifier = new DrawableTranslator(drawPanel);
+					break;
+					
+				case "Edit Delete":
+					modifier = new DrawableDeleter(drawPanel);
+					break;
 					
-					case "Help About":
-						new AboutScreen(getLocation(), getSize());
-						break;
-				}
+				case "Edit Clone":
+					modifier = new DrawableCopier(drawPanel);
+					break;
+					
+				case "Edit Modify":
+					modifier = new DrawableEditor(drawPanel);
+					break;
+					
+				case "Edit Rotate":
+					modifier = new DrawableRotator(drawPanel);
+					break;
+					
+				case "View Zoom In":
+					drawPanel.zoomAt(2, null);
+					break;
+					
+				case "View Zoom Out":
+					drawPanel.zoomAt(0.5, null);
+					break;
+					
+				case "View Actual Size":
+					drawPanel.resetView();
+					break;
+					
+				case "Help Confused":
+					new HelpScreen(getLocation(), getSize());
+					break;
+				
+				case "Help About":
+					new AboutScreen(getLocation(), getSize());
+					break;
 			}
-			catch (IOException | ClassNotFoundException ex)
+			
+			if (modifier != null)
+			{
+				modifier.addUndoableEditListener(undoHistory);
+				drawPanel.setDrawableModifier(modifier);
+			}
+		}
+	}
+	
+	
+	
+	/**
+	 * Starts saving or opening the drawing in the background, and shows its progress.
+	 * Only one may run at a time, so if another is still running this just beeps.
+	 * @param worker the SaveWorker or LoadWorker to run, must be non-null
+	 */
+	private void startIO(SwingWorker<?, ?> worker)
+	{
+		if (ioWorker != null)
+		{
+			Toolkit.getDefaultToolkit().beep();
+			return;
+		}
+		
+		ioWorker = worker;
+		ioWorker.addPropertyChangeListener(this);
+		ioProgressBar.setValue(0);
+		ioProgressBar.setVisible(true);
+		ioCancelButton.setVisible(true);
+		ioWorker.execute();
+	}
+
+
+
+	/**
+	 * Called on the Swing event thread when the save or open running in the background
+	 * makes progress or finishes. Once a LoadWorker finishes, its Drawables are swapped in.
+	 * @param e the PropertyChangeEvent from the SwingWorker
+	 */
+	@Override
+	public void propertyChange(PropertyChangeEvent e)
+	{
+		if (e.getSource() != ioWorker)
+			return;
+		
+		if (e.getPropertyName().equals("progress"))
+			ioProgressBar.setValue((Integer)e.getNewValue());
+		else if (e.getNewValue() == SwingWorker.StateValue.DONE)
+		{
+			SwingWorker<?, ?> worker = ioWorker;
+			ioWorker = null;
+			ioProgressBar.setVisible(false);
+			ioCancelButton.setVisible(false);
+			
+			if (worker.isCancelled())
+				return;
+			
+			try
+			{
+				if (worker instanceof LoadWorker)
+					replaceDrawableList(((LoadWorker)worker).get(), "Open");
+				else
+					worker.get(); //reports anything that went wrong while saving
+			}
+			catch (InterruptedException | ExecutionException ex)
 			{
 				System.out.println(ex);
 			}
 		}
 	}
+
+
+
+	/**
+	 * Replaces the DrawingPanel's list of Drawables with the given list,
+	 * and records a DocumentEdit so that the replacement can be undone.
+	 * @param list the new list of Drawables, must be non-null
+	 * @param presentationName what the user did to replace the list, such as "New"
+	 */
+	private void replaceDrawableList(ArrayList<Drawable> list, String presentationName)
+	{
+		ArrayList<Drawable> oldList = new ArrayList<>(drawPanel.getDocument().getSnapshot());
+		undoHistory.addEdit(new DocumentEdit(drawPanel, oldList, list, presentationName));
+		drawPanel.setDrawableList(list);
+	}
 	
 	
 	
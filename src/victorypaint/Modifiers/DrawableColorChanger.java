@@ -5,6 +5,7 @@ import java.awt.Color;
 import java.awt.Component;
 import java.awt.event.MouseEvent;
 import victorypaint.Drawables.Drawable;
+import victorypaint.Edits.ColorEdit;
 
 /**
  * A DrawableColorChanger allows the user to change the color of a drawn Drawable
@@ -36,7 +37,8 @@ public class DrawableColorChanger extends DrawableModifier
 	/**
 	 * Called when the user's mouse is pressed down whilst inside the input Component.
 	 * If the mouse's location is close enough to capture a Drawable, this method
-	 * changes the default (non-ghosting) color of that Drawable to the desired color.
+	 * changes the default (non-ghosting) color of that Drawable to the desired color,
+	 * and posts a ColorEdit so that the change can be undone.
 	 * @param e the MouseEvent corresponding to the mouse press, must be non-null
 	 */
 	@Override
@@ -45,6 +47,11 @@ public class DrawableColorChanger extends DrawableModifier
 		super.mousePressed(e);
 		Drawable drawable = getClosestDrawable();
 		if (drawable != null && captured)
+		{
+			Color oldColor = drawable.getDefaultColor();
 			drawable.setDefaultColor(desiredColor);
+			if (!desiredColor.equals(oldColor))
+				postEdit(new ColorEdit(drawable, oldColor, desiredColor));
+		}
 	}
 }
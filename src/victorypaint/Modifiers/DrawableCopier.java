@@ -2,25 +2,28 @@
 package victorypaint.Modifiers;
 
 import java.awt.Color;
-import java.awt.Component;
 import java.awt.Graphics;
 import java.awt.Point;
 import java.awt.event.MouseEvent;
-import java.util.List;
+import java.awt.geom.AffineTransform;
 import victorypaint.Drawables.Drawable;
+import victorypaint.DrawingPanel;
+import victorypaint.Edits.AddEdit;
 
 /**
  * A DrawableCopier is very similar to a DrawableTranslator, except that it creates
  * a clone of the selected Drawable and the user moves that one around instead of the original.
+ * Like a DrawableTranslator, the clone is moved by attaching a translation to it until the mouse is released,
+ * and is drawn as a sprite meanwhile.
  * @author Jesse Victors, A01485921
  */
 public class DrawableCopier extends DrawableModifier
 {
 	/**
-	 * A reference to DrawingPanel's list of drawables.
-	 * The clone of the selected Drawable will be added to this list.
+	 * A reference to the DrawingPanel holding the Drawables.
+	 * The clone of the selected Drawable will be added to it.
 	 */
-	private List<Drawable> drawableList;
+	private DrawingPanel drawingPanel;
 	
 	/**
 	 * Holds a copy of the newly created clone of the selected Drawable.
@@ -29,16 +32,14 @@ public class DrawableCopier extends DrawableModifier
 	
 	
 	/**
-	 * Creates a DrawableCopier using the specified Component for user input
-	 * and the specified list of Drawables to add the newly created Drawable to.
-	 * @param input the Component used for user input, must be non-null
-	 * @param list the list of Drawables, assumed to be identical to the list
-	 * passed to calculateSelection.
+	 * Creates a DrawableCopier using the specified DrawingPanel for user input
+	 * and for adding the newly created Drawable to.
+	 * @param panel the DrawingPanel used for user input, must be non-null
 	 */
-	public DrawableCopier(Component input, List<Drawable> list)
+	public DrawableCopier(DrawingPanel panel)
 	{
-		super(input);
-		drawableList = list;
+		super(panel);
+		drawingPanel = panel;
 	}
 	
 	
@@ -46,7 +47,7 @@ public class DrawableCopier extends DrawableModifier
 	/**
 	 * Called when the user's mouse is pressed down whilst inside the input Component.
 	 * If the mouse's location is close enough to closest point from a Drawable,
-	 * clones that Drawable and adds it to the list of Drawables.
+	 * clones that Drawable and adds it to the DrawingPanel, which draws it as a sprite.
 	 * It also gives the user the ability to move it around.
 	 * @param e the MouseEvent corresponding to the mouse press, must be non-null
 	 */
@@ -60,7 +61,8 @@ public class DrawableCopier extends DrawableModifier
 		{
 			newCopy = drawable.clone();
 			newCopy.setGhosting(true);
-			drawableList.add(newCopy);
+			drawingPanel.add(newCopy);
+			drawingPanel.setSprite(newCopy);
 		}
 	}
 	
@@ -79,12 +81,33 @@ public class DrawableCopier extends DrawableModifier
 		if (getClosestDrawable() != null && captured)
 		{
 			Point diff = new Point(getMouseLoc().x - mouseLocAtCapture.x, getMouseLoc().y - mouseLocAtCapture.y);
-			getClosestDrawable().setLocation(new Point(diff.x + locAtCapture.x, diff.y + locAtCapture.y));
+			getClosestDrawable().setTransform(AffineTransform.getTranslateInstance(diff.x, diff.y));
 		}
 	}
 	
 	
 	
+	/**
+	 * Called when the user's mouse exits the input Component, or the mouse button is released.
+	 * If a clone was made, its translation is baked into its Points,
+	 * and an AddEdit is posted for it so that the copy can be undone.
+	 * @param e the MouseEvent corresponding to the mouse exiting
+	 */
+	@Override
+	public void mouseExited(MouseEvent e)
+	{
+		drawingPanel.setSprite(null);
+		if (newCopy != null && acceptingUserInput())
+		{
+			newCopy.bakeTransform();
+			postEdit(new AddEdit(drawingPanel, newCopy));
+		}
+		
+		super.mouseExited(e);
+	}
+	
+	
+	
 	/**
 	 * Calls DrawableModifier's draw function,
 	 * and further illustrates this DrawableCopier by drawing a blue line from the location
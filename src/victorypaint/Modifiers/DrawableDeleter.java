@@ -1,48 +1,197 @@
 
 package victorypaint.Modifiers;
 
-import java.awt.Component;
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Point;
 import java.awt.event.MouseEvent;
+import java.util.ArrayList;
 import java.util.List;
 import victorypaint.Drawables.Drawable;
+import victorypaint.Drawables.PointList;
+import victorypaint.DrawingPanel;
+import victorypaint.Edits.EraseEdit;
+import victorypaint.Edits.RemoveEdit;
+import victorypaint.Spatial.DrawableIndex;
 
 /**
- * A DrawableDeleter gives the user the ability to delete a Drawable simply by clicking on it.
+ * A DrawableDeleter gives the user the ability to delete a Drawable simply by clicking on it,
+ * or to erase every Drawable along a path by dragging the mouse across them.
  * @author Jesse Victors, A01485921
  */
 public class DrawableDeleter extends DrawableModifier
 {
 	/**
-	 * A reference to DrawingPanel's list of drawables.
-	 * The selected Drawable will be removed from this list.
+	 * How close, in pixels on the screen, a Drawable must come to the path
+	 * the mouse is dragged along to be erased.
 	 */
-	private List<Drawable> drawableList;
-	
-	
+	public static final int ERASE_RADIUS = 10;
+
+	/**
+	 * A reference to the DrawingPanel holding the Drawables.
+	 * The selected Drawable will be removed from it.
+	 */
+	private DrawingPanel drawingPanel;
+
+	/**
+	 * Where the mouse was pressed, or null if it hasn't been
+	 */
+	private Point pressLoc;
+
+	/**
+	 * The path the mouse has been dragged along since it was pressed,
+	 * or null if it hasn't been dragged
+	 */
+	private PointList path;
+
+
 	/**
-	 * Constructs a DrawableDeleter using the specified Component for user input
-	 * and the given list for deleting the selected Drawable.
-	 * @param input the Component for user input, must be non-null
-	 * @param list  the list of Drawables, must be non-null,
-	 * assumed to be identical to the list passed to calculateSelection.
+	 * Constructs a DrawableDeleter using the specified DrawingPanel for user input
+	 * and for deleting the selected Drawable.
+	 * @param panel the DrawingPanel for user input, must be non-null
 	 */
-	public DrawableDeleter(Component input, List<Drawable> list)
+	public DrawableDeleter(DrawingPanel panel)
 	{
-		super(input);
-		drawableList = list;
+		super(panel);
+		drawingPanel = panel;
 	}
-	
-	
-	
+
+
+
+	/**
+	 * Called when the user's mouse is pressed down whilst inside the input Component.
+	 * Remembers where, in case the mouse is then dragged to erase along a path.
+	 * @param e the MouseEvent corresponding to the mouse press, must be non-null
+	 */
+	@Override
+	public void mousePressed(MouseEvent e)
+	{
+		super.mousePressed(e);
+		pressLoc = e.getPoint();
+	}
+
+
+
+	/**
+	 * Called when the user's mouse is dragged around in the input Component.
+	 * Extends the path to be erased to the mouse location.
+	 * @param e the MouseEvent corresponding to the mouse drag, must be non-null
+	 */
+	@Override
+	public void mouseDragged(MouseEvent e)
+	{
+		if (path == null)
+		{
+			path = new PointList(64);
+			Point start = pressLoc != null ? pressLoc : e.getPoint();
+			path.add(start.x, start.y);
+		}
+		extendPath(e.getPoint());
+		setMouseLoc(e.getPoint());
+	}
+
+
+
 	/**
 	 * Called when the user lets go of the mouse button whilst inside the input Component.
-	 * This method removes the selected Drawable from the list and then calls mouseExited.
+	 * If the mouse was dragged, this erases every Drawable near the path it was dragged along.
+	 * Otherwise it removes the selected Drawable from the DrawingPanel.
+	 * Either way, it posts an edit so that the deletion can be undone, and then calls mouseExited.
 	 * @param e the MouseEvent corresponding to the mouse release
 	 */
 	@Override
 	public void mouseReleased(MouseEvent e)
 	{
-		drawableList.remove(getClosestDrawable());
+		if (path != null)
+			erase();
+		else
+		{
+			Drawable drawable = getClosestDrawable();
+			int index = drawingPanel.indexOf(drawable);
+			if (index != -1)
+			{
+				drawingPanel.remove(drawable);
+				postEdit(new RemoveEdit(drawingPanel, drawable, index));
+			}
+		}
 		mouseExited(e);
 	}
+
+
+
+	/**
+	 * Draws the band the mouse has been dragged along, as wide as the Drawables it will erase,
+	 * or if it hasn't been dragged, illustrates the Drawable which would be deleted.
+	 * @param g the Graphics to draw on, must be non-null
+	 */
+	@Override
+	public void draw(Graphics g)
+	{
+		if (path == null)
+		{
+			super.draw(g);
+			return;
+		}
+
+		if (acceptingUserInput())
+		{
+			Graphics2D g2 = (Graphics2D)g.create();
+			g2.setColor(new Color(192, 192, 192, 128));
+			g2.setStroke(new BasicStroke((float)(2 * getEraseRadius()), BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
+			g2.drawPolyline(path.getXArray(), path.getYArray(), path.size());
+			g2.dispose();
+		}
+	}
+
+
+
+	/**
+	 * @return how close, in drawing coordinates, a Drawable must come to the path to be erased,
+	 * which is ERASE_RADIUS pixels on the screen however far the view is zoomed
+	 */
+	protected double getEraseRadius()
+	{
+		return ERASE_RADIUS / getZoom();
+	}
+
+
+
+	/**
+	 * Adds the given location to the end of the path. If the mouse moved farther than the erase radius
+	 * since the last location, Points are added in between, so that nothing the mouse passed over is missed.
+	 */
+	private void extendPath(Point pt)
+	{
+		int last = path.size() - 1;
+		int lastX = path.getXArray()[last], lastY = path.getYArray()[last];
+		double distance = Math.hypot(pt.x - lastX, pt.y - lastY);
+		if (distance == 0)
+			return;
+
+		int steps = (int)(distance / getEraseRadius()) + 1;
+		for (int j = 1; j <= steps; j++)
+			path.add((int)Math.round(lastX + (pt.x - lastX) * (double)j / steps),
+					(int)Math.round(lastY + (pt.y - lastY) * (double)j / steps));
+	}
+
+
+
+	/**
+	 * Removes every Drawable near the path from the DrawingPanel, and posts an EraseEdit
+	 * so that they can all be put back at once.
+	 */
+	private void erase()
+	{
+		DrawableIndex index = getDrawableIndex();
+		if (index == null)
+			return;
+
+		List<Drawable> near = index.findNearPath(path, getEraseRadius());
+		List<Drawable> removed = new ArrayList<>(near.size());
+		int[] positions = drawingPanel.removeAll(near, removed);
+		if (positions.length > 0)
+			postEdit(new EraseEdit(drawingPanel, removed, positions));
+	}
 }
@@ -6,6 +6,8 @@ import java.awt.Component;
 import java.awt.Graphics;
 import java.awt.Point;
 import java.awt.event.MouseEvent;
+import victorypaint.Drawables.Drawable;
+import victorypaint.Edits.PointEdit;
 
 /**
  * A DrawableEditor allows the user to change a particular point on a Drawable.
@@ -35,6 +37,7 @@ public class DrawableEditor extends DrawableModifier
 	/**
 	 * Called when the user's mouse is pressed down whilst inside the input Component.
 	 * This method helps reference the Point the user would like to change.
+	 * If the closest point belongs to a different Drawable than the closest one, nothing is captured.
 	 * @param e the MouseEvent corresponding to the mouse press, must be non-null
 	*/
 	@Override
@@ -42,10 +45,12 @@ public class DrawableEditor extends DrawableModifier
 	{
 		super.mousePressed(e);
 		
-		if (index == -1)
-			for (int j = 0; j < getClosestDrawable().getPointCount(); j++)
-				if (getClosestDrawable().getPoint(j) == getClosestPt())
-					index = j;
+		if (index == -1 && captured)
+		{
+			index = getClosestPtIndex();
+			if (index == -1) //the closest point defines some other Drawable
+				captured = false;
+		}
 	}
 	
 	
@@ -60,7 +65,7 @@ public class DrawableEditor extends DrawableModifier
 	{
 		mouseMoved(e);
 
-		if (getClosestDrawable() != null && captured)
+		if (getClosestDrawable() != null && captured && index != -1)
 		{
 			Point diff = new Point(getMouseLoc().x - mouseLocAtCapture.x, getMouseLoc().y - mouseLocAtCapture.y);
 			
@@ -71,6 +76,27 @@ public class DrawableEditor extends DrawableModifier
 	
 	
 	
+	/**
+	 * Called when the user's mouse exits the input Component, or the mouse button is released.
+	 * If a Point was moved, a PointEdit is posted so that the change can be undone.
+	 * @param e the MouseEvent corresponding to the mouse exiting
+	 */
+	@Override
+	public void mouseExited(MouseEvent e)
+	{
+		Drawable drawable = getClosestDrawable();
+		if (drawable != null && captured && index != -1)
+		{
+			Point newPoint = drawable.getPoint(index);
+			if (!newPoint.equals(getClosestPt()))
+				postEdit(new PointEdit(drawable, index, getClosestPt(), newPoint));
+		}
+		
+		super.mouseExited(e);
+	}
+	
+	
+	
 	/**
 	 * Illustrates this DrawableEditor. If a point is not currently being modified,
 	 * this simply draws a light gray line from the mouse location to the closest point.
@@ -90,7 +116,7 @@ public class DrawableEditor extends DrawableModifier
 			g.drawLine(getMouseLoc().x, getMouseLoc().y, pt.x, pt.y);
 		}
 		
-		if (acceptingUserInput() && captured)
+		if (acceptingUserInput() && captured && index != -1)
 		{ //illustrate change
 			
 			g.setColor(Color.BLUE);
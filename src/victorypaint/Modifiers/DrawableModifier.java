@@ -6,9 +6,12 @@ import java.awt.Component;
 import java.awt.Graphics;
 import java.awt.Point;
 import java.awt.event.MouseEvent;
-import java.util.List;
 import victorypaint.Drawables.Drawable;
+import victorypaint.Drawables.HitResult;
+import victorypaint.DrawingPanel;
 import victorypaint.MouseInputAcceptor;
+import victorypaint.Spatial.DrawableIndex;
+import victorypaint.Spatial.NearestVisitor;
 
 /**
  * The superclass for all classes which are designed to modify a drawable.
@@ -18,12 +21,19 @@ import victorypaint.MouseInputAcceptor;
  * variables and has functions defined which should take care of tasks common to
  * all DrawableModifiers, such as reducing chances of accidental selection if the
  * mouse is far away from a Drawable.
+ * The closest Drawable and points are calculated by a SelectionPipeline as the mouse moves,
+ * rather than every time the DrawableModifier is drawn.
  * Subclasses can override functionality to modify a Drawable in their own way.
  * Subclasses define the exact modification how the user will modify the Drawable.
  * @author Jesse Victors, A01485921
  */
 public abstract class DrawableModifier extends MouseInputAcceptor
 {
+	/**
+	 * How close, in pixels on the screen, the mouse must be to a Drawable for the user to be able to modify it.
+	 */
+	public static final int SELECTION_RADIUS = 100;
+	
 	/**
 	 * Holds the last known mouse location,
 	 * since that's otherwise only accessible from MouseEvent
@@ -31,20 +41,25 @@ public abstract class DrawableModifier extends MouseInputAcceptor
 	private Point mouseLoc = new Point();
 	
 	/**
-	 * Holds the Point returned when mouseLoc is projected onto a Drawable
-	 * using the Drawable's projectOnto function.
+	 * The Selection which was most recently published by the SelectionPipeline.
+	 * This is what getClosestDrawable(), getClosestPt() and getClosestProjectionPt() report.
+	 */
+	private Selection selection = Selection.NONE;
+	
+	/**
+	 * Calculates the Selection as the mouse moves around, separately from painting.
 	 */
-	private Point closestProjectionPt;
+	private SelectionPipeline pipeline = new SelectionPipeline(this);
 	
 	/**
-	 * Holds the closest Point on a Drawable to mouseLoc
+	 * Searches for the Selection, reused for every search so that searching allocates nothing.
 	 */
-	private Point closestPt;
+	private SelectionSearch search = new SelectionSearch();
 	
 	/**
-	 * Holds a reference to the Drawable which is closest to mouseLoc
+	 * The spatial index of the Drawables to select from. May be null.
 	 */
-	private Drawable closestDrawable;
+	private DrawableIndex index;
 	
 	/**
 	 * Holds whether a Drawable has been captured or not.
@@ -74,79 +89,153 @@ public abstract class DrawableModifier extends MouseInputAcceptor
 
 
 
+	/**
+	 * Sets the spatial index of the Drawables which this DrawableModifier will select from.
+	 * @param index the spatial index of the Drawables, must be non-null
+	 */
+	public void setDrawableIndex(DrawableIndex index)
+	{
+		this.index = index;
+	}
+
+
+
+	/**
+	 * @return the spatial index of the Drawables which this DrawableModifier selects from,
+	 * or null if it hasn't been given one
+	 */
+	protected DrawableIndex getDrawableIndex()
+	{
+		return index;
+	}
+
+
+
 	/**
 	 * Calculates and finds the closest Drawable and the closest point on that Drawable
-	 * to the last know mouse location, which was determined from setMouseLoc(Point).
-	 * @param drawables the list of Drawables to analyze
+	 * to the given location. Only Drawables within getSelectionRadius() of the location
+	 * are considered, and the index is used to skip any Drawables which are too far away to matter.
+	 * This doesn't change what this DrawableModifier has selected; see publishSelection(Selection).
+	 * If the same Drawable and points are found again, the current Selection is returned rather than a new one.
+	 * Must be called from the event thread.
+	 * @param loc the location to search around, must be non-null
+	 * @return the Selection, which is Selection.NONE if no Drawables are close enough
 	 */
-	public void calculateSelection(List<Drawable> drawables)
+	public Selection calculateSelection(Point loc)
 	{
-		if (!acceptingUserInput() || captured)
-			return;
+		if (index == null)
+			return Selection.NONE;
 
-		double ptClosestDist = Double.POSITIVE_INFINITY;
-		double projectionPtClosestDist = Double.POSITIVE_INFINITY;
+		search.reset(loc);
+		index.visitNear(loc, search);
+		Drawable drawable = search.closestDrawable;
+		if (drawable == null)
+			return Selection.NONE;
 		
-		for (Drawable drawable : drawables)
+		HitResult closestPt = search.closestPt;
+		if (!closestPt.isHit()) //its points are all outside the radius
 		{
-			Point pt = drawable.getClosestPoint(mouseLoc);
-			Point projPt = drawable.projectOnto(mouseLoc);
-			
-			double ptDist = pt.distance(mouseLoc);
-			double projDist = projPt.distance(mouseLoc);
-			
-			if (ptDist < ptClosestDist)
-			{
-				closestPt = pt;
-				ptClosestDist = ptDist;
-			}
-			
-			if (projDist < projectionPtClosestDist)
-			{
-				projectionPtClosestDist = projDist;
-				closestProjectionPt = projPt;
-				closestDrawable = drawable;
-			}
+			drawable.findClosestPoint(loc.x, loc.y, closestPt);
+			search.closestPtDrawable = drawable;
 		}
+		int closestPtIndex = search.closestPtDrawable == drawable ? closestPt.getIndex() : -1;
+		
+		HitResult projectionPt = search.closestProjectionPt;
+		if (drawable == selection.getClosestDrawable() && closestPt.isAt(selection.getClosestPt())
+				&& closestPtIndex == selection.getClosestPtIndex() && projectionPt.isAt(selection.getClosestProjectionPt()))
+			return selection;
+		return new Selection(drawable, closestPt.toPoint(), closestPtIndex, projectionPt.toPoint());
+	}
+	
+	
+	
+	/**
+	 * Makes the given Selection the one this DrawableModifier reports and draws,
+	 * unless it is no longer accepting user input or has already captured a Drawable.
+	 * @param newSelection the new Selection, must be non-null
+	 */
+	void publishSelection(Selection newSelection)
+	{
+		if (!acceptingUserInput() || captured)
+			return;
+		
+		selection = newSelection;
+		getInputComponent().repaint();
+	}
+	
+	
+	
+	/**
+	 * @return the farthest distance from the mouse location a Drawable may be to be selected,
+	 * in drawing coordinates, so that it stays SELECTION_RADIUS pixels on the screen however far the view is zoomed.
+	 * Subclasses may override this to select Drawables from farther away.
+	 */
+	protected double getSelectionRadius()
+	{
+		return SELECTION_RADIUS / getZoom();
+	}
+
+
+
+	/**
+	 * @return how much the input Component's view is zoomed by, or 1 if it isn't a DrawingPanel
+	 */
+	protected double getZoom()
+	{
+		Component input = getInputComponent();
+		if (input instanceof DrawingPanel)
+			return ((DrawingPanel)input).getZoom();
+		return 1;
 	}
 
 
 
 	/**
 	 * @return the closest Drawable to last known mouse location.
-	 * This value may change with subsequent calls to calculateSelection(List<Drawables>).
+	 * This value changes whenever a new Selection is published.
 	 */
 	public Drawable getClosestDrawable()
 	{
-		return closestDrawable;
+		return selection.getClosestDrawable();
 	}
 
 
 
 	/**
 	 * @return the closest point on a Drawable to last known mouse location.
-	 * This value may change with subsequent calls to calculateSelection(List<Drawables>).
+	 * This value changes whenever a new Selection is published.
 	 */
 	public Point getClosestPt()
 	{
-		return closestPt;
+		return selection.getClosestPt();
+	}
+
+
+	/**
+	 * @return the index of the closest point among the Points of the closest Drawable,
+	 * or -1 if the closest point defines a different Drawable.
+	 * This value changes whenever a new Selection is published.
+	 */
+	public int getClosestPtIndex()
+	{
+		return selection.getClosestPtIndex();
 	}
 
 
 	/**
 	 * @return the closest point which is a projection of the last known mouse location onto a Drawable.
-	 * This value may change with subsequent calls to calculateSelection(List<Drawables>).
+	 * This value changes whenever a new Selection is published.
 	 */
 	public Point getClosestProjectionPt()
 	{
-		return closestProjectionPt;
+		return selection.getClosestProjectionPt();
 	}
 	
 	
 
 	/**
 	 * @return the value of the mouse location variable.
-	 * This value may change with subsequent calls to calculateSelection(List<Drawables>).
+	 * This value changes whenever the mouse moves.
 	 */
 	public Point getMouseLoc()
 	{
@@ -156,12 +245,14 @@ public abstract class DrawableModifier extends MouseInputAcceptor
 
 
 	/**
-	 * Updates the mouse location variable to the given point.
+	 * Updates the mouse location variable to the given point,
+	 * and asks for the input Component to be repainted to illustrate it.
 	 * @param newMouseLoc the new value for the mouse location variable.
 	 */
 	public void setMouseLoc(Point newMouseLoc)
 	{
 		mouseLoc = newMouseLoc;
+		getInputComponent().repaint();
 	}
 
 	
@@ -187,13 +278,14 @@ public abstract class DrawableModifier extends MouseInputAcceptor
 	
 	/**
 	 * Called when the user's mouse is enters the input Component.
-	 * Updates mouseLoc based on the current position of the mouse.
+	 * Updates mouseLoc based on the current position of the mouse,
+	 * and submits it to the SelectionPipeline.
 	 * @param e the MouseEvent corresponding to the mouse enter, must be non-null
 	 */
 	@Override
 	public void mouseEntered(MouseEvent e)
 	{
-		setMouseLoc(e.getPoint());
+		mouseMoved(e);
 	}
 	
 	
@@ -217,6 +309,7 @@ public abstract class DrawableModifier extends MouseInputAcceptor
 	
 	/**
 	 * Called when the user's mouse is pressed down whilst inside the input Component.
+	 * The Selection is calculated straight away, rather than waiting for the SelectionPipeline.
 	 * If the mouse's location is close enough to closest point from a Drawable,
 	 * captures that Drawable so that the user can then modify it.
 	 * @param e the MouseEvent corresponding to the mouse press, must be non-null
@@ -225,6 +318,8 @@ public abstract class DrawableModifier extends MouseInputAcceptor
 	public void mousePressed(MouseEvent e)
 	{
 		setMouseLoc(e.getPoint());
+		pipeline.cancel();
+		publishSelection(calculateSelection(getMouseLoc()));
 		
 		if (closeEnough())
 		{
@@ -253,13 +348,16 @@ public abstract class DrawableModifier extends MouseInputAcceptor
 	
 	/**
 	 * Called when the user's mouse is moved around in the input Component.
-	 * Updates mouseLoc based on the current position of the mouse.
+	 * Updates mouseLoc based on the current position of the mouse, and unless a
+	 * Drawable has been captured, submits it to the SelectionPipeline.
 	 * @param e the MouseEvent corresponding to the mouse move, must be non-null
 	 */
 	@Override
 	public void mouseMoved(MouseEvent e)
 	{
 		setMouseLoc(e.getPoint());
+		if (!captured)
+			pipeline.submit(getMouseLoc());
 	}
 	
 	
@@ -274,6 +372,96 @@ public abstract class DrawableModifier extends MouseInputAcceptor
 		Point pt = getClosestProjectionPt();
 		if (pt == null)
 			return false;
-		return pt.distance(getMouseLoc()) <= 100;
+		return pt.distance(getMouseLoc()) <= getSelectionRadius();
+	}
+	
+	
+	
+	/**
+	 * Searches a DrawableIndex for the closest point and the closest projection point
+	 * to a location, shrinking the search radius as closer Drawables are found.
+	 * Distances are compared squared, and the results are written into HitResults
+	 * which are reused for every search.
+	 */
+	private class SelectionSearch implements NearestVisitor<Drawable>
+	{
+		/**
+		 * The location being searched around
+		 */
+		int x, y;
+		
+		/**
+		 * The closest Drawable found so far, by projection
+		 */
+		Drawable closestDrawable;
+		
+		/**
+		 * The closest projection point found so far, and its squared distance from the mouse location
+		 */
+		final HitResult closestProjectionPt = new HitResult();
+		
+		/**
+		 * The closest point that defines a Drawable found so far, and its squared distance from the mouse location
+		 */
+		final HitResult closestPt = new HitResult();
+		
+		/**
+		 * The Drawable which the closest point found so far defines
+		 */
+		Drawable closestPtDrawable;
+		
+		/**
+		 * The point and projection point of the Drawable being visited
+		 */
+		private final HitResult pt = new HitResult(), projPt = new HitResult();
+		
+		/**
+		 * Forgets the last search, and starts a new one around the given location.
+		 */
+		void reset(Point loc)
+		{
+			x = loc.x;
+			y = loc.y;
+			closestDrawable = null;
+			closestPtDrawable = null;
+			closestProjectionPt.clear();
+			closestPt.clear();
+		}
+		
+		/**
+		 * A Drawable can't improve on either result if its bounds are farther away than
+		 * both of them, or farther away than the selection radius.
+		 * @return the current search radius
+		 */
+		@Override
+		public double getSearchRadius()
+		{
+			return Math.min(getSelectionRadius(), Math.sqrt(Math.max(closestPt.getDistanceSq(), closestProjectionPt.getDistanceSq())));
+		}
+		
+		/**
+		 * Compares the given Drawable's closest point and projection point against the best so far.
+		 * @param drawable a Drawable near the location
+		 */
+		@Override
+		public void visit(Drawable drawable)
+		{
+			double radius = getSelectionRadius();
+			double radiusSq = radius * radius;
+			
+			drawable.findClosestPoint(x, y, pt);
+			if (pt.getDistanceSq() < closestPt.getDistanceSq() && pt.getDistanceSq() <= radiusSq)
+			{
+				closestPt.set(pt);
+				closestPtDrawable = drawable;
+			}
+			
+			drawable.projectOnto(x, y, projPt);
+			if (projPt.getDistanceSq() < closestProjectionPt.getDistanceSq() && projPt.getDistanceSq() <= radiusSq)
+			{
+				closestProjectionPt.set(projPt);
+				closestDrawable = drawable;
+			}
+		}
 	}
 }
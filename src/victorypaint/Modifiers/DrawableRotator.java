@@ -2,35 +2,48 @@
 package victorypaint.Modifiers;
 
 import java.awt.Color;
-import java.awt.Component;
 import java.awt.Graphics;
 import java.awt.Point;
 import java.awt.event.MouseEvent;
+import java.awt.geom.AffineTransform;
 import victorypaint.Drawables.Drawable;
+import victorypaint.Drawables.PointList;
+import victorypaint.DrawingPanel;
+import victorypaint.Edits.ReshapeEdit;
 
 /**
  * With a DrawableRotator, the user can rotate a selected Drawable around one of its points.
  * The user does this by pressing the mouse down near the desired center point,
  * dragging the mouse in a circular fashion to rotate in real-time,
  * and releases the mouse to complete the operation.
+ * While the mouse is dragged, the Drawable is turned by attaching a rotation to it,
+ * which takes the same time no matter how many Points it has. The Points are only rotated,
+ * and rounded, once the mouse is released, so they don't pick up rounding errors along the way.
+ * The DrawingPanel draws it as a sprite meanwhile, so it isn't drawn from its Points every frame either.
  * @author Jesse Victors, A01485921
  */
 public class DrawableRotator extends DrawableModifier
 {
 	/**
-	 * Maintains the original version of the selected Drawable
+	 * Maintains the original Points of the selected Drawable
 	 */
-	private Drawable oldCopy;
+	private PointList oldPoints;
 	private double oldAngle;
 	
+	/**
+	 * A reference to the DrawingPanel holding the Drawables, which draws the selected one as a sprite.
+	 */
+	private DrawingPanel drawingPanel;
+	
 	
 	/**
-	 * Constructs a DrawableEditor using the specified Component for user input.
-	 * @param input the input Component, must be non-null.
+	 * Constructs a DrawableRotator using the specified DrawingPanel for user input.
+	 * @param panel the DrawingPanel used for user input, must be non-null.
 	 */
-	public DrawableRotator(Component input)
+	public DrawableRotator(DrawingPanel panel)
 	{
-		super(input);
+		super(panel);
+		drawingPanel = panel;
 	}
 	
 	
@@ -39,6 +52,7 @@ public class DrawableRotator extends DrawableModifier
 	 * Called when the user's mouse is pressed down whilst inside the input Component.
 	 * Calls DrawableModifier's mousePressed method, and captures the closest Drawable
 	 * for rotation no matter how far away the user's mouse is from it.
+	 * The DrawingPanel draws that Drawable as a sprite while it is rotated.
 	 * @param e the MouseEvent corresponding to the mouse press, must be non-null
 	 */
 	@Override
@@ -50,7 +64,8 @@ public class DrawableRotator extends DrawableModifier
 		if (drawable != null)
 		{
 			drawable.setGhosting(true);
-			oldCopy = drawable.clone();
+			drawingPanel.setSprite(drawable);
+			oldPoints = drawable.getPointList();
 			oldAngle = getAngle();
 		}
 	}
@@ -70,17 +85,37 @@ public class DrawableRotator extends DrawableModifier
 
 		if (getClosestDrawable() != null && captured)
 		{
-			double angle = getAngle() - oldAngle;
-			double sinAngle = Math.sin(angle), cosAngle = Math.cos(angle); //bit of optimization: only computes this once
-			
-			for (int j = 0; j < oldCopy.getPointCount(); j++)
-				getClosestDrawable().setPoint(j, 
-						rotatePoint(oldCopy.getPoint(j), getClosestProjectionPt(), sinAngle, cosAngle));
+			Point pivot = getClosestProjectionPt();
+			getClosestDrawable().setTransform(AffineTransform.getRotateInstance(getAngle() - oldAngle, pivot.x, pivot.y));
 		}
 	}
 
 	
 
+	/**
+	 * Called when the user's mouse exits the input Component, or the mouse button is released.
+	 * The rotation is baked into the selected Drawable's Points,
+	 * and if it was rotated, a ReshapeEdit is posted so that the rotation can be undone.
+	 * @param e the MouseEvent corresponding to the mouse exiting
+	 */
+	@Override
+	public void mouseExited(MouseEvent e)
+	{
+		drawingPanel.setSprite(null);
+		Drawable drawable = getClosestDrawable();
+		if (drawable != null && captured && oldPoints != null)
+		{
+			drawable.bakeTransform();
+			PointList newPoints = drawable.getPointList();
+			if (!newPoints.equals(oldPoints))
+				postEdit(new ReshapeEdit(drawable, oldPoints, newPoints));
+		}
+		
+		super.mouseExited(e);
+	}
+
+
+
 	/**
 	 * @return the radian angle between the mouse location and the point the Drawable is rotating around.
 	 */
@@ -150,6 +185,17 @@ public class DrawableRotator extends DrawableModifier
 	
 	
 	
+	/**
+	 * @return infinity, since any Drawable may be rotated no matter how far away the mouse is from it.
+	 */
+	@Override
+	protected double getSelectionRadius()
+	{
+		return Double.POSITIVE_INFINITY;
+	}
+	
+	
+	
 	/**
 	 * Rotates the given Point around the given pivot Point the given radian angle.
 	 * @param p the Point to rotate
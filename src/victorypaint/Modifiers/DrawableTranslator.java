@@ -1,32 +1,62 @@
 package victorypaint.Modifiers;
 
 import java.awt.Color;
-import java.awt.Component;
 import java.awt.Graphics;
 import java.awt.Point;
 import java.awt.event.MouseEvent;
+import java.awt.geom.AffineTransform;
+import victorypaint.Drawables.Drawable;
+import victorypaint.DrawingPanel;
+import victorypaint.Edits.TranslateEdit;
 
 /**
  * A DrawableTranslator gives the user the ability to select and translate a Drawable
  * based on mouse input. If the mouse is close enough, the user can drag the Drawable around.
+ * While it is dragged, the Drawable is moved by attaching a translation to it, so that dragging
+ * takes the same time no matter how many Points it has. The Points are only moved when the mouse is released.
+ * The DrawingPanel draws it as a sprite meanwhile, so it isn't drawn from its Points every frame either.
  * @author Jesse Victors, A01485921
  */
 public class DrawableTranslator extends DrawableModifier
 {
 	/**
-	 * Constructs a DrawableTranslator using the specified Component for user input.
-	 * @param input the input Component, must be non-null.
+	 * A reference to the DrawingPanel holding the Drawables, which draws the selected one as a sprite.
 	 */
-	public DrawableTranslator(Component input)
+	private DrawingPanel drawingPanel;
+	
+	
+	/**
+	 * Constructs a DrawableTranslator using the specified DrawingPanel for user input.
+	 * @param panel the DrawingPanel used for user input, must be non-null.
+	 */
+	public DrawableTranslator(DrawingPanel panel)
 	{
-		super(input);
+		super(panel);
+		drawingPanel = panel;
+	}
+	
+	
+	
+	/**
+	 * Called when the user's mouse is pressed down whilst inside the input Component.
+	 * Calls DrawableModifier's mousePressed method, and if a Drawable was captured,
+	 * has the DrawingPanel draw it as a sprite while it is dragged.
+	 * @param e the MouseEvent corresponding to the mouse press, must be non-null
+	 */
+	@Override
+	public void mousePressed(MouseEvent e)
+	{
+		super.mousePressed(e);
+		
+		if (getClosestDrawable() != null && captured)
+			drawingPanel.setSprite(getClosestDrawable());
 	}
 
 	
 	
 	/**
 	 * Called when the user's mouse is dragged around in the input Component.
-	 * Translates any selected Drawable by updating its location relative to where
+	 * Translates any selected Drawable by updating its translation relative to where
 	 * the user started dragging their mouse. Also calls mouseMoved(e)
 	 * @param e the MouseEvent corresponding to the mouse drag, must be non-null
 	 */
@@ -38,13 +68,37 @@ public class DrawableTranslator extends DrawableModifier
 		if (getClosestDrawable() != null && captured)
 		{
 			Point diff = new Point(getMouseLoc().x - mouseLocAtCapture.x, getMouseLoc().y - mouseLocAtCapture.y);
-			getClosestDrawable().setLocation(new Point(diff.x + locAtCapture.x, diff.y + locAtCapture.y));
+			getClosestDrawable().setTransform(AffineTransform.getTranslateInstance(diff.x, diff.y));
 			getClosestDrawable().setGhosting(true);
 		}
 	}
 
 	
 	
+	/**
+	 * Called when the user's mouse exits the input Component, or the mouse button is released.
+	 * The translation is baked into the Drawable's Points, and if it was moved,
+	 * a TranslateEdit is posted so that the move can be undone.
+	 * @param e the MouseEvent corresponding to the mouse exiting
+	 */
+	@Override
+	public void mouseExited(MouseEvent e)
+	{
+		Drawable drawable = getClosestDrawable();
+		drawingPanel.setSprite(null);
+		if (drawable != null && captured)
+		{
+			drawable.bakeTransform();
+			Point loc = drawable.getLocation();
+			if (!loc.equals(locAtCapture))
+				postEdit(new TranslateEdit(drawable, loc.x - locAtCapture.x, loc.y - locAtCapture.y));
+		}
+		
+		super.mouseExited(e);
+	}
+
+	
+	
 	/**
 	 * Calls DrawableModifier's draw function, and if the user has selected and is translating
 	 * a Drawable, a blue line is drawn from its original location point to its current location.
@@ -0,0 +1,99 @@
+
+package victorypaint.Modifiers;
+
+import java.awt.Point;
+import victorypaint.Drawables.Drawable;
+
+/**
+ * A Selection is the result of searching for the Drawable nearest to a location.
+ * It holds the closest Drawable, the closest point which defines a Drawable,
+ * which of the closest Drawable's Points that is, and the closest projection of the location onto a Drawable.
+ * Selections never change once made, so one can be handed from the code that
+ * calculates it to the code that draws it without any copying.
+ * @author Jesse Victors, A01485921
+ */
+public final class Selection
+{
+	/**
+	 * A Selection of nothing, for when no Drawable is close enough.
+	 */
+	public static final Selection NONE = new Selection(null, null, -1, null);
+	
+	/**
+	 * The closest Drawable, by projection. May be null.
+	 */
+	private final Drawable closestDrawable;
+	
+	/**
+	 * The closest point which defines a Drawable. May be null.
+	 */
+	private final Point closestPt;
+	
+	/**
+	 * The index of the closest point among the closest Drawable's Points,
+	 * or -1 if the closest point defines a different Drawable.
+	 */
+	private final int closestPtIndex;
+	
+	/**
+	 * The closest projection of the location onto a Drawable. May be null.
+	 */
+	private final Point closestProjectionPt;
+	
+	
+	/**
+	 * Constructs a Selection of the given results.
+	 * @param closestDrawable the closest Drawable by projection, may be null
+	 * @param closestPt the closest point which defines a Drawable, may be null
+	 * @param closestPtIndex the index of closestPt among closestDrawable's Points, or -1 if it isn't one of them
+	 * @param closestProjectionPt the closest projection point onto a Drawable, may be null
+	 */
+	public Selection(Drawable closestDrawable, Point closestPt, int closestPtIndex, Point closestProjectionPt)
+	{
+		this.closestDrawable = closestDrawable;
+		this.closestPt = closestPt;
+		this.closestPtIndex = closestPtIndex;
+		this.closestProjectionPt = closestProjectionPt;
+	}
+	
+	
+	
+	/**
+	 * @return the closest Drawable, by projection. May be null.
+	 */
+	public Drawable getClosestDrawable()
+	{
+		return closestDrawable;
+	}
+	
+	
+	
+	/**
+	 * @return the closest point which defines a Drawable. May be null.
+	 */
+	public Point getClosestPt()
+	{
+		return closestPt;
+	}
+	
+	
+	
+	/**
+	 * @return the index of the closest point among the closest Drawable's Points,
+	 * or -1 if the closest point defines a different Drawable.
+	 */
+	public int getClosestPtIndex()
+	{
+		return closestPtIndex;
+	}
+	
+	
+	
+	/**
+	 * @return the closest projection of the location onto a Drawable. May be null.
+	 */
+	public Point getClosestProjectionPt()
+	{
+		return closestProjectionPt;
+	}
+}
@@ -0,0 +1,87 @@
+
+package victorypaint.Modifiers;
+
+import java.awt.Point;
+import javax.swing.SwingUtilities;
+
+/**
+ * A SelectionPipeline calculates a DrawableModifier's Selection as the mouse moves,
+ * separately from painting. Mouse locations are submitted as they arrive, but only the
+ * latest one is ever searched: any locations submitted before the search gets to run
+ * are stale and simply dropped. The finished Selection is published to the DrawableModifier,
+ * which draws whatever Selection was last published.
+ * All methods must be called from the Swing event thread.
+ * @author Jesse Victors, A01485921
+ */
+class SelectionPipeline implements Runnable
+{
+	/**
+	 * The DrawableModifier to calculate Selections for.
+	 */
+	private final DrawableModifier modifier;
+	
+	/**
+	 * The most recently submitted mouse location, or null if there is none waiting.
+	 */
+	private Point pending;
+	
+	/**
+	 * Holds whether this SelectionPipeline is already waiting to run on the event thread.
+	 */
+	private boolean scheduled;
+	
+	
+	/**
+	 * Constructs a SelectionPipeline for the given DrawableModifier.
+	 * @param modifier the DrawableModifier to calculate Selections for, must be non-null
+	 */
+	SelectionPipeline(DrawableModifier modifier)
+	{
+		this.modifier = modifier;
+	}
+	
+	
+	
+	/**
+	 * Submits a new mouse location to calculate the Selection for.
+	 * This replaces any location which was submitted but not yet searched.
+	 * @param loc the mouse location, must be non-null
+	 */
+	void submit(Point loc)
+	{
+		pending = loc;
+		if (!scheduled)
+		{
+			scheduled = true;
+			SwingUtilities.invokeLater(this);
+		}
+	}
+	
+	
+	
+	/**
+	 * Drops any location which was submitted but not yet searched.
+	 */
+	void cancel()
+	{
+		pending = null;
+	}
+	
+	
+	
+	/**
+	 * Searches the latest submitted location, if there is one, and publishes the result.
+	 * This runs after the event thread has handled the mouse events that were already waiting,
+	 * so a burst of mouse movement only causes a single search.
+	 */
+	@Override
+	public void run()
+	{
+		scheduled = false;
+		Point loc = pending;
+		pending = null;
+		
+		if (loc != null)
+			modifier.publishSelection(modifier.calculateSelection(loc));
+	}
+}
@@ -3,11 +3,16 @@ package victorypaint;
 
 import java.awt.Component;
 import java.awt.event.MouseAdapter;
+import javax.swing.event.UndoableEditListener;
+import javax.swing.undo.UndoableEdit;
+import javax.swing.undo.UndoableEditSupport;
 
 /**
  * Main superclass for adding user input listeners to a Component.
  * It is up to subclasses to override appropriate mouse functions
  * and perform specific action.
+ * Any changes a subclass makes which the user may want to undo are posted
+ * as UndoableEdits to its UndoableEditListeners.
  * @author Jesse Victors, A01485921
  */
 public class MouseInputAcceptor extends MouseAdapter
@@ -22,6 +27,16 @@ public class MouseInputAcceptor extends MouseAdapter
 	 * Holds whether this MouseInputAcceptor is accepting user action or not.
 	 */
 	protected boolean acceptingUserInput = true;
+	
+	/**
+	 * Notified once this MouseInputAcceptor stops accepting user input. May be null.
+	 */
+	private InputFinishedListener finishedListener;
+	
+	/**
+	 * Notifies the UndoableEditListeners of each change that can be undone.
+	 */
+	private UndoableEditSupport undoSupport = new UndoableEditSupport(this);
 
 
 	/**
@@ -63,15 +78,64 @@ public class MouseInputAcceptor extends MouseAdapter
 
 
 
+	/**
+	 * Sets the listener to notify once this MouseInputAcceptor stops accepting user input.
+	 * @param listener the new listener, or null to stop notifying anyone
+	 */
+	public final void setInputFinishedListener(InputFinishedListener listener)
+	{
+		finishedListener = listener;
+	}
+
+
+
+	/**
+	 * Registers the given listener to be told about every change made which can be undone.
+	 * @param listener the listener to add, must be non-null
+	 */
+	public final void addUndoableEditListener(UndoableEditListener listener)
+	{
+		undoSupport.addUndoableEditListener(listener);
+	}
+
+
+
+	/**
+	 * Stops telling the given listener about changes which can be undone.
+	 * @param listener the listener to remove
+	 */
+	public final void removeUndoableEditListener(UndoableEditListener listener)
+	{
+		undoSupport.removeUndoableEditListener(listener);
+	}
+
+
+
+	/**
+	 * Tells the UndoableEditListeners about a change which has just been made.
+	 * @param edit the edit which will undo and redo the change, must be non-null
+	 */
+	protected void postEdit(UndoableEdit edit)
+	{
+		undoSupport.postEdit(edit);
+	}
+
+
+
 	/**
 	 * Removes the user input listeners,
 	 * namely the MouseListeners and MouseMotionListeners,
-	 * and sets the "accepting user input" property to false.
+	 * sets the "accepting user input" property to false,
+	 * and notifies the InputFinishedListener, if there is one.
 	 */
 	protected void finish()
 	{
 		inputComponent.removeMouseListener(this);
 		inputComponent.removeMouseMotionListener(this);
 		acceptingUserInput = false;
+		inputComponent.repaint();
+		
+		if (finishedListener != null)
+			finishedListener.inputFinished(this);
 	}
 }
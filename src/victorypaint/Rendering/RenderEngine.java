@@ -0,0 +1,195 @@
+
+package victorypaint.Rendering;
+
+import java.awt.Color;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.util.List;
+import victorypaint.Drawables.Drawable;
+
+/**
+ * A RenderEngine draws a list of Drawables, either onto any Graphics or into a new BufferedImage.
+ * It has nothing to do with Swing, so it works with java.awt.headless=true,
+ * and it keeps no state while rendering, so one RenderEngine may render on many threads at once
+ * as long as each thread has its own Drawables.
+ * Drawables which are ghosting are never drawn; they are still being created or modified.
+ * @author Jesse Victors, A01485921
+ */
+public class RenderEngine
+{
+	/**
+	 * The Color images are filled with before drawing, or null to leave them transparent
+	 */
+	private Color background = Color.WHITE;
+	
+	/**
+	 * Whether lines and text are drawn with antialiasing
+	 */
+	private boolean antialiased = false;
+	
+	
+	/**
+	 * Sets the Color images are filled with before the Drawables are drawn.
+	 * @param background the background Color, or null to leave images transparent
+	 */
+	public void setBackground(Color background)
+	{
+		this.background = background;
+	}
+
+
+
+	/**
+	 * @return the background Color, or null if images are left transparent
+	 */
+	public Color getBackground()
+	{
+		return background;
+	}
+
+
+
+	/**
+	 * Sets whether images are drawn with antialiasing, which looks smoother when scaled down
+	 * but doesn't match how the DrawingPanel draws.
+	 * @param antialiased true to draw with antialiasing
+	 */
+	public void setAntialiased(boolean antialiased)
+	{
+		this.antialiased = antialiased;
+	}
+
+
+
+	/**
+	 * @return whether images are drawn with antialiasing
+	 */
+	public boolean isAntialiased()
+	{
+		return antialiased;
+	}
+
+
+
+	/**
+	 * Draws every Drawable which isn't ghosting and which overlaps the given region, in order.
+	 * @param drawables the Drawables to draw, must be non-null
+	 * @param g the Graphics to draw on, must be non-null
+	 * @param region the region to draw, in the same coordinates as the Drawables, or null to draw all of them
+	 */
+	public void draw(List<Drawable> drawables, Graphics g, Rectangle region)
+	{
+		for (Drawable drawable : drawables)
+			if (!drawable.isGhosting() && (region == null || drawable.getBounds().intersects(region)))
+				drawable.draw(g);
+	}
+
+
+
+	/**
+	 * Renders the given Drawables into a new image. The point (0, 0) of the drawing
+	 * is at the top left corner of the image, and the drawing is scaled by the given amount.
+	 * @param drawables the Drawables to render, must be non-null
+	 * @param width the width of the image, must be positive
+	 * @param height the height of the image, must be positive
+	 * @param scale how much to scale the drawing by, such as 0.5 for half size. Must be positive.
+	 * @return the image
+	 */
+	public BufferedImage render(List<Drawable> drawables, int width, int height, double scale)
+	{
+		return render(drawables, width, height, scale, 0, 0);
+	}
+
+
+
+	/**
+	 * Renders the given Drawables into a new image, scaled and centered so that all of them fit.
+	 * Drawings which are already small enough are centered but not enlarged.
+	 * This is useful for thumbnails.
+	 * @param drawables the Drawables to render, must be non-null
+	 * @param width the width of the image, must be positive
+	 * @param height the height of the image, must be positive
+	 * @return the image
+	 */
+	public BufferedImage renderToFit(List<Drawable> drawables, int width, int height)
+	{
+		Rectangle bounds = getBounds(drawables);
+		if (bounds == null)
+			return render(drawables, width, height, 1);
+		
+		bounds.grow(Drawable.DAMAGE_MARGIN, Drawable.DAMAGE_MARGIN);
+		double scale = Math.min(1, Math.min((double)width / bounds.width, (double)height / bounds.height));
+		double dx = (width / scale - bounds.width) / 2 - bounds.x;
+		double dy = (height / scale - bounds.height) / 2 - bounds.y;
+		return render(drawables, width, height, scale, dx, dy);
+	}
+
+
+
+	/**
+	 * @param drawables the Drawables to measure, must be non-null
+	 * @return the smallest rectangle containing every Drawable which isn't ghosting,
+	 * or null if there aren't any
+	 */
+	public static Rectangle getBounds(List<Drawable> drawables)
+	{
+		Rectangle bounds = null;
+		for (Drawable drawable : drawables)
+			if (!drawable.isGhosting())
+			{
+				if (bounds == null)
+					bounds = drawable.getBounds();
+				else
+					bounds.add(drawable.getBounds());
+			}
+		return bounds;
+	}
+
+
+
+	/**
+	 * Renders the given Drawables into a new image, scaled by the given amount
+	 * after being moved by the given distance.
+	 */
+	private BufferedImage render(List<Drawable> drawables, int width, int height, double scale, double dx, double dy)
+	{
+		if (width <= 0 || height <= 0)
+			throw new IllegalArgumentException("Image must have a positive size: " + width + "x" + height);
+		if (!(scale > 0))
+			throw new IllegalArgumentException("Scale must be positive: " + scale);
+		
+		BufferedImage image = new BufferedImage(width, height,
+				background == null ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+		Graphics2D g = image.createGraphics();
+		try
+		{
+			if (background != null)
+			{
+				g.setColor(background);
+				g.fillRect(0, 0, width, height);
+			}
+			if (antialiased)
+			{
+				g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+				g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+				g.setRenderingHint(RenderingHints.KEY_STROKE_CONTROL, RenderingHints.VALUE_STROKE_PURE);
+			}
+			
+			g.scale(scale, scale);
+			g.translate(dx, dy);
+			
+			Rectangle region = new Rectangle((int)Math.floor(-dx), (int)Math.floor(-dy),
+					(int)Math.ceil(width / scale) + 2, (int)Math.ceil(height / scale) + 2);
+			region.grow(Drawable.DAMAGE_MARGIN, Drawable.DAMAGE_MARGIN);
+			draw(drawables, g, region);
+		}
+		finally
+		{
+			g.dispose();
+		}
+		return image;
+	}
+}
@@ -0,0 +1,135 @@
+
+package victorypaint;
+
+import java.awt.DisplayMode;
+import java.awt.GraphicsEnvironment;
+import java.awt.HeadlessException;
+import java.awt.Rectangle;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import javax.swing.Timer;
+
+/**
+ * A RepaintScheduler collects requests to repaint regions of a Component and coalesces them,
+ * so that the Component is repainted at most once per display refresh no matter how many
+ * requests were made. When nothing has been invalidated its Timer is stopped, so an idle
+ * RepaintScheduler does no work at all. All methods must be called from the Swing event thread.
+ * @author Jesse Victors, A01485921
+ */
+public abstract class RepaintScheduler implements ActionListener
+{
+	/**
+	 * The refresh rate to assume if the display's refresh rate can't be determined.
+	 */
+	private static final int DEFAULT_REFRESH_RATE = 60;
+
+	/**
+	 * Number of milliseconds between frames.
+	 */
+	private final int frameDelay = 1000 / getRefreshRate();
+
+	/**
+	 * The union of all regions invalidated since the last frame, or null if nothing is dirty.
+	 */
+	private Rectangle dirtyRegion;
+
+	/**
+	 * Time, in milliseconds, of the last frame.
+	 */
+	private long lastFrameTime;
+
+	/**
+	 * Fires once for each frame that needs to be painted.
+	 */
+	private Timer timer = new Timer(frameDelay, this);
+
+
+	/**
+	 * Constructs a RepaintScheduler which has nothing to repaint.
+	 */
+	public RepaintScheduler()
+	{
+		timer.setRepeats(false);
+	}
+
+
+
+	/**
+	 * Marks the given region as needing a repaint. If no frame is pending yet,
+	 * one is scheduled for the next display refresh.
+	 * @param region the region to repaint, must be non-null
+	 */
+	public void invalidate(Rectangle region)
+	{
+		if (region.isEmpty())
+			return;
+
+		if (dirtyRegion == null)
+			dirtyRegion = new Rectangle(region);
+		else
+			dirtyRegion.add(region);
+
+		if (!timer.isRunning())
+		{
+			long wait = lastFrameTime + frameDelay - System.currentTimeMillis();
+			timer.setInitialDelay((int)Math.max(0, Math.min(wait, frameDelay)));
+			timer.start();
+		}
+	}
+
+
+
+	/**
+	 * @return whether any region is waiting to be repainted
+	 */
+	public boolean isDirty()
+	{
+		return dirtyRegion != null;
+	}
+
+
+
+	/**
+	 * Called by the Timer once the frame is due.
+	 * Hands the dirty region to repaintNow and marks everything as clean.
+	 * @param e the ActionEvent from the Timer
+	 */
+	@Override
+	public void actionPerformed(ActionEvent e)
+	{
+		Rectangle region = dirtyRegion;
+		dirtyRegion = null;
+		lastFrameTime = System.currentTimeMillis();
+
+		if (region != null)
+			repaintNow(region);
+	}
+
+
+
+	/**
+	 * Actually repaints the given region. Called at most once per frame.
+	 * @param region the union of every region invalidated since the last frame
+	 */
+	protected abstract void repaintNow(Rectangle region);
+
+
+
+	/**
+	 * @return the refresh rate of the default screen in Hz, or DEFAULT_REFRESH_RATE if unknown
+	 */
+	private static int getRefreshRate()
+	{
+		try
+		{
+			DisplayMode mode = GraphicsEnvironment.getLocalGraphicsEnvironment()
+					.getDefaultScreenDevice().getDisplayMode();
+			if (mode.getRefreshRate() != DisplayMode.REFRESH_RATE_UNKNOWN)
+				return mode.getRefreshRate();
+		}
+		catch (HeadlessException e)
+		{ }
+
+		return DEFAULT_REFRESH_RATE;
+	}
+}
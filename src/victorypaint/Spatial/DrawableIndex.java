@@ -0,0 +1,148 @@
+
+package victorypaint.Spatial;
+
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import victorypaint.Drawables.Drawable;
+import victorypaint.Drawables.PointList;
+
+/**
+ * A DrawableIndex keeps an RTree of Drawables by their bounding boxes, so that the Drawables
+ * near a location can be found without looking at every Drawable.
+ * Drawables which change are only re-indexed when the index is next queried,
+ * so a Drawable which is being dragged around doesn't cost anything until it is needed.
+ * Finding every Drawable near a path narrows them down with the RTree and then tests
+ * the candidates with DrawableQueries, in parallel if there are enough of them.
+ * @author Jesse Victors, A01485921
+ */
+public class DrawableIndex
+{
+	/**
+	 * The index of all of the Drawables.
+	 */
+	private RTree<Drawable> tree = new RTree<>();
+
+	/**
+	 * Drawables which have changed since they were last indexed.
+	 */
+	private Set<Drawable> stale = Collections.newSetFromMap(new IdentityHashMap<Drawable, Boolean>());
+
+
+	/**
+	 * Adds the given Drawable to the index.
+	 * @param drawable the Drawable to add, must be non-null
+	 */
+	public void add(Drawable drawable)
+	{
+		stale.remove(drawable);
+		tree.insert(drawable, drawable.getBounds());
+	}
+
+
+
+	/**
+	 * Removes the given Drawable from the index.
+	 * @param drawable the Drawable to remove
+	 */
+	public void remove(Drawable drawable)
+	{
+		stale.remove(drawable);
+		tree.remove(drawable);
+	}
+
+
+
+	/**
+	 * Notes that the given Drawable has changed, so its bounds need re-indexing
+	 * before the next query. If it isn't in the index, this does nothing.
+	 * @param drawable the Drawable that changed
+	 */
+	public void changed(Drawable drawable)
+	{
+		stale.add(drawable);
+	}
+
+
+
+	/**
+	 * Removes every Drawable from the index.
+	 */
+	public void clear()
+	{
+		stale.clear();
+		tree.clear();
+	}
+
+
+
+	/**
+	 * @return the number of Drawables in the index
+	 */
+	public int size()
+	{
+		return tree.size();
+	}
+
+
+
+	/**
+	 * Adds every Drawable whose bounds intersect the given region to the given list, in no particular order.
+	 * @param region the region to search, must be non-null
+	 * @param results the list to add the Drawables to, must be non-null
+	 */
+	public void search(Rectangle region, List<Drawable> results)
+	{
+		refresh();
+		tree.search(region, results);
+	}
+
+
+
+	/**
+	 * Visits the Drawables around the given point whose bounds are within the visitor's search radius.
+	 * @param pt the point to search around, must be non-null
+	 * @param visitor the NearestVisitor to give the Drawables to, must be non-null
+	 */
+	public void visitNear(Point pt, NearestVisitor<Drawable> visitor)
+	{
+		refresh();
+		tree.visitNear(pt, visitor);
+	}
+
+
+
+	/**
+	 * Finds every Drawable which comes within the given distance of any of the Points of the given path.
+	 * @param path the Points of the path, must be non-null and contain at least one Point.
+	 * They should be closer together than the radius.
+	 * @param radius how far from the path the Drawables may be
+	 * @return the Drawables which were found, in no particular order
+	 */
+	public List<Drawable> findNearPath(PointList path, double radius)
+	{
+		List<Drawable> candidates = new ArrayList<>();
+		search(DrawableQueries.getArea(path, radius), candidates);
+		return DrawableQueries.findNearPath(candidates, path, radius);
+	}
+
+
+
+	/**
+	 * Re-indexes every Drawable which has changed since it was last indexed.
+	 */
+	private void refresh()
+	{
+		if (stale.isEmpty())
+			return;
+
+		for (Drawable drawable : stale)
+			if (tree.contains(drawable))
+				tree.update(drawable, drawable.getBounds());
+		stale.clear();
+	}
+}
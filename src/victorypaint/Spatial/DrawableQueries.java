@@ -0,0 +1,445 @@
+
+package victorypaint.Spatial;
+
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import victorypaint.Drawables.Drawable;
+import victorypaint.Drawables.HitResult;
+import victorypaint.Drawables.PointList;
+
+/**
+ * DrawableQueries answers questions about every Drawable in a list, such as which is closest to a point
+ * or which are near a path the mouse took. Long lists are split into chunks which are searched in parallel
+ * by a ForkJoinPool with a thread per processor, and the answers are combined in the same order
+ * they would have been found by searching the list from start to finish. Lists shorter than
+ * the parallel threshold are searched on the calling thread, since splitting them up costs more than it saves.
+ * The Drawables must not change while they are being searched: either search them from the event thread,
+ * which waits for the search to finish, or search the Drawables of a frozen DrawingDocument Snapshot.
+ * @author Jesse Victors, A01485921
+ */
+public final class DrawableQueries
+{
+	/**
+	 * The default number of Drawables a list must have to be searched in parallel
+	 */
+	public static final int DEFAULT_PARALLEL_THRESHOLD = 2048;
+
+	/**
+	 * The most Drawables each parallel task searches itself, rather than splitting them between two more tasks
+	 */
+	private static final int CHUNK_SIZE = 256;
+
+	/**
+	 * The number of Drawables a list must have to be searched in parallel
+	 */
+	private static volatile int parallelThreshold = DEFAULT_PARALLEL_THRESHOLD;
+
+	/**
+	 * The threads which search lists in parallel, or null if they haven't been needed yet
+	 */
+	private static ForkJoinPool pool;
+
+
+	/**
+	 * DrawableQueries only has static methods.
+	 */
+	private DrawableQueries()
+	{
+	}
+
+
+
+	/**
+	 * Sets how many Drawables a list must have to be searched in parallel.
+	 * @param threshold the number of Drawables, or Integer.MAX_VALUE to always search on the calling thread
+	 */
+	public static void setParallelThreshold(int threshold)
+	{
+		parallelThreshold = threshold;
+	}
+
+
+
+	/**
+	 * Finds the Drawable in the list whose closest projection is closest to the given location.
+	 * If several are equally close, the first of them in the list is found.
+	 * @param drawables the Drawables to search, must be non-null
+	 * @param loc the location to search around, must be non-null
+	 * @param radius how far away the closest projection may be
+	 * @param result where to write the closest projection, must be non-null. It is cleared if nothing is found.
+	 * @return the closest Drawable, or null if none are within the radius
+	 */
+	public static Drawable findNearest(List<Drawable> drawables, Point loc, double radius, HitResult result)
+	{
+		Nearest nearest = run(new NearestTask(drawables, 0, drawables.size(), loc, radius));
+		if (nearest.drawable == null)
+			result.clear();
+		else
+			result.set(nearest.hit);
+		return nearest.drawable;
+	}
+
+
+
+	/**
+	 * Finds every Drawable in the list whose closest projection is within the given distance of the given location.
+	 * @param drawables the Drawables to search, must be non-null
+	 * @param loc the location to search around, must be non-null
+	 * @param radius how far away the Drawables may be
+	 * @return the Drawables which were found, in the same order as the given list
+	 */
+	public static List<Drawable> findWithin(List<Drawable> drawables, final Point loc, final double radius)
+	{
+		return run(new FilterTask(drawables, 0, drawables.size(), new DrawableFilter()
+		{
+			@Override
+			boolean accept(Drawable drawable, HitResult hit)
+			{
+				return isWithin(drawable, drawable.getBounds(), loc.x, loc.y, radius, hit);
+			}
+		}));
+	}
+
+
+
+	/**
+	 * Finds every Drawable in the list which comes within the given distance of any of the Points of the given path,
+	 * such as the Points the mouse was dragged through. The path should have Points closer together than the radius,
+	 * or Drawables which pass between them may be missed.
+	 * @param drawables the Drawables to search, must be non-null
+	 * @param path the Points of the path, must be non-null and contain at least one Point
+	 * @param radius how far from the path the Drawables may be
+	 * @return the Drawables which were found, in the same order as the given list
+	 */
+	public static List<Drawable> findNearPath(List<Drawable> drawables, final PointList path, final double radius)
+	{
+		final Rectangle area = getArea(path, radius);
+		return run(new FilterTask(drawables, 0, drawables.size(), new DrawableFilter()
+		{
+			@Override
+			boolean accept(Drawable drawable, HitResult hit)
+			{
+				Rectangle bounds = drawable.getBounds();
+				if (!bounds.intersects(area))
+					return false;
+
+				for (int j = 0; j < path.size(); j++)
+					if (isWithin(drawable, bounds, path.getX(j), path.getY(j), radius, hit))
+						return true;
+				return false;
+			}
+		}));
+	}
+
+
+
+	/**
+	 * Finds every Drawable in the list whose bounds intersect the given region.
+	 * @param drawables the Drawables to search, must be non-null
+	 * @param region the region to search, must be non-null
+	 * @return the Drawables which were found, in the same order as the given list
+	 */
+	public static List<Drawable> findIntersecting(List<Drawable> drawables, final Rectangle region)
+	{
+		return run(new FilterTask(drawables, 0, drawables.size(), new DrawableFilter()
+		{
+			@Override
+			boolean accept(Drawable drawable, HitResult hit)
+			{
+				return drawable.getBounds().intersects(region);
+			}
+		}));
+	}
+
+
+
+	/**
+	 * @param path the Points of a path, must be non-null and contain at least one Point
+	 * @param radius how far from the path to reach
+	 * @return the smallest rectangle containing every location within the given distance of the path's Points
+	 */
+	static Rectangle getArea(PointList path, double radius)
+	{
+		Rectangle area = new Rectangle(path.get(0));
+		for (int j = 1; j < path.size(); j++)
+			area.add(path.get(j));
+		int reach = (int)Math.ceil(radius);
+		area.grow(reach, reach);
+		area.setSize(area.width + 1, area.height + 1); //Rectangle.add leaves out the far edges
+		return area;
+	}
+
+
+
+	/**
+	 * @return true if the Drawable, which has the given bounds, has a closest projection within the radius
+	 * of the location. The projection is written into hit, unless the bounds are already too far away.
+	 */
+	private static boolean isWithin(Drawable drawable, Rectangle bounds, int x, int y, double radius, HitResult hit)
+	{
+		double dx = Math.max(0, Math.max(bounds.x - x, x - (bounds.x + bounds.width - 1)));
+		double dy = Math.max(0, Math.max(bounds.y - y, y - (bounds.y + bounds.height - 1)));
+		double radiusSq = radius * radius;
+		if (dx * dx + dy * dy > radiusSq)
+			return false;
+		
+		drawable.projectOnto(x, y, hit);
+		return hit.getDistanceSq() <= radiusSq;
+	}
+
+
+
+	/**
+	 * Runs the given task, in parallel if it covers at least the parallel threshold of Drawables.
+	 * @return the task's answer
+	 */
+	private static <V> V run(QueryTask<V> task)
+	{
+		if (task.hi - task.lo < parallelThreshold)
+			return task.compute();
+		return getPool().invoke(task);
+	}
+
+
+
+	/**
+	 * @return the threads which search lists in parallel, starting them if they haven't been needed yet
+	 */
+	private static synchronized ForkJoinPool getPool()
+	{
+		if (pool == null)
+			pool = new ForkJoinPool(); //a thread per processor, which don't keep the program running
+		return pool;
+	}
+
+
+
+	/**
+	 * A QueryTask searches the Drawables of a list from lo up to but not including hi.
+	 * If there are more than CHUNK_SIZE of them, it splits them in half between two more QueryTasks,
+	 * searches one half itself while the other may be taken by another thread, and combines their answers.
+	 * @param <V> the type of the answer
+	 */
+	private abstract static class QueryTask<V> extends RecursiveTask<V>
+	{
+		/**
+		 * The list being searched
+		 */
+		final List<Drawable> drawables;
+
+		/**
+		 * The range of the list which this QueryTask searches
+		 */
+		final int lo, hi;
+
+		/**
+		 * Creates a QueryTask which searches the given range of the list.
+		 */
+		QueryTask(List<Drawable> drawables, int lo, int hi)
+		{
+			this.drawables = drawables;
+			this.lo = lo;
+			this.hi = hi;
+		}
+
+		/**
+		 * Searches the range, splitting it if it is longer than CHUNK_SIZE.
+		 * @return the answer for the range
+		 */
+		@Override
+		protected V compute()
+		{
+			if (hi - lo <= CHUNK_SIZE)
+				return search();
+
+			int mid = (lo + hi) >>> 1;
+			QueryTask<V> first = split(lo, mid), second = split(mid, hi);
+			first.fork();
+			V secondAnswer = second.compute();
+			return combine(first.join(), secondAnswer);
+		}
+
+		/**
+		 * @return the answer for the range, found on this thread
+		 */
+		abstract V search();
+
+		/**
+		 * @return a QueryTask like this one which searches the given range instead
+		 */
+		abstract QueryTask<V> split(int lo, int hi);
+
+		/**
+		 * @return the answer for two neighbouring ranges, given the answer for the first range and for the second
+		 */
+		abstract V combine(V first, V second);
+	}
+
+
+
+	/**
+	 * The answer of a NearestTask: the closest Drawable found, its position in the list, and its projection.
+	 */
+	private static final class Nearest
+	{
+		/**
+		 * The closest Drawable found, or null if none were within the radius
+		 */
+		Drawable drawable;
+
+		/**
+		 * The position of the closest Drawable in the list
+		 */
+		int position;
+
+		/**
+		 * The closest projection of the location onto the closest Drawable
+		 */
+		final HitResult hit = new HitResult();
+	}
+
+
+
+	/**
+	 * Finds the Drawable whose closest projection is closest to a location, like DrawableModifier's SelectionSearch
+	 * but without a spatial index to narrow the search, so every Drawable's bounds are looked at.
+	 */
+	private static final class NearestTask extends QueryTask<Nearest>
+	{
+		/**
+		 * The location being searched around
+		 */
+		private final Point loc;
+
+		/**
+		 * How far away the closest projection may be
+		 */
+		private final double radius;
+
+		/**
+		 * Creates a NearestTask which searches the given range of the list.
+		 */
+		NearestTask(List<Drawable> drawables, int lo, int hi, Point loc, double radius)
+		{
+			super(drawables, lo, hi);
+			this.loc = loc;
+			this.radius = radius;
+		}
+
+		/**
+		 * Tries each Drawable in turn, skipping those whose bounds are farther away than the closest projection so far.
+		 */
+		@Override
+		Nearest search()
+		{
+			Nearest nearest = new Nearest();
+			HitResult hit = new HitResult();
+			double reach = radius;
+			for (int j = lo; j < hi; j++)
+			{
+				Drawable drawable = drawables.get(j);
+				if (isWithin(drawable, drawable.getBounds(), loc.x, loc.y, reach, hit) && hit.getDistanceSq() < nearest.hit.getDistanceSq())
+				{
+					nearest.drawable = drawable;
+					nearest.position = j;
+					nearest.hit.set(hit);
+					reach = nearest.hit.getDistance();
+				}
+			}
+			return nearest;
+		}
+
+		/**
+		 * @return a NearestTask for the given range
+		 */
+		@Override
+		QueryTask<Nearest> split(int lo, int hi)
+		{
+			return new NearestTask(drawables, lo, hi, loc, radius);
+		}
+
+		/**
+		 * @return the closer of the two answers, or the first if they are equally close
+		 */
+		@Override
+		Nearest combine(Nearest first, Nearest second)
+		{
+			return second.hit.getDistanceSq() < first.hit.getDistanceSq() ? second : first;
+		}
+	}
+
+
+
+	/**
+	 * A test of whether a Drawable should be found by a FilterTask.
+	 * The same DrawableFilter is used from several threads at once, so it must not change anything.
+	 */
+	private abstract static class DrawableFilter
+	{
+		/**
+		 * @param drawable the Drawable to test
+		 * @param hit a HitResult which the test may write into, which no other thread is using
+		 * @return true if the Drawable should be found
+		 */
+		abstract boolean accept(Drawable drawable, HitResult hit);
+	}
+
+
+
+	/**
+	 * Finds every Drawable which passes a DrawableFilter, keeping them in the order of the list.
+	 */
+	private static final class FilterTask extends QueryTask<List<Drawable>>
+	{
+		/**
+		 * The test the Drawables must pass
+		 */
+		private final DrawableFilter filter;
+
+		/**
+		 * Creates a FilterTask which searches the given range of the list.
+		 */
+		FilterTask(List<Drawable> drawables, int lo, int hi, DrawableFilter filter)
+		{
+			super(drawables, lo, hi);
+			this.filter = filter;
+		}
+
+		/**
+		 * Tests each Drawable in turn.
+		 */
+		@Override
+		List<Drawable> search()
+		{
+			List<Drawable> found = new ArrayList<>();
+			HitResult hit = new HitResult();
+			for (int j = lo; j < hi; j++)
+				if (filter.accept(drawables.get(j), hit))
+					found.add(drawables.get(j));
+			return found;
+		}
+
+		/**
+		 * @return a FilterTask with the same test for the given range
+		 */
+		@Override
+		QueryTask<List<Drawable>> split(int lo, int hi)
+		{
+			return new FilterTask(drawables, lo, hi, filter);
+		}
+
+		/**
+		 * @return the Drawables found in the first range followed by those found in the second
+		 */
+		@Override
+		List<Drawable> combine(List<Drawable> first, List<Drawable> second)
+		{
+			first.addAll(second);
+			return first;
+		}
+	}
+}
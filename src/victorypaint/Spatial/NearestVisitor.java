@@ -0,0 +1,26 @@
+
+package victorypaint.Spatial;
+
+/**
+ * A NearestVisitor is given the items an RTree finds around a point, roughly nearest first,
+ * and decides how far away the RTree needs to keep looking.
+ * @author Jesse Victors, A01485921
+ * @param <T> the type of the items being visited
+ */
+public interface NearestVisitor<T>
+{
+	/**
+	 * Returns the current search radius. Items whose bounds are farther away than this
+	 * will not be visited. This may shrink as closer items are visited.
+	 * @return the search radius, which may be Double.POSITIVE_INFINITY
+	 */
+	double getSearchRadius();
+
+
+
+	/**
+	 * Called for each item whose bounds are within the search radius.
+	 * @param item the item that was found
+	 */
+	void visit(T item);
+}
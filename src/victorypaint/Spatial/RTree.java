@@ -0,0 +1,554 @@
+
+package victorypaint.Spatial;
+
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An RTree is a spatial index which stores items by their bounding rectangles.
+ * It can quickly find every item overlapping a region, or visit items in roughly
+ * nearest-first order around a point while skipping everything outside a search radius.
+ * This follows Guttman's original R-tree with a linear split.
+ * Each item may only be stored once, and items are compared by identity.
+ * @author Jesse Victors, A01485921
+ * @param <T> the type of the items being indexed
+ */
+public class RTree<T>
+{
+	/**
+	 * Maximum number of children in a Node before it is split.
+	 */
+	private static final int MAX_CHILDREN = 16;
+
+	/**
+	 * Minimum number of children in a Node, other than the root, before it is dissolved.
+	 */
+	private static final int MIN_CHILDREN = 6;
+
+	/**
+	 * The root Node. It is a leaf if the tree is only one level deep.
+	 */
+	private Node root = new Node(true);
+
+	/**
+	 * Maps each item to the leaf Entry holding it, so that items can be removed without searching.
+	 */
+	private Map<T, Entry> entries = new IdentityHashMap<>();
+
+
+	/**
+	 * Adds the given item to the RTree with the given bounds.
+	 * If the item is already in the RTree, its bounds are updated instead.
+	 * @param item the item to add, must be non-null
+	 * @param bounds the bounding rectangle of the item, must be non-null
+	 */
+	public void insert(T item, Rectangle bounds)
+	{
+		if (entries.containsKey(item))
+			remove(item);
+
+		Entry entry = new Entry(item, bounds);
+		entries.put(item, entry);
+		insert(entry);
+	}
+
+
+
+	/**
+	 * Removes the given item from the RTree.
+	 * @param item the item to remove
+	 * @return true if the item was in the RTree, false otherwise
+	 */
+	public boolean remove(T item)
+	{
+		Entry entry = entries.remove(item);
+		if (entry == null)
+			return false;
+
+		Node leaf = entry.parent;
+		leaf.removeChild(entry);
+		condenseTree(leaf);
+
+		if (!root.leaf && root.count == 1)
+		{ //shorten the tree when the root only has one child
+			root = (Node)root.children[0];
+			root.parent = null;
+		}
+		return true;
+	}
+
+
+
+	/**
+	 * Moves the given item to new bounds. This is the same as removing and re-inserting it,
+	 * except that nothing happens if the bounds haven't changed.
+	 * @param item the item to update, must be non-null
+	 * @param bounds the new bounding rectangle of the item, must be non-null
+	 */
+	public void update(T item, Rectangle bounds)
+	{
+		Entry entry = entries.get(item);
+		if (entry != null && entry.bounds.equals(bounds))
+			return;
+		insert(item, bounds);
+	}
+
+
+
+	/**
+	 * @param item the item to look for
+	 * @return true if the item is in the RTree, false otherwise
+	 */
+	public boolean contains(T item)
+	{
+		return entries.containsKey(item);
+	}
+
+
+
+	/**
+	 * Removes every item from the RTree.
+	 */
+	public void clear()
+	{
+		root = new Node(true);
+		entries.clear();
+	}
+
+
+
+	/**
+	 * @return the number of items in the RTree
+	 */
+	public int size()
+	{
+		return entries.size();
+	}
+
+
+
+	/**
+	 * Adds every item whose bounds intersect the given region to the given list.
+	 * The items are added in no particular order.
+	 * @param region the region to search, must be non-null
+	 * @param results the list to add the items to, must be non-null
+	 */
+	public void search(Rectangle region, List<T> results)
+	{
+		search(root, region, results);
+	}
+
+
+
+	/**
+	 * Visits items around the given point, nearest bounds first within each Node.
+	 * Nodes and items whose bounds are farther from the point than the visitor's
+	 * current search radius are skipped, so the visitor can shrink the radius as it
+	 * finds better candidates. Every item which could be within the final radius is visited.
+	 * @param pt the point to search around, must be non-null
+	 * @param visitor the NearestVisitor to give the items to, must be non-null
+	 */
+	public void visitNear(Point pt, NearestVisitor<T> visitor)
+	{
+		if (root.count > 0)
+			visitNear(root, pt, visitor);
+	}
+
+
+
+	/**
+	 * Returns the distance from the given point to the nearest point in the given rectangle.
+	 * @param rect the rectangle, must be non-null
+	 * @param pt the point, must be non-null
+	 * @return zero if the point is inside the rectangle, otherwise its distance from the rectangle
+	 */
+	public static double distance(Rectangle rect, Point pt)
+	{
+		double dx = Math.max(0, Math.max(rect.x - pt.x, pt.x - (rect.x + rect.width - 1)));
+		double dy = Math.max(0, Math.max(rect.y - pt.y, pt.y - (rect.y + rect.height - 1)));
+		return Math.sqrt(dx * dx + dy * dy);
+	}
+
+
+
+	/*
+	 * Recursive helper for search(Rectangle, List)
+	 */
+	@SuppressWarnings("unchecked")
+	private void search(Node node, Rectangle region, List<T> results)
+	{
+		for (int j = 0; j < node.count; j++)
+		{
+			Child child = node.children[j];
+			if (!child.bounds.intersects(region))
+				continue;
+
+			if (node.leaf)
+				results.add(((Entry)child).item);
+			else
+				search((Node)child, region, results);
+		}
+	}
+
+
+
+	/*
+	 * Recursive helper for visitNear. Children are visited in order of their distance from pt,
+	 * using a bit mask to remember which have been visited so that nothing needs to be allocated.
+	 */
+	@SuppressWarnings("unchecked")
+	private void visitNear(Node node, Point pt, NearestVisitor<T> visitor)
+	{
+		int visited = 0;
+		for (int k = 0; k < node.count; k++)
+		{
+			int nearest = -1;
+			double nearestDist = Double.POSITIVE_INFINITY;
+			for (int j = 0; j < node.count; j++)
+			{
+				if ((visited & (1 << j)) != 0)
+					continue;
+
+				double dist = distance(node.children[j].bounds, pt);
+				if (nearest == -1 || dist < nearestDist)
+				{
+					nearest = j;
+					nearestDist = dist;
+				}
+			}
+
+			if (nearestDist > visitor.getSearchRadius())
+				return; //every other child is even farther away
+			visited |= 1 << nearest;
+
+			if (node.leaf)
+				visitor.visit(((Entry)node.children[nearest]).item);
+			else
+				visitNear((Node)node.children[nearest], pt, visitor);
+		}
+	}
+
+
+
+	/*
+	 * Inserts the given Entry into a leaf, splitting Nodes as necessary.
+	 */
+	private void insert(Entry entry)
+	{
+		Node node = chooseLeaf(entry.bounds);
+		node.addChild(entry);
+
+		while (node != null)
+		{
+			Node sibling = null;
+			if (node.count > MAX_CHILDREN)
+				sibling = split(node);
+
+			if (node.parent == null)
+			{
+				if (sibling != null)
+				{ //grow the tree by one level
+					root = new Node(false);
+					root.addChild(node);
+					root.addChild(sibling);
+				}
+				return;
+			}
+
+			node.parent.recalculateBounds();
+			if (sibling != null)
+				node.parent.addChild(sibling);
+			node = node.parent;
+		}
+	}
+
+
+
+	/*
+	 * Descends from the root to the leaf whose bounds would need
+	 * to grow the least to contain the given bounds.
+	 */
+	private Node chooseLeaf(Rectangle bounds)
+	{
+		Node node = root;
+		while (!node.leaf)
+		{
+			Node best = null;
+			long bestGrowth = Long.MAX_VALUE, bestArea = Long.MAX_VALUE;
+			for (int j = 0; j < node.count; j++)
+			{
+				Rectangle childBounds = node.children[j].bounds;
+				long area = area(childBounds);
+				long growth = area(childBounds.union(bounds)) - area;
+				if (growth < bestGrowth || (growth == bestGrowth && area < bestArea))
+				{
+					best = (Node)node.children[j];
+					bestGrowth = growth;
+					bestArea = area;
+				}
+			}
+			node = best;
+		}
+		return node;
+	}
+
+
+
+	/*
+	 * Splits the given over-full Node in two using Guttman's linear split,
+	 * leaving some children in the Node and returning a new sibling with the rest.
+	 */
+	private Node split(Node node)
+	{
+		Child[] children = new Child[node.count];
+		System.arraycopy(node.children, 0, children, 0, node.count);
+
+		//pick the two children which are farthest apart as seeds
+		int lowX = 0, highX = 0, lowY = 0, highY = 0;
+		for (int j = 1; j < children.length; j++)
+		{
+			Rectangle r = children[j].bounds;
+			if (r.x > children[lowX].bounds.x)
+				lowX = j;
+			if (r.x + r.width < children[highX].bounds.x + children[highX].bounds.width)
+				highX = j;
+			if (r.y > children[lowY].bounds.y)
+				lowY = j;
+			if (r.y + r.height < children[highY].bounds.y + children[highY].bounds.height)
+				highY = j;
+		}
+
+		Rectangle total = node.bounds;
+		double separationX = (children[lowX].bounds.x - (children[highX].bounds.x + children[highX].bounds.width)) /
+				(double)Math.max(1, total.width);
+		double separationY = (children[lowY].bounds.y - (children[highY].bounds.y + children[highY].bounds.height)) /
+				(double)Math.max(1, total.height);
+
+		int seedA = separationX > separationY ? lowX : lowY;
+		int seedB = separationX > separationY ? highX : highY;
+		if (seedA == seedB)
+			seedB = (seedA == 0) ? 1 : 0;
+
+		Node sibling = new Node(node.leaf);
+		node.clearChildren();
+		node.addChild(children[seedA]);
+		sibling.addChild(children[seedB]);
+
+		for (int j = 0; j < children.length; j++)
+		{
+			if (j == seedA || j == seedB)
+				continue;
+
+			int remaining = children.length - j;
+			if (node.count + remaining <= MIN_CHILDREN)
+				node.addChild(children[j]);
+			else if (sibling.count + remaining <= MIN_CHILDREN)
+				sibling.addChild(children[j]);
+			else
+			{
+				Rectangle r = children[j].bounds;
+				long growthA = area(node.bounds.union(r)) - area(node.bounds);
+				long growthB = area(sibling.bounds.union(r)) - area(sibling.bounds);
+				if (growthA < growthB || (growthA == growthB && node.count <= sibling.count))
+					node.addChild(children[j]);
+				else
+					sibling.addChild(children[j]);
+			}
+		}
+
+		return sibling;
+	}
+
+
+
+	/*
+	 * Walks up from the given Node after a child was removed from it, dissolving any Nodes
+	 * which now have too few children and re-inserting every Entry they held.
+	 */
+	private void condenseTree(Node node)
+	{
+		Node orphans = null; //linked through their parent field, to avoid another list
+
+		while (node.parent != null)
+		{
+			Node parent = node.parent;
+			if (node.count < MIN_CHILDREN)
+			{
+				parent.removeChild(node);
+				node.parent = orphans;
+				orphans = node;
+			}
+			else
+				node.recalculateBounds();
+			node = parent;
+		}
+		node.recalculateBounds();
+		if (!root.leaf && root.count == 0)
+			root = new Node(true);
+
+		while (orphans != null)
+		{
+			Node next = orphans.parent;
+			reinsertEntries(orphans);
+			orphans = next;
+		}
+	}
+
+
+
+	/*
+	 * Inserts every Entry held underneath the given dissolved Node back into the tree.
+	 */
+	@SuppressWarnings("unchecked")
+	private void reinsertEntries(Node node)
+	{
+		for (int j = 0; j < node.count; j++)
+		{
+			if (node.leaf)
+				insert((Entry)node.children[j]);
+			else
+				reinsertEntries((Node)node.children[j]);
+		}
+	}
+
+
+
+	/*
+	 * Returns the area of the given rectangle as a long, so that large rectangles can't overflow.
+	 */
+	private static long area(Rectangle r)
+	{
+		return (long)r.width * r.height;
+	}
+
+
+
+	/**
+	 * Anything stored in a Node: either another Node, or an Entry holding an item.
+	 */
+	private abstract static class Child
+	{
+		/**
+		 * The bounding rectangle of this Child.
+		 */
+		Rectangle bounds;
+
+		/**
+		 * The Node this Child is stored in, or null for the root.
+		 */
+		Node parent;
+	}
+
+
+
+	/**
+	 * A leaf-level Child holding a single item.
+	 */
+	private final class Entry extends Child
+	{
+		/**
+		 * The indexed item.
+		 */
+		final T item;
+
+		/**
+		 * Creates an Entry for the given item with the given bounds.
+		 */
+		Entry(T item, Rectangle bounds)
+		{
+			this.item = item;
+			this.bounds = new Rectangle(bounds);
+		}
+	}
+
+
+
+	/**
+	 * A Node of the tree, holding either Entries (if it is a leaf) or other Nodes.
+	 */
+	private static final class Node extends Child
+	{
+		/**
+		 * Holds whether the children are Entries or Nodes.
+		 */
+		final boolean leaf;
+
+		/**
+		 * The children. One more than the maximum fits, so a Node can overflow before being split.
+		 */
+		Child[] children = new Child[MAX_CHILDREN + 1];
+
+		/**
+		 * The number of children.
+		 */
+		int count;
+
+		/**
+		 * Creates an empty Node.
+		 */
+		Node(boolean leaf)
+		{
+			this.leaf = leaf;
+		}
+
+		/**
+		 * Adds the given Child and grows the bounds to contain it.
+		 */
+		void addChild(Child child)
+		{
+			children[count++] = child;
+			child.parent = this;
+			if (bounds == null)
+				bounds = new Rectangle(child.bounds);
+			else
+				bounds.add(child.bounds);
+		}
+
+		/**
+		 * Removes the given Child, without shrinking the bounds.
+		 */
+		void removeChild(Child child)
+		{
+			for (int j = 0; j < count; j++)
+			{
+				if (children[j] == child)
+				{
+					children[j] = children[--count];
+					children[count] = null;
+					return;
+				}
+			}
+		}
+
+		/**
+		 * Removes every Child.
+		 */
+		void clearChildren()
+		{
+			for (int j = 0; j < count; j++)
+				children[j] = null;
+			count = 0;
+			bounds = null;
+		}
+
+		/**
+		 * Shrinks the bounds to exactly contain the children.
+		 */
+		void recalculateBounds()
+		{
+			bounds = null;
+			for (int j = 0; j < count; j++)
+			{
+				if (bounds == null)
+					bounds = new Rectangle(children[j].bounds);
+				else
+					bounds.add(children[j].bounds);
+			}
+			if (bounds == null)
+				bounds = new Rectangle();
+		}
+	}
+}
@@ -0,0 +1,440 @@
+
+package victorypaint.Tools;
+
+import java.awt.Color;
+import java.awt.Point;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Random;
+import victorypaint.Drawables.Drawable;
+import victorypaint.Drawables.LineSegment;
+import victorypaint.Drawables.Pencil;
+import victorypaint.Drawables.PointList;
+import victorypaint.Drawables.TextBox;
+import victorypaint.IO.DrawingFile;
+
+/**
+ * A DrawingGenerator builds large drawings for testing how Victory Paint copes with scale.
+ * The drawings are random, but the same seed and settings always build the same drawing.
+ * They are meant to look roughly like something a person drew:
+ * <ul>
+ * <li>Pencil strokes wander like a hand would, turning gradually at a varying speed,
+ * and their lengths vary a lot around the average.</li>
+ * <li>Most Drawables are gathered in a few clustered regions of the canvas,
+ * with the rest scattered across it.</li>
+ * <li>LineSegments are mostly short, with the occasional long one.</li>
+ * <li>TextBoxes hold labels of a few words, with the occasional long one.</li>
+ * <li>Colors are picked from a small palette, the way a user would reuse them.</li>
+ * </ul>
+ * The Drawable types are shuffled together, so they overlap in the order a user might have drawn them.
+ * A drawing can be used directly, such as given to DrawingPanel.setDrawableList,
+ * or saved with save(Path). Run from the command line, it saves a drawing to a file.
+ * @author Jesse Victors, A01485921
+ */
+public class DrawingGenerator
+{
+	/**
+	 * The Colors Drawables are picked from
+	 */
+	private static final Color[] PALETTE = {Color.BLACK, Color.RED, Color.BLUE, new Color(0, 128, 0),
+		Color.ORANGE, Color.MAGENTA, Color.DARK_GRAY, new Color(128, 0, 128)};
+	
+	/**
+	 * The words labels are made from
+	 */
+	private static final String[] WORDS = {"north", "south", "wall", "door", "window", "kitchen",
+		"stairs", "garden", "total", "note", "draft", "revised", "see", "detail", "section", "room"};
+	
+	/**
+	 * The seed for the random numbers
+	 */
+	private long seed;
+	
+	/**
+	 * The size of the canvas
+	 */
+	private int width = 1600, height = 1000;
+	
+	/**
+	 * How many of each kind of Drawable to build
+	 */
+	private int pencilCount = 800, lineSegmentCount = 150, textBoxCount = 50;
+	
+	/**
+	 * The average number of Points in a Pencil stroke
+	 */
+	private int pointsPerStroke = 200;
+	
+	/**
+	 * How many clustered regions the Drawables gather in
+	 */
+	private int clusterCount = 6;
+	
+	/**
+	 * The fraction of Drawables which are placed in a cluster rather than anywhere on the canvas
+	 */
+	private double clusteredFraction = 0.8;
+	
+	
+	/**
+	 * Constructs a DrawingGenerator with the given seed and the default settings:
+	 * a 1600x1000 canvas with 800 Pencil strokes averaging 200 Points,
+	 * 150 LineSegments and 50 TextBoxes.
+	 * @param seed the seed for the random numbers
+	 */
+	public DrawingGenerator(long seed)
+	{
+		this.seed = seed;
+	}
+
+
+
+	/**
+	 * Constructs a DrawingGenerator for a large drawing: 5,000 Pencil strokes averaging 200 Points,
+	 * for about a million Points altogether, 10,000 LineSegments and 2,000 TextBoxes,
+	 * on a 4000x3000 canvas.
+	 * @param seed the seed for the random numbers
+	 * @return the DrawingGenerator
+	 */
+	public static DrawingGenerator large(long seed)
+	{
+		DrawingGenerator generator = new DrawingGenerator(seed);
+		generator.setSize(4000, 3000);
+		generator.setCounts(5000, 10000, 2000);
+		generator.setPointsPerStroke(200);
+		generator.setClusterCount(24);
+		return generator;
+	}
+
+
+
+	/**
+	 * Sets the size of the canvas the Drawables are placed on.
+	 * @param width the width of the canvas, must be positive
+	 * @param height the height of the canvas, must be positive
+	 */
+	public void setSize(int width, int height)
+	{
+		if (width <= 0 || height <= 0)
+			throw new IllegalArgumentException("Canvas must have a positive size: " + width + "x" + height);
+		this.width = width;
+		this.height = height;
+	}
+
+
+
+	/**
+	 * Sets how many of each kind of Drawable to build.
+	 * @param pencilCount how many Pencil strokes, must not be negative
+	 * @param lineSegmentCount how many LineSegments, must not be negative
+	 * @param textBoxCount how many TextBoxes, must not be negative
+	 */
+	public void setCounts(int pencilCount, int lineSegmentCount, int textBoxCount)
+	{
+		if (pencilCount < 0 || lineSegmentCount < 0 || textBoxCount < 0)
+			throw new IllegalArgumentException("Counts must not be negative");
+		this.pencilCount = pencilCount;
+		this.lineSegmentCount = lineSegmentCount;
+		this.textBoxCount = textBoxCount;
+	}
+
+
+
+	/**
+	 * Sets the average number of Points in a Pencil stroke.
+	 * @param pointsPerStroke the average, must be at least 2
+	 */
+	public void setPointsPerStroke(int pointsPerStroke)
+	{
+		if (pointsPerStroke < 2)
+			throw new IllegalArgumentException("Strokes need at least 2 Points: " + pointsPerStroke);
+		this.pointsPerStroke = pointsPerStroke;
+	}
+
+
+
+	/**
+	 * Sets how many clustered regions the Drawables gather in.
+	 * @param clusterCount how many clusters, or 0 to scatter every Drawable across the canvas
+	 */
+	public void setClusterCount(int clusterCount)
+	{
+		if (clusterCount < 0)
+			throw new IllegalArgumentException("Cluster count must not be negative: " + clusterCount);
+		this.clusterCount = clusterCount;
+	}
+
+
+
+	/**
+	 * Builds the drawing.
+	 * @return the Drawables, shuffled together in the order they would be drawn
+	 */
+	public ArrayList<Drawable> generate()
+	{
+		Random random = new Random(seed);
+		
+		Point[] clusters = new Point[clusterCount];
+		for (int j = 0; j < clusterCount; j++)
+			clusters[j] = new Point(random.nextInt(width), random.nextInt(height));
+		double clusterRadius = Math.min(width, height) / 10.0;
+		
+		ArrayList<Drawable> drawables = new ArrayList<>(pencilCount + lineSegmentCount + textBoxCount);
+		for (int j = 0; j < pencilCount; j++)
+			drawables.add(createStroke(pickStart(clusters, clusterRadius, random), random));
+		for (int j = 0; j < lineSegmentCount; j++)
+			drawables.add(createLineSegment(pickStart(clusters, clusterRadius, random), random));
+		for (int j = 0; j < textBoxCount; j++)
+			drawables.add(createTextBox(pickStart(clusters, clusterRadius, random), random));
+		
+		Collections.shuffle(drawables, random);
+		for (Drawable drawable : drawables)
+			drawable.setDefaultColor(PALETTE[random.nextInt(PALETTE.length)]);
+		return drawables;
+	}
+
+
+
+	/**
+	 * Builds the drawing and saves it to the given file.
+	 * @param path the file to save to, must be non-null
+	 * @return the Drawables which were saved
+	 * @throws IOException if the file can't be written
+	 */
+	public ArrayList<Drawable> save(Path path) throws IOException
+	{
+		ArrayList<Drawable> drawables = generate();
+		DrawingFile.save(drawables, path);
+		return drawables;
+	}
+
+
+
+	/**
+	 * Picks where a Drawable starts: usually near one of the clusters, otherwise anywhere.
+	 */
+	private Point pickStart(Point[] clusters, double clusterRadius, Random random)
+	{
+		if (clusters.length == 0 || random.nextDouble() >= clusteredFraction)
+			return new Point(random.nextInt(width), random.nextInt(height));
+		
+		Point center = clusters[random.nextInt(clusters.length)];
+		return new Point(clampX(center.x + random.nextGaussian() * clusterRadius),
+				clampY(center.y + random.nextGaussian() * clusterRadius));
+	}
+
+
+
+	/**
+	 * Builds a Pencil stroke which wanders from the given start like a hand would.
+	 * Its length is exponentially distributed around pointsPerStroke,
+	 * and its heading and speed drift gradually from Point to Point.
+	 */
+	private Pencil createStroke(Point start, Random random)
+	{
+		int pointCount = Math.max(2, (int)Math.round(-Math.log(1 - random.nextDouble()) * pointsPerStroke));
+		
+		PointList points = new PointList(pointCount);
+		double x = start.x, y = start.y;
+		double heading = random.nextDouble() * 2 * Math.PI;
+		double speed = 1 + random.nextDouble() * 3;
+		
+		points.add(start);
+		for (int j = 1; j < pointCount; j++)
+		{
+			heading += random.nextGaussian() * 0.25;
+			speed = Math.max(0.5, Math.min(8, speed + random.nextGaussian() * 0.5));
+			x += Math.cos(heading) * speed;
+			y += Math.sin(heading) * speed;
+			
+			if (x < 0 || x >= width) //turn back at the edges
+				heading = Math.PI - heading;
+			if (y < 0 || y >= height)
+				heading = -heading;
+			points.add(clampX(x), clampY(y));
+		}
+		
+		Pencil pencil = new Pencil(start);
+		pencil.setPointList(points);
+		return pencil;
+	}
+
+
+
+	/**
+	 * Builds a LineSegment from the given start at a random angle.
+	 * Its length is log-normally distributed, so most are short and a few are long.
+	 */
+	private LineSegment createLineSegment(Point start, Random random)
+	{
+		double length = Math.exp(3.5 + random.nextGaussian());
+		double angle = random.nextDouble() * 2 * Math.PI;
+		
+		LineSegment lineSegment = new LineSegment(start);
+		lineSegment.setPointB(new Point(clampX(start.x + Math.cos(angle) * length),
+				clampY(start.y + Math.sin(angle) * length)));
+		return lineSegment;
+	}
+
+
+
+	/**
+	 * Builds a TextBox at the given start. Its label is usually one to four words,
+	 * but one in ten is a long label of up to thirty words.
+	 */
+	private TextBox createTextBox(Point start, Random random)
+	{
+		int wordCount = random.nextInt(10) == 0 ? 10 + random.nextInt(21) : 1 + random.nextInt(4);
+		
+		StringBuilder label = new StringBuilder();
+		for (int j = 0; j < wordCount; j++)
+		{
+			if (j > 0)
+				label.append(' ');
+			label.append(WORDS[random.nextInt(WORDS.length)]);
+		}
+		if (random.nextBoolean())
+			label.append(' ').append(random.nextInt(1000));
+		
+		TextBox textBox = new TextBox(start);
+		textBox.setText(label.toString());
+		return textBox;
+	}
+
+
+
+	/**
+	 * @return the given x coordinate, rounded and kept on the canvas
+	 */
+	private int clampX(double x)
+	{
+		return (int)Math.max(0, Math.min(width - 1, Math.round(x)));
+	}
+
+
+
+	/**
+	 * @return the given y coordinate, rounded and kept on the canvas
+	 */
+	private int clampY(double y)
+	{
+		return (int)Math.max(0, Math.min(height - 1, Math.round(y)));
+	}
+
+
+
+	/**
+	 * Saves a generated drawing to a file. The arguments are the file, followed by any of:
+	 * <pre>
+	 *   -seed N        the seed for the random numbers (default 1)
+	 *   -large         start from the settings of large(seed) rather than the defaults
+	 *   -size WxH      the size of the canvas
+	 *   -pencils N     how many Pencil strokes
+	 *   -points N      the average number of Points in a Pencil stroke
+	 *   -lines N       how many LineSegments
+	 *   -text N        how many TextBoxes
+	 *   -clusters N    how many clustered regions
+	 * </pre>
+	 * @param args the command line arguments
+	 * @throws IOException if the file can't be written
+	 */
+	public static void main(String[] args) throws IOException
+	{
+		if (args.length == 0)
+			usage("No output file given");
+		
+		long seed = 1;
+		for (int j = 1; j < args.length - 1; j++)
+			if (args[j].equals("-seed"))
+			{
+				try
+				{
+					seed = Long.parseLong(args[j + 1]);
+				}
+				catch (NumberFormatException ex)
+				{
+					usage("Bad value for -seed: " + args[j + 1]);
+				}
+			}
+		
+		DrawingGenerator generator = new DrawingGenerator(seed);
+		for (String arg : args)
+			if (arg.equals("-large"))
+				generator = large(seed);
+		
+		int pencils = generator.pencilCount, lines = generator.lineSegmentCount, text = generator.textBoxCount;
+		for (int j = 1; j < args.length; j++)
+		{
+			String option = args[j];
+			if (option.equals("-large"))
+				continue;
+			if (j + 1 >= args.length)
+				usage("Missing value for " + option);
+			String value = args[++j];
+			
+			try
+			{
+				switch (option)
+				{
+					case "-seed":
+						break;
+						
+					case "-size":
+						String[] size = value.split("x");
+						generator.setSize(Integer.parseInt(size[0]), Integer.parseInt(size[1]));
+						break;
+						
+					case "-pencils":
+						pencils = Integer.parseInt(value);
+						break;
+						
+					case "-points":
+						generator.setPointsPerStroke(Integer.parseInt(value));
+						break;
+						
+					case "-lines":
+						lines = Integer.parseInt(value);
+						break;
+						
+					case "-text":
+						text = Integer.parseInt(value);
+						break;
+						
+					case "-clusters":
+						generator.setClusterCount(Integer.parseInt(value));
+						break;
+						
+					default:
+						usage("Unknown option " + option);
+				}
+			}
+			catch (NumberFormatException | ArrayIndexOutOfBoundsException ex)
+			{
+				usage("Bad value for " + option + ": " + value);
+			}
+		}
+		generator.setCounts(pencils, lines, text);
+		
+		ArrayList<Drawable> drawables = generator.save(Paths.get(args[0]));
+		long points = 0;
+		for (Drawable drawable : drawables)
+			points += drawable.getPointCount();
+		System.out.println("Saved " + drawables.size() + " Drawables with " + points + " Points to " + args[0]);
+	}
+
+
+
+	/**
+	 * Prints the given problem and how to use the command line, and exits.
+	 */
+	private static void usage(String problem)
+	{
+		System.err.println(problem);
+		System.err.println("Usage: DrawingGenerator <file> [-seed N] [-large] [-size WxH] [-pencils N] [-points N]"
+				+ " [-lines N] [-text N] [-clusters N]");
+		System.exit(1);
+	}
+}
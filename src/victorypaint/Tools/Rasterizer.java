@@ -0,0 +1,297 @@
+
+package victorypaint.Tools;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import javax.imageio.ImageIO;
+import victorypaint.Drawables.Drawable;
+import victorypaint.IO.DrawingFile;
+import victorypaint.Rendering.RenderEngine;
+
+/**
+ * The Rasterizer converts saved drawings to PNG images from the command line, without a display.
+ * Many drawings are converted at once, one per processor core by default,
+ * which makes it suitable for producing thumbnails of thousands of drawings on a server.
+ * @author Jesse Victors, A01485921
+ */
+public class Rasterizer
+{
+	/**
+	 * Draws the images. It keeps no state while rendering, so all the threads share it.
+	 */
+	private RenderEngine engine = new RenderEngine();
+	
+	/**
+	 * The size of the images
+	 */
+	private int width = 1600, height = 1000;
+	
+	/**
+	 * How much to scale each drawing by, or 0 to scale each to fit the image
+	 */
+	private double scale = 1;
+	
+	/**
+	 * The directory to write images to, or null to write each next to its drawing
+	 */
+	private Path outputDir;
+	
+	
+	/**
+	 * @return the RenderEngine which draws the images, which may be configured
+	 */
+	public RenderEngine getRenderEngine()
+	{
+		return engine;
+	}
+
+
+
+	/**
+	 * Sets the size of the images.
+	 * @param width the width of the images, must be positive
+	 * @param height the height of the images, must be positive
+	 */
+	public void setSize(int width, int height)
+	{
+		if (width <= 0 || height <= 0)
+			throw new IllegalArgumentException("Image must have a positive size: " + width + "x" + height);
+		this.width = width;
+		this.height = height;
+	}
+
+
+
+	/**
+	 * Sets how much to scale each drawing by.
+	 * @param scale the scale, such as 0.25 for a quarter of the size, or 0 to scale each drawing to fit
+	 */
+	public void setScale(double scale)
+	{
+		if (scale < 0)
+			throw new IllegalArgumentException("Scale must not be negative: " + scale);
+		this.scale = scale;
+	}
+
+
+
+	/**
+	 * Sets the directory to write images to.
+	 * @param outputDir the directory, or null to write each image next to its drawing
+	 */
+	public void setOutputDir(Path outputDir)
+	{
+		this.outputDir = outputDir;
+	}
+
+
+
+	/**
+	 * Converts a single drawing to a PNG image named after it, with ".png" in place of its extension.
+	 * This may be called on many threads at once.
+	 * @param drawing the saved drawing, must be non-null
+	 * @return the image file which was written
+	 * @throws IOException if the drawing can't be read or the image can't be written
+	 */
+	public Path convert(Path drawing) throws IOException
+	{
+		List<Drawable> drawables = DrawingFile.load(drawing);
+		BufferedImage image = scale == 0 ? engine.renderToFit(drawables, width, height)
+				: engine.render(drawables, width, height, scale);
+		
+		String name = drawing.getFileName().toString();
+		int dot = name.lastIndexOf('.');
+		if (dot > 0)
+			name = name.substring(0, dot);
+		Path dir = outputDir != null ? outputDir : drawing.toAbsolutePath().getParent();
+		Path output = dir.resolve(name + ".png");
+		
+		if (!ImageIO.write(image, "png", output.toFile()))
+			throw new IOException("No PNG writer available");
+		return output;
+	}
+
+
+
+	/**
+	 * Converts all the given drawings, using the given number of threads.
+	 * Each drawing which fails is reported on standard error, and the rest carry on.
+	 * @param drawings the saved drawings, must be non-null
+	 * @param threads how many drawings to convert at once, must be positive
+	 * @return how many drawings failed
+	 * @throws InterruptedException if interrupted while waiting for the drawings to be converted
+	 */
+	public int convertAll(List<Path> drawings, int threads) throws InterruptedException
+	{
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try
+		{
+			List<Future<Path>> results = new ArrayList<>(drawings.size());
+			for (final Path drawing : drawings)
+				results.add(executor.submit(new Callable<Path>()
+				{
+					@Override
+					public Path call() throws IOException
+					{
+						return convert(drawing);
+					}
+				}));
+			
+			int failures = 0;
+			for (int j = 0; j < results.size(); j++)
+			{
+				try
+				{
+					results.get(j).get();
+				}
+				catch (ExecutionException ex)
+				{
+					failures++;
+					System.err.println(drawings.get(j) + ": " + ex.getCause());
+				}
+			}
+			return failures;
+		}
+		finally
+		{
+			executor.shutdownNow();
+		}
+	}
+
+
+
+	/**
+	 * Converts saved drawings to PNG images. The arguments are any of the following options,
+	 * followed by the drawings to convert. A directory converts every .dat and .vp file in it.
+	 * <pre>
+	 *   -out DIR       the directory to write images to (default: next to each drawing)
+	 *   -size WxH      the size of the images (default 1600x1000)
+	 *   -scale S       how much to scale each drawing by (default 1)
+	 *   -fit           scale each drawing to fit the image, for thumbnails
+	 *   -threads N     how many drawings to convert at once (default: one per processor)
+	 *   -aa            draw with antialiasing
+	 *   -transparent   leave the background transparent rather than white
+	 * </pre>
+	 * The exit status is 1 if any drawing failed to convert.
+	 * @param args the command line arguments
+	 * @throws Exception if the drawings can't be listed, or the conversion is interrupted
+	 */
+	public static void main(String[] args) throws Exception
+	{
+		if (System.getProperty("java.awt.headless") == null)
+			System.setProperty("java.awt.headless", "true");
+		
+		Rasterizer rasterizer = new Rasterizer();
+		int threads = Runtime.getRuntime().availableProcessors();
+		List<Path> drawings = new ArrayList<>();
+		
+		for (int j = 0; j < args.length; j++)
+		{
+			String arg = args[j];
+			try
+			{
+				switch (arg)
+				{
+					case "-out":
+						Path dir = Paths.get(args[++j]);
+						Files.createDirectories(dir);
+						rasterizer.setOutputDir(dir);
+						break;
+						
+					case "-size":
+						String[] size = args[++j].split("x");
+						rasterizer.setSize(Integer.parseInt(size[0]), Integer.parseInt(size[1]));
+						break;
+						
+					case "-scale":
+						rasterizer.setScale(Double.parseDouble(args[++j]));
+						break;
+						
+					case "-fit":
+						rasterizer.setScale(0);
+						break;
+						
+					case "-threads":
+						threads = Integer.parseInt(args[++j]);
+						if (threads <= 0)
+							usage("Thread count must be positive");
+						break;
+						
+					case "-aa":
+						rasterizer.getRenderEngine().setAntialiased(true);
+						break;
+						
+					case "-transparent":
+						rasterizer.getRenderEngine().setBackground(null);
+						break;
+						
+					default:
+						if (arg.startsWith("-"))
+							usage("Unknown option " + arg);
+						addDrawings(Paths.get(arg), drawings);
+				}
+			}
+			catch (NumberFormatException | ArrayIndexOutOfBoundsException ex)
+			{
+				usage("Bad or missing value for " + arg);
+			}
+			catch (IllegalArgumentException ex)
+			{
+				usage(ex.getMessage());
+			}
+		}
+		
+		if (drawings.isEmpty())
+			usage("No drawings given");
+		
+		long start = System.nanoTime();
+		int failures = rasterizer.convertAll(drawings, threads);
+		System.out.printf("Converted %d of %d drawings in %.1f s%n", drawings.size() - failures,
+				drawings.size(), (System.nanoTime() - start) / 1e9);
+		System.exit(failures == 0 ? 0 : 1);
+	}
+
+
+
+	/**
+	 * Adds the given drawing to the list, or every .dat and .vp file in it if it is a directory.
+	 */
+	private static void addDrawings(Path path, List<Path> drawings) throws IOException
+	{
+		if (!Files.isDirectory(path))
+		{
+			drawings.add(path);
+			return;
+		}
+		
+		try (DirectoryStream<Path> dir = Files.newDirectoryStream(path, "*.{dat,vp}"))
+		{
+			for (Path drawing : dir)
+				drawings.add(drawing);
+		}
+	}
+
+
+
+	/**
+	 * Prints the given problem and how to use the command line, and exits.
+	 */
+	private static void usage(String problem)
+	{
+		System.err.println(problem);
+		System.err.println("Usage: Rasterizer [-out DIR] [-size WxH] [-scale S | -fit] [-threads N] [-aa]"
+				+ " [-transparent] drawing-or-directory...");
+		System.exit(1);
+	}
+}